@@ -0,0 +1,74 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.SchemaMigrator;
+import lombok.experimental.UtilityClass;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+@UtilityClass
+class BenchmarkDatabase {
+
+    private static final Map<String, String> H2_DEFAULTS = Map.of(
+            "db.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "db.user", "sa",
+            "db.password", "",
+            "db.driver", "org.h2.Driver",
+            "db.pool.leak-detection-threshold-ms", "0");
+    private static final String DROP_SQL = "DROP TABLE IF EXISTS subscription";
+    private static final String DROP_HISTORY_SQL = "DROP TABLE IF EXISTS schema_version";
+    private static final String INSERT_SQL =
+            "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, 'APPLE', ?, 'ACTIVE')";
+    private static final String ACTIVATE_ALL_SQL = "UPDATE subscription SET status = 'ACTIVE'";
+
+    static {
+        H2_DEFAULTS.forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                System.setProperty(key, value);
+            }
+        });
+    }
+
+    static void recreate(int tableSize, int subscriptionsPerUser, Instant expirationDate) throws SQLException {
+        try (var connection = ConnectionManager.get()) {
+            try (var statement = connection.createStatement()) {
+                statement.execute(DROP_SQL);
+                statement.execute(DROP_HISTORY_SQL);
+            }
+            SchemaMigrator.migrate(connection);
+            connection.setAutoCommit(false);
+            try (var preparedStatement = connection.prepareStatement(INSERT_SQL)) {
+                var timestamp = Timestamp.from(expirationDate);
+                for (int i = 0; i < tableSize; i++) {
+                    preparedStatement.setInt(1, userId(i, subscriptionsPerUser));
+                    preparedStatement.setString(2, name(i, subscriptionsPerUser));
+                    preparedStatement.setTimestamp(3, timestamp);
+                    preparedStatement.addBatch();
+                    if ((i + 1) % 1000 == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+                preparedStatement.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    static void activateAll() throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var statement = connection.createStatement()) {
+            statement.executeUpdate(ACTIVATE_ALL_SQL);
+        }
+    }
+
+    static int userId(int row, int subscriptionsPerUser) {
+        return row / subscriptionsPerUser;
+    }
+
+    static String name(int row, int subscriptionsPerUser) {
+        return "subscription-" + row % subscriptionsPerUser;
+    }
+}
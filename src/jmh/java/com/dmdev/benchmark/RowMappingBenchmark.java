@@ -0,0 +1,121 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dao.RowMapper;
+import com.dmdev.dao.SubscriptionRowMapper;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, name, provider, expiration_date, status, version FROM subscription";
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private Connection connection;
+    private PreparedStatement preparedStatement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:row_mapping_" + rows, "sa", "");
+        try (var statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE subscription (
+                        id INT AUTO_INCREMENT PRIMARY KEY,
+                        user_id INT NOT NULL,
+                        name VARCHAR(64) NOT NULL,
+                        provider VARCHAR(16) NOT NULL,
+                        expiration_date TIMESTAMP NOT NULL,
+                        status VARCHAR(16) NOT NULL,
+                        version INT NOT NULL DEFAULT 0
+                    )
+                    """);
+        }
+        try (var insert = connection.prepareStatement(
+                "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, ?, ?, ?)")) {
+            var expirationDate = Timestamp.from(Instant.parse("2030-01-01T00:00:00Z"));
+            for (int i = 0; i < rows; i++) {
+                insert.setInt(1, i);
+                insert.setString(2, "subscription-" + i);
+                insert.setString(3, Provider.values()[i % Provider.values().length].name());
+                insert.setTimestamp(4, expirationDate);
+                insert.setString(5, Status.values()[i % Status.values().length].name());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        preparedStatement = connection.prepareStatement(SELECT_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        preparedStatement.close();
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE subscription");
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void labelBasedBuilder(Blackhole blackhole) throws SQLException {
+        try (var resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(buildEntity(resultSet));
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexBasedRowMapper(Blackhole blackhole) throws SQLException {
+        try (var resultSet = preparedStatement.executeQuery()) {
+            RowMapper<Subscription> rowMapper = SubscriptionRowMapper.getInstance().forResultSet(resultSet);
+            while (resultSet.next()) {
+                blackhole.consume(rowMapper.mapRow(resultSet));
+            }
+        }
+    }
+
+    private static Subscription buildEntity(ResultSet resultSet) throws SQLException {
+        return Subscription.builder()
+                .id(resultSet.getObject("id", Integer.class))
+                .userId(resultSet.getObject("user_id", Integer.class))
+                .name(resultSet.getObject("name", String.class))
+                .provider(Provider.valueOf(resultSet.getObject("provider", String.class)))
+                .expirationDate(resultSet.getObject("expiration_date", Timestamp.class).toInstant())
+                .status(Status.valueOf(resultSet.getObject("status", String.class)))
+                .version(resultSet.getObject("version", Integer.class))
+                .build();
+    }
+}
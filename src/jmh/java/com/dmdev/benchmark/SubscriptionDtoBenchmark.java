@@ -0,0 +1,79 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Subscription;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionDtoBenchmark {
+
+    @Param({"true", "false"})
+    private boolean valid;
+
+    @Param({"false", "true"})
+    private boolean failFast;
+
+    private CreateSubscriptionValidator validator;
+    private CreateSubscriptionMapper mapper;
+    private CreateSubscriptionDto dto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator = new CreateSubscriptionValidator(Clock.systemUTC(), failFast);
+        mapper = CreateSubscriptionMapper.getInstance();
+        dto = valid
+                ? CreateSubscriptionDto.builder()
+                        .userId(1)
+                        .name("subscription")
+                        .provider(Provider.APPLE.name().toLowerCase())
+                        .expirationDate(Instant.now().plus(365, ChronoUnit.DAYS))
+                        .build()
+                : CreateSubscriptionDto.builder()
+                        .name(" ")
+                        .provider("unknown")
+                        .expirationDate(Instant.EPOCH)
+                        .build();
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(dto);
+    }
+
+    @Benchmark
+    public Subscription map() {
+        return mapper.map(dto);
+    }
+
+    @Benchmark
+    public Subscription validateAndMap() {
+        var provider = Provider.findByNameOrNull(dto.getProvider());
+        validator.validate(dto, provider);
+        return mapper.map(dto, provider);
+    }
+}
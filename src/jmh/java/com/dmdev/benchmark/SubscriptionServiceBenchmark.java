@@ -0,0 +1,105 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Provider;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionService;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionServiceBenchmark {
+
+    @Param({"1", "10"})
+    private int subscriptionsPerUser;
+
+    @Param({"1000", "100000"})
+    private int tableSize;
+
+    private SubscriptionService subscriptionService;
+    private CreateSubscriptionDto[] upsertDtos;
+    private int upsertCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        var expirationDate = Instant.now().plus(365, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        BenchmarkDatabase.recreate(tableSize, subscriptionsPerUser, expirationDate);
+        subscriptionService = new SubscriptionService(
+                SubscriptionDao.getInstance(),
+                CreateSubscriptionMapper.getInstance(),
+                CreateSubscriptionValidator.getInstance(),
+                Clock.systemUTC());
+        upsertDtos = new CreateSubscriptionDto[tableSize];
+        for (int i = 0; i < tableSize; i++) {
+            upsertDtos[i] = CreateSubscriptionDto.builder()
+                    .userId(BenchmarkDatabase.userId(i, subscriptionsPerUser))
+                    .name(BenchmarkDatabase.name(i, subscriptionsPerUser))
+                    .provider(Provider.APPLE.name())
+                    .expirationDate(expirationDate.plusSeconds(i))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public Object upsert() {
+        var dto = upsertDtos[upsertCursor];
+        upsertCursor = (upsertCursor + 1) % tableSize;
+        return subscriptionService.upsert(dto);
+    }
+
+    @Benchmark
+    public void cancel(TransitionCursor cursor) {
+        subscriptionService.cancel(cursor.next());
+    }
+
+    @Benchmark
+    public void expire(TransitionCursor cursor) {
+        subscriptionService.expire(cursor.next());
+    }
+
+    @State(Scope.Benchmark)
+    public static class TransitionCursor {
+
+        private int lastId;
+
+        @Setup(Level.Iteration)
+        public void activateAll() throws SQLException {
+            BenchmarkDatabase.activateAll();
+            lastId = 0;
+        }
+
+        @Setup(Level.Invocation)
+        public void rewindIfExhausted(SubscriptionServiceBenchmark benchmark) throws SQLException {
+            if (lastId == benchmark.tableSize) {
+                activateAll();
+            }
+        }
+
+        private int next() {
+            return ++lastId;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.dmdev.benchmark;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dao.WriteBehindSubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    @Param({"10000"})
+    private int tableSize;
+
+    @Param({"64", "512"})
+    private int maxBatchSize;
+
+    private SubscriptionDao directDao;
+    private WriteBehindSubscriptionDao writeBehindDao;
+    private Instant expirationDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        expirationDate = Instant.now().plus(365, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        BenchmarkDatabase.recreate(tableSize, 1, expirationDate);
+        directDao = SubscriptionDao.getInstance();
+        writeBehindDao = new WriteBehindSubscriptionDao(directDao, 16, maxBatchSize, Duration.ofMillis(2), 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writeBehindDao.close();
+    }
+
+    @Benchmark
+    public Object directUpsert() {
+        return directDao.upsertByUserIdAndName(nextSubscription());
+    }
+
+    @Benchmark
+    public Object writeBehindUpsert() {
+        return writeBehindDao.upsertByUserIdAndName(nextSubscription());
+    }
+
+    private Subscription nextSubscription() {
+        var row = ThreadLocalRandom.current().nextInt(tableSize);
+        return Subscription.builder()
+                .userId(BenchmarkDatabase.userId(row, 1))
+                .name(BenchmarkDatabase.name(row, 1))
+                .provider(Provider.APPLE)
+                .expirationDate(expirationDate)
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
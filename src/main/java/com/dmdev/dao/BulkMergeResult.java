@@ -0,0 +1,8 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionChange;
+
+import java.util.List;
+
+public record BulkMergeResult(List<Long> conflicts, List<SubscriptionChange> changes) {
+}
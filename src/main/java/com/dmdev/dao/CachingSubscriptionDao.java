@@ -0,0 +1,300 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.CacheStats;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.LruCache;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.TransactionCallback;
+import com.dmdev.util.Transactions;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CachingSubscriptionDao implements SubscriptionDao {
+
+    private static final String MAX_SIZE_KEY = "cache.subscription.max-size";
+    private static final String TTL_KEY = "cache.subscription.ttl-ms";
+
+    private final SubscriptionDao delegate;
+    private final LruCache<Integer, Subscription> byId;
+    private final LruCache<Integer, List<Subscription>> byUserId;
+
+    public CachingSubscriptionDao(SubscriptionDao delegate, int maxSize, Duration ttl, Clock clock) {
+        this.delegate = delegate;
+        this.byId = new LruCache<>(maxSize, ttl, clock);
+        this.byUserId = new LruCache<>(maxSize, ttl, clock, subscriptions -> subscriptions.stream()
+                .map(Subscription::getId)
+                .toList());
+    }
+
+    public static CachingSubscriptionDao fromProperties(SubscriptionDao delegate) {
+        return new CachingSubscriptionDao(
+                delegate,
+                PropertiesUtil.getInt(MAX_SIZE_KEY, 10_000),
+                Duration.ofMillis(PropertiesUtil.getLong(TTL_KEY, 60_000)),
+                Clock.systemUTC());
+    }
+
+    public CacheStats getByIdStats() {
+        return byId.getStats();
+    }
+
+    public CacheStats getByUserIdStats() {
+        return byUserId.getStats();
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        if (Transactions.isActive()) {
+            return delegate.findById(id);
+        }
+        var cached = byId.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        var generation = byId.generation();
+        var subscription = delegate.findById(id);
+        subscription.ifPresent(loaded -> byId.putIfNotInvalidatedSince(id, copy(loaded), generation));
+        return subscription;
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        if (Transactions.isActive()) {
+            return delegate.findByUserId(userId);
+        }
+        var cached = byUserId.get(userId);
+        if (cached != null) {
+            return copy(cached);
+        }
+        var generation = byUserId.generation();
+        var subscriptions = delegate.findByUserId(userId);
+        byUserId.putIfNotInvalidatedSince(userId, List.copyOf(copy(subscriptions)), generation);
+        return subscriptions;
+    }
+
+    @Override
+    public <R> R inTransaction(TransactionCallback<R> callback) {
+        return delegate.inTransaction(callback);
+    }
+
+    @Override
+    public <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return delegate.inTransaction(isolation, callback);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        return delegate.findByUserIds(userIds);
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        return delegate.findPage(pageToken, limit, filter);
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return delegate.streamByUserId(userId);
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        return delegate.streamPartitioned(filter, partitions);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        var deleted = delegate.delete(id);
+        invalidateNowAndOnCompletion(() -> invalidate(id, null));
+        return deleted;
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        var subscription = delegate.update(entity);
+        invalidateNowAndOnCompletion(() -> invalidate(entity.getId(), entity.getUserId()));
+        return subscription;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        var subscription = delegate.insert(entity);
+        invalidateNowAndOnCompletion(() -> byUserId.invalidate(entity.getUserId()));
+        return subscription;
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        var subscription = delegate.upsertByUserIdAndName(entity);
+        invalidateNowAndOnCompletion(() -> {
+            byUserId.invalidate(entity.getUserId());
+            subscription.ifPresent(upserted -> byId.invalidate(upserted.getId()));
+        });
+        return subscription;
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        var change = delegate.upsertChangeByUserIdAndName(entity);
+        invalidateNowAndOnCompletion(() -> {
+            byUserId.invalidate(entity.getUserId());
+            change.ifPresent(upserted -> byId.invalidate(upserted.getAfter().getId()));
+        });
+        return change;
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        try {
+            var subscriptions = delegate.upsertAllByUserIdAndName(entities);
+            invalidateNowAndOnCompletion(() -> subscriptions.forEach(subscription ->
+                    subscription.ifPresent(upserted -> byId.invalidate(upserted.getId()))));
+            return subscriptions;
+        } finally {
+            invalidateNowAndOnCompletion(() -> entities.forEach(entity -> byUserId.invalidate(entity.getUserId())));
+        }
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        try {
+            return delegate.insertAll(entities);
+        } finally {
+            invalidateNowAndOnCompletion(() -> entities.forEach(entity -> byUserId.invalidate(entity.getUserId())));
+        }
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        try {
+            return delegate.updateAll(entities);
+        } finally {
+            var ids = entities.stream()
+                    .map(Subscription::getId)
+                    .toList();
+            invalidateNowAndOnCompletion(() -> {
+                entities.forEach(entity -> byUserId.invalidate(entity.getUserId()));
+                invalidateIds(ids);
+            });
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        var expired = delegate.expireOverdue(now, limit);
+        if (!expired.isEmpty()) {
+            invalidateNowAndOnCompletion(() -> expired.forEach(change -> invalidate(change.getBefore().getId(),
+                    change.getBefore().getUserId())));
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        try {
+            return delegate.compareAndSetStatus(id, expectedStatuses, newStatus, expirationDate, expectedVersion);
+        } finally {
+            invalidateNowAndOnCompletion(() -> invalidate(id, null));
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        try {
+            return delegate.cancelAll(ids);
+        } finally {
+            invalidateNowAndOnCompletion(() -> invalidateIds(ids));
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        try {
+            return delegate.expireAll(ids, expirationDate);
+        } finally {
+            invalidateNowAndOnCompletion(() -> invalidateIds(ids));
+        }
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        return delegate.findExistingIds(ids);
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        return delegate.count(filter);
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        return delegate.countByStatusAndProvider(filter);
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        return delegate.countByExpirationDate(filter);
+    }
+
+    private void invalidateNowAndOnCompletion(Runnable invalidation) {
+        invalidation.run();
+        Transactions.current().ifPresent(transaction -> transaction.afterCompletion(committed -> invalidation.run()));
+    }
+
+    private void invalidate(Integer id, Integer userId) {
+        if (userId != null) {
+            byUserId.invalidate(userId);
+        }
+        invalidateIds(List.of(id));
+    }
+
+    private void invalidateIds(Collection<Integer> ids) {
+        for (var id : new HashSet<>(ids)) {
+            byId.invalidate(id);
+            byUserId.invalidateByIndex(id);
+        }
+    }
+
+    private static Subscription copy(Subscription subscription) {
+        return subscription.toBuilder().build();
+    }
+
+    private static List<Subscription> copy(List<Subscription> subscriptions) {
+        return subscriptions.stream()
+                .map(CachingSubscriptionDao::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -1,6 +1,9 @@
 package com.dmdev.dao;
 
 import com.dmdev.entity.BaseEntity;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.TransactionCallback;
+import com.dmdev.util.Transactions;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,6 +16,14 @@ public interface Dao<K, T extends BaseEntity<K>> {
                 : insert(entity);
     }
 
+    default <R> R inTransaction(TransactionCallback<R> callback) {
+        return Transactions.inTransaction(callback);
+    }
+
+    default <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return Transactions.inTransaction(isolation, callback);
+    }
+
     List<T> findAll();
 
     Optional<T> findById(K id);
@@ -0,0 +1,26 @@
+package com.dmdev.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record IdRange(int from, int to) {
+
+    public IdRange {
+        if (from > to) {
+            throw new IllegalArgumentException(String.format("Empty id range [%d, %d]", from, to));
+        }
+    }
+
+    public List<IdRange> split(int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive: " + partitions);
+        }
+        var width = (long) to - from + 1;
+        var partitionWidth = Math.max(1, (width + partitions - 1) / partitions);
+        List<IdRange> ranges = new ArrayList<>(partitions);
+        for (long start = from; start <= to; start += partitionWidth) {
+            ranges.add(new IdRange((int) start, (int) Math.min(to, start + partitionWidth - 1)));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,549 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import lombok.SneakyThrows;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+public class InMemorySubscriptionDao implements SubscriptionDao {
+
+    private static final int STRIPES = 64;
+    private static final Set<Status> CANCELABLE_STATUSES = EnumSet.of(Status.ACTIVE);
+    private static final Set<Status> EXPIRABLE_STATUSES = EnumSet.complementOf(EnumSet.of(Status.EXPIRED));
+
+    private final AtomicInteger idSequence = new AtomicInteger();
+    private final ConcurrentSkipListMap<Integer, Subscription> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> idsByUserId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<NameKey, Integer> idByName = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<StatusKey> byStatusAndExpiration = new ConcurrentSkipListSet<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public InMemorySubscriptionDao() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void put(Subscription subscription) {
+        var stored = copy(subscription);
+        requireColumns(stored);
+        Objects.requireNonNull(stored.getId(), "id");
+        idSequence.accumulateAndGet(stored.getId(), Math::max);
+        while (true) {
+            var previous = byId.get(stored.getId());
+            var first = stripeIndex(previous != null ? previous.getUserId() : stored.getUserId());
+            var second = stripeIndex(stored.getUserId());
+            lock(first, second);
+            try {
+                if (byId.get(stored.getId()) != previous) {
+                    continue;
+                }
+                if (isNewer(previous, stored)) {
+                    return;
+                }
+                var conflictingId = idByName.get(NameKey.of(stored));
+                if (conflictingId != null && !conflictingId.equals(stored.getId())) {
+                    remove(byId.get(conflictingId));
+                }
+                store(stored, previous);
+                return;
+            } finally {
+                unlock(first, second);
+            }
+        }
+    }
+
+    public void evict(Integer id) {
+        delete(id);
+    }
+
+    public List<Integer> findOverdueIds(Instant now) {
+        List<Integer> ids = new ArrayList<>();
+        for (var status : EXPIRABLE_STATUSES) {
+            for (var key : overdue(status, now)) {
+                ids.add(key.id());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return byId.values().stream()
+                .map(InMemorySubscriptionDao::copy)
+                .collect(ArrayList::new, List::add, List::addAll);
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        return Optional.ofNullable(byId.get(id)).map(InMemorySubscriptionDao::copy);
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        collectByUserId(userId, subscriptions);
+        subscriptions.sort(Comparator.comparing(Subscription::getId));
+        return subscriptions;
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (var userId : Set.copyOf(userIds)) {
+            collectByUserId(userId, subscriptions);
+        }
+        subscriptions.sort(Comparator.comparing(Subscription::getId));
+        return subscriptions;
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        var candidates = pageToken == null
+                ? byId.values()
+                : byId.tailMap(PageTokens.decode(pageToken), false).values();
+        if (filter.getUserId() != null) {
+            var afterId = pageToken == null ? Integer.MIN_VALUE : PageTokens.decode(pageToken);
+            candidates = findByUserId(filter.getUserId()).stream()
+                    .filter(subscription -> subscription.getId() > afterId)
+                    .toList();
+        }
+        List<Subscription> subscriptions = new ArrayList<>(limit);
+        String nextPageToken = null;
+        for (var subscription : candidates) {
+            if (!matches(subscription, filter)) {
+                continue;
+            }
+            if (subscriptions.size() == limit) {
+                nextPageToken = PageTokens.encode(subscriptions.get(limit - 1).getId());
+                break;
+            }
+            subscriptions.add(copy(subscription));
+        }
+        return new Page<>(subscriptions, nextPageToken);
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return byId.values().stream().map(InMemorySubscriptionDao::copy);
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return findByUserId(userId).stream();
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        if (byId.isEmpty()) {
+            return Stream.empty();
+        }
+        return new IdRange(byId.firstKey(), byId.lastKey()).split(partitions).parallelStream()
+                .flatMap(range -> byId.subMap(range.from(), true, range.to(), true).values().stream())
+                .filter(subscription -> matches(subscription, filter))
+                .map(InMemorySubscriptionDao::copy);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return mutate(id, null, current -> null) != null;
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        requireColumns(entity);
+        var updated = mutate(entity.getId(), entity.getUserId(), current -> entity.toBuilder()
+                .version(current.getVersion() + 1)
+                .build());
+        if (updated != null && entity.getVersion() != null) {
+            entity.setVersion(entity.getVersion() + 1);
+        }
+        return entity;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        requireColumns(entity);
+        var lock = stripe(entity.getUserId());
+        lock.lock();
+        try {
+            requireUniqueName(NameKey.of(entity), null);
+            entity.setId(idSequence.incrementAndGet());
+            entity.setVersion(0);
+            store(copy(entity), null);
+            return entity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        return upsertChangeByUserIdAndName(entity).map(SubscriptionChange::getAfter);
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        requireColumns(entity);
+        var lock = stripe(entity.getUserId());
+        lock.lock();
+        try {
+            var id = idByName.get(NameKey.of(entity));
+            if (id == null) {
+                var inserted = copy(entity).setId(idSequence.incrementAndGet()).setVersion(0);
+                store(inserted, null);
+                return Optional.of(new SubscriptionChange(null, copy(inserted)));
+            }
+            var current = byId.get(id);
+            if (current.getProvider() != entity.getProvider()) {
+                return Optional.empty();
+            }
+            var updated = current.toBuilder()
+                    .expirationDate(entity.getExpirationDate())
+                    .status(entity.getStatus())
+                    .version(current.getVersion() + 1)
+                    .build();
+            store(updated, current);
+            return Optional.of(new SubscriptionChange(copy(current), copy(updated)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        List<Optional<Subscription>> results = new ArrayList<>(entities.size());
+        for (var entity : entities) {
+            results.add(upsertByUserIdAndName(entity));
+        }
+        return results;
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        for (var entity : entities) {
+            insert(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        for (var entity : entities) {
+            update(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        List<SubscriptionChange> expired = new ArrayList<>();
+        for (var status : EXPIRABLE_STATUSES) {
+            for (var key : overdue(status, now)) {
+                if (expired.size() >= limit) {
+                    return expired;
+                }
+                var change = transition(key.id(), EXPIRABLE_STATUSES, Status.EXPIRED, null, null);
+                if (change != null) {
+                    expired.add(change);
+                }
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        return transition(id, expectedStatuses, newStatus, expirationDate, expectedVersion) != null;
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        List<SubscriptionChange> canceled = new ArrayList<>();
+        for (var id : Set.copyOf(ids)) {
+            var change = transition(id, CANCELABLE_STATUSES, Status.CANCELED, null, null);
+            if (change != null) {
+                canceled.add(change);
+            }
+        }
+        return canceled;
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        List<SubscriptionChange> expired = new ArrayList<>();
+        for (var id : Set.copyOf(ids)) {
+            var change = transition(id, EXPIRABLE_STATUSES, Status.EXPIRED, expirationDate, null);
+            if (change != null) {
+                expired.add(change);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        List<Integer> existing = new ArrayList<>();
+        for (var id : Set.copyOf(ids)) {
+            if (byId.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (var id : Set.copyOf(ids)) {
+            var subscription = byId.get(id);
+            if (subscription != null) {
+                subscriptions.add(copy(subscription));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        return byId.values().stream()
+                .filter(subscription -> matches(subscription, filter))
+                .count();
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        Map<Status, Map<Provider, Long>> totals = new EnumMap<>(Status.class);
+        for (var subscription : byId.values()) {
+            if (matches(subscription, filter)) {
+                totals.computeIfAbsent(subscription.getStatus(), status -> new EnumMap<>(Provider.class))
+                        .merge(subscription.getProvider(), 1L, Long::sum);
+            }
+        }
+        List<SubscriptionCount> counts = new ArrayList<>();
+        totals.forEach((status, byProvider) -> byProvider.forEach((provider, count) ->
+                counts.add(new SubscriptionCount(status, provider, count))));
+        return counts;
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        Map<LocalDate, Long> counts = new TreeMap<>();
+        for (var subscription : byId.values()) {
+            if (matches(subscription, filter)) {
+                counts.merge(LocalDate.ofInstant(subscription.getExpirationDate(), EXPIRATION_DATE_ZONE), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private SubscriptionChange transition(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                          Instant expirationDate, Integer expectedVersion) {
+        var before = new Subscription[1];
+        var after = mutate(id, null, current -> {
+            if (!expectedStatuses.contains(current.getStatus())
+                || expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                return current;
+            }
+            before[0] = current;
+            return current.toBuilder()
+                    .status(newStatus)
+                    .expirationDate(expirationDate != null ? expirationDate : current.getExpirationDate())
+                    .version(current.getVersion() + 1)
+                    .build();
+        });
+        return after != null ? new SubscriptionChange(copy(before[0]), copy(after)) : null;
+    }
+
+    private Subscription mutate(Integer id, Integer targetUserId, UnaryOperator<Subscription> mutation) {
+        if (id == null) {
+            return null;
+        }
+        while (true) {
+            var current = byId.get(id);
+            if (current == null) {
+                return null;
+            }
+            var first = stripeIndex(current.getUserId());
+            var second = targetUserId != null ? stripeIndex(targetUserId) : first;
+            lock(first, second);
+            try {
+                if (byId.get(id) != current) {
+                    continue;
+                }
+                var updated = mutation.apply(current);
+                if (updated == null) {
+                    remove(current);
+                    return current;
+                }
+                if (updated == current) {
+                    return null;
+                }
+                requireUniqueName(NameKey.of(updated), id);
+                store(updated, current);
+                return updated;
+            } finally {
+                unlock(first, second);
+            }
+        }
+    }
+
+    private void lock(int first, int second) {
+        stripes[Math.min(first, second)].lock();
+        if (first != second) {
+            stripes[Math.max(first, second)].lock();
+        }
+    }
+
+    private void unlock(int first, int second) {
+        if (first != second) {
+            stripes[Math.max(first, second)].unlock();
+        }
+        stripes[Math.min(first, second)].unlock();
+    }
+
+    private void store(Subscription stored, Subscription previous) {
+        if (previous != null) {
+            unindex(previous);
+        }
+        byId.put(stored.getId(), stored);
+        idsByUserId.computeIfAbsent(stored.getUserId(), userId -> ConcurrentHashMap.newKeySet()).add(stored.getId());
+        idByName.put(NameKey.of(stored), stored.getId());
+        byStatusAndExpiration.add(StatusKey.of(stored));
+    }
+
+    private void remove(Subscription current) {
+        if (current != null) {
+            byId.remove(current.getId(), current);
+            unindex(current);
+        }
+    }
+
+    private void unindex(Subscription subscription) {
+        byStatusAndExpiration.remove(StatusKey.of(subscription));
+        idByName.remove(NameKey.of(subscription), subscription.getId());
+        var ids = idsByUserId.get(subscription.getUserId());
+        if (ids != null) {
+            ids.remove(subscription.getId());
+        }
+    }
+
+    private void collectByUserId(Integer userId, List<Subscription> subscriptions) {
+        var ids = idsByUserId.get(userId);
+        if (ids == null) {
+            return;
+        }
+        for (var id : ids) {
+            var subscription = byId.get(id);
+            if (subscription != null && subscription.getUserId().equals(userId)) {
+                subscriptions.add(copy(subscription));
+            }
+        }
+    }
+
+    private Set<StatusKey> overdue(Status status, Instant now) {
+        return byStatusAndExpiration.subSet(
+                new StatusKey(status, Instant.MIN, Integer.MIN_VALUE), true,
+                new StatusKey(status, now, Integer.MIN_VALUE), false);
+    }
+
+    @SneakyThrows
+    private void requireUniqueName(NameKey key, Integer ownId) {
+        var existingId = idByName.get(key);
+        if (existingId != null && !existingId.equals(ownId)) {
+            throw new SQLIntegrityConstraintViolationException(String.format(
+                    "Unique constraint violated: subscription (user_id, name) = (%d, %s)", key.userId(), key.name()));
+        }
+    }
+
+    private static boolean isNewer(Subscription previous, Subscription candidate) {
+        return previous != null && previous.getVersion() != null && candidate.getVersion() != null
+               && previous.getVersion() > candidate.getVersion();
+    }
+
+    @SneakyThrows
+    private static void requireColumns(Subscription entity) {
+        if (entity.getUserId() == null || entity.getName() == null || entity.getProvider() == null
+            || entity.getExpirationDate() == null || entity.getStatus() == null) {
+            throw new SQLIntegrityConstraintViolationException("NULL not allowed for subscription column: " + entity);
+        }
+    }
+
+    private ReentrantLock stripe(Integer userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private static int stripeIndex(Integer userId) {
+        var hash = userId.hashCode() * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & STRIPES - 1;
+    }
+
+    private static boolean matches(Subscription subscription, SubscriptionFilter filter) {
+        return (filter.getUserId() == null || filter.getUserId().equals(subscription.getUserId()))
+               && (filter.getStatus() == null || filter.getStatus() == subscription.getStatus())
+               && (filter.getProvider() == null || filter.getProvider() == subscription.getProvider())
+               && (filter.getExpiresFrom() == null || !subscription.getExpirationDate().isBefore(filter.getExpiresFrom()))
+               && (filter.getExpiresTo() == null || subscription.getExpirationDate().isBefore(filter.getExpiresTo()));
+    }
+
+    private static Subscription copy(Subscription subscription) {
+        return subscription.toBuilder().build();
+    }
+
+    private record NameKey(Integer userId, String name) {
+
+        private static NameKey of(Subscription subscription) {
+            return new NameKey(subscription.getUserId(), subscription.getName());
+        }
+    }
+
+    private record StatusKey(Status status, Instant expirationDate, int id) implements Comparable<StatusKey> {
+
+        private static final Comparator<StatusKey> ORDER = Comparator.comparing(StatusKey::status)
+                .thenComparing(StatusKey::expirationDate)
+                .thenComparingInt(StatusKey::id);
+
+        private static StatusKey of(Subscription subscription) {
+            return new StatusKey(subscription.getStatus(), subscription.getExpirationDate(), subscription.getId());
+        }
+
+        @Override
+        public int compareTo(StatusKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.MetricsRegistry;
+import com.dmdev.metrics.OperationMetrics;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.TransactionCallback;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class InstrumentedSubscriptionDao implements SubscriptionDao {
+
+    private static final String PREFIX = "dao.subscription.";
+
+    private final SubscriptionDao delegate;
+    private final OperationMetrics findAllMetrics;
+    private final OperationMetrics findByIdMetrics;
+    private final OperationMetrics deleteMetrics;
+    private final OperationMetrics updateMetrics;
+    private final OperationMetrics insertMetrics;
+    private final OperationMetrics findByUserIdMetrics;
+    private final OperationMetrics findByUserIdsMetrics;
+    private final OperationMetrics findPageMetrics;
+    private final OperationMetrics upsertByUserIdAndNameMetrics;
+    private final OperationMetrics upsertChangeByUserIdAndNameMetrics;
+    private final OperationMetrics upsertAllByUserIdAndNameMetrics;
+    private final OperationMetrics insertAllMetrics;
+    private final OperationMetrics updateAllMetrics;
+    private final OperationMetrics expireOverdueMetrics;
+    private final OperationMetrics compareAndSetStatusMetrics;
+    private final OperationMetrics cancelAllMetrics;
+    private final OperationMetrics expireAllMetrics;
+    private final OperationMetrics findExistingIdsMetrics;
+    private final OperationMetrics findAllByIdMetrics;
+    private final OperationMetrics countMetrics;
+    private final OperationMetrics countByStatusAndProviderMetrics;
+    private final OperationMetrics countByExpirationDateMetrics;
+    private final OperationMetrics streamAllMetrics;
+    private final OperationMetrics streamByUserIdMetrics;
+    private final OperationMetrics streamPartitionedMetrics;
+
+    public InstrumentedSubscriptionDao(SubscriptionDao delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.findAllMetrics = OperationMetrics.of(registry, PREFIX + "find-all");
+        this.findByIdMetrics = OperationMetrics.of(registry, PREFIX + "find-by-id");
+        this.deleteMetrics = OperationMetrics.of(registry, PREFIX + "delete");
+        this.updateMetrics = OperationMetrics.of(registry, PREFIX + "update");
+        this.insertMetrics = OperationMetrics.of(registry, PREFIX + "insert");
+        this.findByUserIdMetrics = OperationMetrics.of(registry, PREFIX + "find-by-user-id");
+        this.findByUserIdsMetrics = OperationMetrics.of(registry, PREFIX + "find-by-user-ids");
+        this.findPageMetrics = OperationMetrics.of(registry, PREFIX + "find-page");
+        this.upsertByUserIdAndNameMetrics = OperationMetrics.of(registry, PREFIX + "upsert-by-user-id-and-name");
+        this.upsertChangeByUserIdAndNameMetrics = OperationMetrics.of(registry, PREFIX + "upsert-change-by-user-id-and-name");
+        this.upsertAllByUserIdAndNameMetrics = OperationMetrics.of(registry, PREFIX + "upsert-all-by-user-id-and-name");
+        this.insertAllMetrics = OperationMetrics.of(registry, PREFIX + "insert-all");
+        this.updateAllMetrics = OperationMetrics.of(registry, PREFIX + "update-all");
+        this.expireOverdueMetrics = OperationMetrics.of(registry, PREFIX + "expire-overdue");
+        this.compareAndSetStatusMetrics = OperationMetrics.of(registry, PREFIX + "compare-and-set-status");
+        this.cancelAllMetrics = OperationMetrics.of(registry, PREFIX + "cancel-all");
+        this.expireAllMetrics = OperationMetrics.of(registry, PREFIX + "expire-all");
+        this.findExistingIdsMetrics = OperationMetrics.of(registry, PREFIX + "find-existing-ids");
+        this.findAllByIdMetrics = OperationMetrics.of(registry, PREFIX + "find-all-by-id");
+        this.countMetrics = OperationMetrics.of(registry, PREFIX + "count");
+        this.countByStatusAndProviderMetrics = OperationMetrics.of(registry, PREFIX + "count-by-status-and-provider");
+        this.countByExpirationDateMetrics = OperationMetrics.of(registry, PREFIX + "count-by-expiration-date");
+        this.streamAllMetrics = OperationMetrics.of(registry, PREFIX + "stream-all");
+        this.streamByUserIdMetrics = OperationMetrics.of(registry, PREFIX + "stream-by-user-id");
+        this.streamPartitionedMetrics = OperationMetrics.of(registry, PREFIX + "stream-partitioned");
+    }
+
+    @Override
+    public <R> R inTransaction(TransactionCallback<R> callback) {
+        return delegate.inTransaction(callback);
+    }
+
+    @Override
+    public <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return delegate.inTransaction(isolation, callback);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        var start = findAllMetrics.start();
+        try {
+            var result = delegate.findAll();
+            findAllMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        var start = findByIdMetrics.start();
+        try {
+            var result = delegate.findById(id);
+            findByIdMetrics.success(start, result.isPresent() ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            findByIdMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        var start = deleteMetrics.start();
+        try {
+            var result = delegate.delete(id);
+            deleteMetrics.success(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            deleteMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        var start = updateMetrics.start();
+        try {
+            var result = delegate.update(entity);
+            updateMetrics.success(start, 1);
+            return result;
+        } catch (RuntimeException e) {
+            updateMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        var start = insertMetrics.start();
+        try {
+            var result = delegate.insert(entity);
+            insertMetrics.success(start, 1);
+            return result;
+        } catch (RuntimeException e) {
+            insertMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        var start = findByUserIdMetrics.start();
+        try {
+            var result = delegate.findByUserId(userId);
+            findByUserIdMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByUserIdMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        var start = findByUserIdsMetrics.start();
+        try {
+            var result = delegate.findByUserIds(userIds);
+            findByUserIdsMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findByUserIdsMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        var start = findPageMetrics.start();
+        try {
+            var result = delegate.findPage(pageToken, limit, filter);
+            findPageMetrics.success(start, result.getContent().size());
+            return result;
+        } catch (RuntimeException e) {
+            findPageMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        var start = upsertByUserIdAndNameMetrics.start();
+        try {
+            var result = delegate.upsertByUserIdAndName(entity);
+            upsertByUserIdAndNameMetrics.success(start, result.isPresent() ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            upsertByUserIdAndNameMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        var start = upsertChangeByUserIdAndNameMetrics.start();
+        try {
+            var result = delegate.upsertChangeByUserIdAndName(entity);
+            upsertChangeByUserIdAndNameMetrics.success(start, result.isPresent() ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            upsertChangeByUserIdAndNameMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        var start = upsertAllByUserIdAndNameMetrics.start();
+        try {
+            var result = delegate.upsertAllByUserIdAndName(entities);
+            upsertAllByUserIdAndNameMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            upsertAllByUserIdAndNameMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        var start = insertAllMetrics.start();
+        try {
+            var result = delegate.insertAll(entities);
+            insertAllMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            insertAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        var start = updateAllMetrics.start();
+        try {
+            var result = delegate.updateAll(entities);
+            updateAllMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            updateAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        var start = expireOverdueMetrics.start();
+        try {
+            var result = delegate.expireOverdue(now, limit);
+            expireOverdueMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            expireOverdueMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        var start = compareAndSetStatusMetrics.start();
+        try {
+            var result = delegate.compareAndSetStatus(id, expectedStatuses, newStatus, expirationDate, expectedVersion);
+            compareAndSetStatusMetrics.success(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException e) {
+            compareAndSetStatusMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        var start = cancelAllMetrics.start();
+        try {
+            var result = delegate.cancelAll(ids);
+            cancelAllMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            cancelAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        var start = expireAllMetrics.start();
+        try {
+            var result = delegate.expireAll(ids, expirationDate);
+            expireAllMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            expireAllMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        var start = findExistingIdsMetrics.start();
+        try {
+            var result = delegate.findExistingIds(ids);
+            findExistingIdsMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findExistingIdsMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        var start = findAllByIdMetrics.start();
+        try {
+            var result = delegate.findAllById(ids);
+            findAllByIdMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            findAllByIdMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        var start = countMetrics.start();
+        try {
+            var result = delegate.count(filter);
+            countMetrics.success(start);
+            return result;
+        } catch (RuntimeException e) {
+            countMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        var start = countByStatusAndProviderMetrics.start();
+        try {
+            var result = delegate.countByStatusAndProvider(filter);
+            countByStatusAndProviderMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            countByStatusAndProviderMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        var start = countByExpirationDateMetrics.start();
+        try {
+            var result = delegate.countByExpirationDate(filter);
+            countByExpirationDateMetrics.success(start, result.size());
+            return result;
+        } catch (RuntimeException e) {
+            countByExpirationDateMetrics.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return instrument(streamAllMetrics, delegate::streamAll);
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return instrument(streamByUserIdMetrics, () -> delegate.streamByUserId(userId));
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        return instrument(streamPartitionedMetrics, () -> delegate.streamPartitioned(filter, partitions));
+    }
+
+    private static Stream<Subscription> instrument(OperationMetrics metrics, Supplier<Stream<Subscription>> opener) {
+        var start = metrics.start();
+        try {
+            var rows = new LongAdder();
+            return opener.get()
+                    .peek(subscription -> rows.increment())
+                    .onClose(() -> metrics.success(start, rows.sum()));
+        } catch (RuntimeException e) {
+            metrics.failure(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,882 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionProvider;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.ReadYourWrites;
+import com.dmdev.util.Transactions;
+import lombok.SneakyThrows;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.sql.Statement.RETURN_GENERATED_KEYS;
+import static java.util.Collections.nCopies;
+
+public class JdbcSubscriptionDao implements SubscriptionDao {
+
+    private static final JdbcSubscriptionDao INSTANCE = new JdbcSubscriptionDao();
+
+    private static final String GET_ALL_SQL = """
+            SELECT
+                id,
+                user_id,
+                name,
+                provider,
+                expiration_date,
+                status,
+                version
+            FROM subscription
+            """;
+    private static final String GET_BY_ID_SQL = GET_ALL_SQL + " WHERE id = ?";
+    private static final String GET_BY_USER_ID_SQL = GET_ALL_SQL + " WHERE user_id = ?";
+    private static final String GET_BY_USER_ID_AND_NAME_FOR_UPDATE_SQL = GET_BY_USER_ID_SQL + " AND name = ? FOR UPDATE";
+    private static final String GET_BY_USER_IDS_SQL = GET_ALL_SQL + " WHERE user_id = ANY(?)";
+    private static final String GET_BY_IDS_SQL = GET_ALL_SQL + " WHERE id = ANY(?)";
+    private static final String DELETE_BY_ID_SQL = "DELETE FROM subscription WHERE id = ?";
+    private static final String SAVE_SQL =
+            "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_BY_ID_SQL = """
+            UPDATE subscription
+            SET user_id = ?,
+                name = ?,
+                provider = ?,
+                expiration_date = ?,
+                status = ?,
+                version = version + 1
+            WHERE id = ?
+            """;
+
+    private static final String POSTGRES_UPSERT_VALUES_SQL =
+            "INSERT INTO subscription (user_id, name, provider, expiration_date, status) VALUES ";
+    private static final String POSTGRES_UPSERT_ROW_SQL = "(?, ?, ?, ?, ?)";
+    private static final String POSTGRES_UPSERT_ON_CONFLICT_SQL = """
+
+            ON CONFLICT (user_id, name) DO UPDATE
+            SET expiration_date = EXCLUDED.expiration_date,
+                status = EXCLUDED.status,
+                version = subscription.version + 1
+            WHERE subscription.provider = EXCLUDED.provider
+            RETURNING id, user_id, name, provider, expiration_date, status, version
+            """;
+    private static final String POSTGRES_UPSERT_BY_USER_ID_AND_NAME_SQL =
+            POSTGRES_UPSERT_VALUES_SQL + POSTGRES_UPSERT_ROW_SQL + POSTGRES_UPSERT_ON_CONFLICT_SQL;
+    private static final String H2_UPSERT_VALUES_SQL = """
+            SELECT id, user_id, name, provider, expiration_date, status, version
+            FROM FINAL TABLE (
+                MERGE INTO subscription t
+                USING (VALUES\s""";
+    private static final String H2_UPSERT_ROW_SQL = """
+            (CAST(? AS INT), CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(16)), \
+            CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(16)))""";
+    private static final String H2_UPSERT_ON_CONFLICT_SQL = """
+            )
+                    s (user_id, name, provider, expiration_date, status)
+                ON t.user_id = s.user_id AND t.name = s.name
+                WHEN MATCHED AND t.provider = s.provider THEN
+                    UPDATE SET expiration_date = s.expiration_date, status = s.status, version = t.version + 1
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, name, provider, expiration_date, status)
+                    VALUES (s.user_id, s.name, s.provider, s.expiration_date, s.status)
+            )
+            """;
+    private static final String H2_UPSERT_BY_USER_ID_AND_NAME_SQL =
+            H2_UPSERT_VALUES_SQL + H2_UPSERT_ROW_SQL + H2_UPSERT_ON_CONFLICT_SQL;
+    private static final String POSTGRES_UPSERT_CHANGE_BY_USER_ID_AND_NAME_SQL = """
+            WITH previous AS (
+                SELECT id, provider, expiration_date, status, version
+                FROM subscription
+                WHERE user_id = ? AND name = ?
+                FOR UPDATE
+            ), upserted AS (
+                INSERT INTO subscription (user_id, name, provider, expiration_date, status)
+                SELECT ?, ?, ?, ?, ?
+                WHERE NOT EXISTS (SELECT 1 FROM previous WHERE provider <> ?)
+                ON CONFLICT (user_id, name) DO UPDATE
+                SET expiration_date = EXCLUDED.expiration_date,
+                    status = EXCLUDED.status,
+                    version = subscription.version + 1
+                WHERE subscription.provider = EXCLUDED.provider
+                RETURNING id, user_id, name, provider, expiration_date, status, version
+            )
+            SELECT upserted.*,
+                   previous.expiration_date AS previous_expiration_date,
+                   previous.status AS previous_status,
+                   previous.version AS previous_version
+            FROM upserted
+            LEFT JOIN previous ON previous.id = upserted.id
+            """;
+    private static final String POSTGRES_EXPIRE_OVERDUE_SQL = """
+            UPDATE subscription s
+            SET status = 'EXPIRED',
+                version = s.version + 1
+            FROM (
+                SELECT id, user_id, name, provider, expiration_date, status, version
+                FROM subscription
+                WHERE status <> 'EXPIRED'
+                  AND expiration_date < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ) previous
+            WHERE s.id = previous.id
+            RETURNING previous.*
+            """;
+    private static final String H2_EXPIRE_OVERDUE_SQL = """
+            SELECT id, user_id, name, provider, expiration_date, status, version
+            FROM OLD TABLE (
+                UPDATE subscription
+                SET status = 'EXPIRED',
+                    version = version + 1
+                WHERE id IN (
+                    SELECT id
+                    FROM subscription
+                    WHERE status <> 'EXPIRED'
+                      AND expiration_date < ?
+                    LIMIT ?
+                )
+            )
+            """;
+    private static final String CANCEL_ALL_SET = "status = 'CANCELED', version = s.version + 1";
+    private static final String CANCEL_ALL_WHERE = "id = ANY(?) AND status = 'ACTIVE'";
+    private static final String EXPIRE_ALL_SET = "status = 'EXPIRED', expiration_date = ?, version = s.version + 1";
+    private static final String EXPIRE_ALL_WHERE = "id = ANY(?) AND status <> 'EXPIRED'";
+    private static final String COMPARE_AND_SET_STATUS_SQL = """
+            UPDATE subscription
+            SET status = ?,
+                expiration_date = COALESCE(?, expiration_date),
+                version = version + 1
+            WHERE id = ?
+              AND status = ANY(?)
+            """;
+    private static final String COMPARE_AND_SET_STATUS_WITH_VERSION_SQL = COMPARE_AND_SET_STATUS_SQL + " AND version = ?";
+    private static final String FIND_EXISTING_IDS_SQL = "SELECT id FROM subscription WHERE id = ANY(?)";
+    private static final String FIND_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM subscription";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM subscription";
+    private static final String COUNT_BY_STATUS_AND_PROVIDER_SQL = "SELECT status, provider, COUNT(*) FROM subscription";
+    private static final String GROUP_BY_STATUS_AND_PROVIDER_SQL = " GROUP BY status, provider";
+    private static final String COUNT_BY_EXPIRATION_DATE_SQL =
+            "SELECT CAST(expiration_date AS DATE), COUNT(*) FROM subscription";
+    private static final String GROUP_BY_EXPIRATION_DATE_SQL = " GROUP BY CAST(expiration_date AS DATE)";
+    private static final String URL_KEY = "db.url";
+    private static final String BATCH_SIZE_KEY = "db.batch-size";
+    private static final String FETCH_SIZE_KEY = "db.fetch-size";
+    private static final String POOL_MAX_SIZE_KEY = "db.pool.max-size";
+
+    private final ConnectionProvider connectionProvider;
+    private final SqlDialect dialect;
+    private final int batchSize = PropertiesUtil.getInt(BATCH_SIZE_KEY, 500);
+    private final int fetchSize = PropertiesUtil.getInt(FETCH_SIZE_KEY, 1000);
+    private final int poolMaxSize = PropertiesUtil.getInt(POOL_MAX_SIZE_KEY, 10);
+    private final String cancelAllReturningSql;
+    private final String expireAllReturningSql;
+    private final RowMapperFactory<Subscription> rowMapperFactory = SubscriptionRowMapper.getInstance();
+    private final ParameterBinder<Subscription> parameterBinder = SubscriptionParameterBinder.getInstance();
+
+    private JdbcSubscriptionDao() {
+        this(ConnectionProvider.managed(), SqlDialect.fromUrl(PropertiesUtil.get(URL_KEY)));
+    }
+
+    public JdbcSubscriptionDao(ConnectionProvider connectionProvider, SqlDialect dialect) {
+        this.connectionProvider = connectionProvider;
+        this.dialect = dialect;
+        this.cancelAllReturningSql = returningPrevious(CANCEL_ALL_SET, CANCEL_ALL_WHERE);
+        this.expireAllReturningSql = returningPrevious(EXPIRE_ALL_SET, EXPIRE_ALL_WHERE);
+    }
+
+    public static JdbcSubscriptionDao getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> findAll() {
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(GET_ALL_SQL)) {
+            var resultSet = preparedStatement.executeQuery();
+            return mapAll(resultSet);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<Subscription> findById(Integer id) {
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(GET_BY_ID_SQL)) {
+            preparedStatement.setObject(1, id);
+
+            var resultSet = preparedStatement.executeQuery();
+            return resultSet.next()
+                    ? Optional.of(rowMapperFactory.forResultSet(resultSet).mapRow(resultSet))
+                    : Optional.empty();
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean delete(Integer id) {
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(DELETE_BY_ID_SQL)) {
+            preparedStatement.setObject(1, id);
+
+            return preparedStatement.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Subscription update(Subscription entity) {
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
+            var parameterIndex = parameterBinder.bind(preparedStatement, 1, entity);
+            preparedStatement.setInt(parameterIndex, entity.getId());
+
+            if (preparedStatement.executeUpdate() > 0) {
+                incrementVersion(entity);
+            }
+            return entity;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Subscription insert(Subscription entity) {
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
+            parameterBinder.bind(preparedStatement, 1, entity);
+
+            preparedStatement.executeUpdate();
+
+            var generatedKeys = preparedStatement.getGeneratedKeys();
+            generatedKeys.next();
+            entity.setId(generatedKeys.getObject("id", Integer.class));
+            entity.setVersion(0);
+
+            return entity;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        var filterSql = SubscriptionFilterSql.of(filter);
+        if (pageToken != null) {
+            filterSql.and("id > ?", PageTokens.decode(pageToken));
+        }
+        var sql = GET_ALL_SQL + filterSql.where() + " ORDER BY id LIMIT ?";
+
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            var parameterIndex = filterSql.bind(preparedStatement, 1);
+            preparedStatement.setObject(parameterIndex, limit + 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            var rowMapper = rowMapperFactory.forResultSet(resultSet);
+            List<Subscription> subscriptions = new ArrayList<>(limit);
+            while (subscriptions.size() < limit && resultSet.next()) {
+                subscriptions.add(rowMapper.mapRow(resultSet));
+            }
+            var nextPageToken = resultSet.next()
+                    ? PageTokens.encode(subscriptions.get(subscriptions.size() - 1).getId())
+                    : null;
+
+            return new Page<>(subscriptions, nextPageToken);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Stream<Subscription> streamAll() {
+        return stream(new SubscriptionFilterSql(), "");
+    }
+
+    @Override
+    @SneakyThrows
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return stream(new SubscriptionFilterSql().and("user_id = ?", userId), "");
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        var ranges = findIdRange(filter)
+                .map(range -> range.split(partitions))
+                .orElse(List.of());
+        if (Transactions.isActive()) {
+            return ranges.stream().flatMap(range -> streamRange(filter, range));
+        }
+        var lastWrite = ReadYourWrites.lastWrite();
+        return PartitionedStreams.concat(ranges.stream()
+                .<Supplier<Stream<Subscription>>>map(range -> () -> {
+                    ReadYourWrites.observe(lastWrite);
+                    return streamRange(filter, range);
+                })
+                .toList(), poolMaxSize, fetchSize);
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(upsertByUserIdAndNameSql())) {
+            parameterBinder.bind(preparedStatement, 1, entity);
+
+            var resultSet = preparedStatement.executeQuery();
+            return resultSet.next()
+                    ? Optional.of(rowMapperFactory.forResultSet(resultSet).mapRow(resultSet))
+                    : Optional.empty();
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        return switch (dialect) {
+            case POSTGRES -> upsertChangeInOneStatement(entity);
+            case H2 -> upsertChangeAfterLockingPrevious(entity);
+        };
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        List<Optional<Subscription>> results = new ArrayList<>(entities.size());
+        if (entities.isEmpty()) {
+            return results;
+        }
+        try (var connection = connectionProvider.get()) {
+            connection.setAutoCommit(false);
+            try {
+                for (var chunk : chunksWithDistinctKeys(entities)) {
+                    results.addAll(upsertChunk(connection, chunk));
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    // One multi-row statement may touch each (user_id, name) only once, so a repeated key starts the next chunk.
+    private List<List<Subscription>> chunksWithDistinctKeys(List<Subscription> entities) {
+        List<List<Subscription>> chunks = new ArrayList<>();
+        List<Subscription> chunk = new ArrayList<>();
+        Set<UserIdAndName> keys = new HashSet<>();
+        for (var entity : entities) {
+            var key = UserIdAndName.of(entity);
+            if (chunk.size() == batchSize || keys.contains(key)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                keys.clear();
+            }
+            chunk.add(entity);
+            keys.add(key);
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    private List<Optional<Subscription>> upsertChunk(Connection connection, List<Subscription> chunk)
+            throws SQLException {
+        try (var preparedStatement = connection.prepareStatement(upsertAllByUserIdAndNameSql(chunk.size()))) {
+            var parameterIndex = 1;
+            for (var entity : chunk) {
+                parameterIndex = parameterBinder.bind(preparedStatement, parameterIndex, entity);
+            }
+            Map<UserIdAndName, Subscription> upserted = new HashMap<>();
+            try (var resultSet = preparedStatement.executeQuery()) {
+                var rowMapper = rowMapperFactory.forResultSet(resultSet);
+                while (resultSet.next()) {
+                    var subscription = rowMapper.mapRow(resultSet);
+                    upserted.put(UserIdAndName.of(subscription), subscription);
+                }
+            }
+            // Rows kept by a provider conflict are not returned, which leaves their entity empty.
+            return chunk.stream()
+                    .map(entity -> Optional.ofNullable(upserted.get(UserIdAndName.of(entity))))
+                    .toList();
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        var sql = switch (dialect) {
+            case POSTGRES -> POSTGRES_EXPIRE_OVERDUE_SQL;
+            case H2 -> H2_EXPIRE_OVERDUE_SQL;
+        };
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setObject(1, Timestamp.from(now));
+            preparedStatement.setObject(2, limit);
+
+            List<SubscriptionChange> changes = new ArrayList<>();
+            for (var before : mapAll(preparedStatement.executeQuery())) {
+                changes.add(transitioned(before, Status.EXPIRED, before.getExpirationDate()));
+            }
+            return changes;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        var sql = expectedVersion == null
+                ? COMPARE_AND_SET_STATUS_SQL
+                : COMPARE_AND_SET_STATUS_WITH_VERSION_SQL;
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setObject(1, newStatus.name());
+            if (expirationDate == null) {
+                preparedStatement.setNull(2, Types.TIMESTAMP);
+            } else {
+                preparedStatement.setObject(2, Timestamp.from(expirationDate));
+            }
+            preparedStatement.setObject(3, id);
+            preparedStatement.setArray(4, connection.createArrayOf("varchar", expectedStatuses.stream()
+                    .map(Status::name)
+                    .toArray()));
+            if (expectedVersion != null) {
+                preparedStatement.setObject(5, expectedVersion);
+            }
+
+            return preparedStatement.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        return collectChanges(cancelAllReturningSql, ids, before -> transitioned(before, Status.CANCELED,
+                before.getExpirationDate()));
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        return collectChanges(expireAllReturningSql, ids, before -> transitioned(before, Status.EXPIRED, expirationDate),
+                Timestamp.from(expirationDate));
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        return collectIds(FIND_EXISTING_IDS_SQL, ids);
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return subscriptions;
+        }
+        var idList = List.copyOf(ids);
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(GET_BY_IDS_SQL)) {
+            for (int from = 0; from < idList.size(); from += batchSize) {
+                var chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+                preparedStatement.setArray(1, connection.createArrayOf("integer", chunk.toArray()));
+
+                subscriptions.addAll(mapAll(preparedStatement.executeQuery()));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    @SneakyThrows
+    public long count(SubscriptionFilter filter) {
+        var filterSql = SubscriptionFilterSql.of(filter);
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(COUNT_SQL + filterSql.where())) {
+            filterSql.bind(preparedStatement, 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        var filterSql = SubscriptionFilterSql.of(filter);
+        var sql = COUNT_BY_STATUS_AND_PROVIDER_SQL + filterSql.where() + GROUP_BY_STATUS_AND_PROVIDER_SQL;
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            filterSql.bind(preparedStatement, 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            List<SubscriptionCount> counts = new ArrayList<>();
+            while (resultSet.next()) {
+                counts.add(new SubscriptionCount(
+                        Status.valueOf(resultSet.getString(1)),
+                        Provider.valueOf(resultSet.getString(2)),
+                        resultSet.getLong(3)));
+            }
+            return counts;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        var filterSql = SubscriptionFilterSql.of(filter);
+        var sql = COUNT_BY_EXPIRATION_DATE_SQL + filterSql.where() + GROUP_BY_EXPIRATION_DATE_SQL;
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            filterSql.bind(preparedStatement, 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            Map<LocalDate, Long> counts = new TreeMap<>();
+            while (resultSet.next()) {
+                counts.put(resultSet.getObject(1, LocalDate.class), resultSet.getLong(2));
+            }
+            return counts;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> findByUserId(Integer userId) {
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(GET_BY_USER_ID_SQL)) {
+            preparedStatement.setObject(1, userId);
+
+            var resultSet = preparedStatement.executeQuery();
+            return mapAll(resultSet);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        if (userIds.isEmpty()) {
+            return subscriptions;
+        }
+        var userIdList = List.copyOf(userIds);
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(GET_BY_USER_IDS_SQL)) {
+            for (int from = 0; from < userIdList.size(); from += batchSize) {
+                var chunk = userIdList.subList(from, Math.min(from + batchSize, userIdList.size()));
+                preparedStatement.setArray(1, connection.createArrayOf("integer", chunk.toArray()));
+
+                subscriptions.addAll(mapAll(preparedStatement.executeQuery()));
+            }
+        }
+        return subscriptions;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        try (var connection = connectionProvider.get()) {
+            connection.setAutoCommit(false);
+            try (var preparedStatement = connection.prepareStatement(SAVE_SQL, RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < entities.size(); from += batchSize) {
+                    var chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+                    for (var entity : chunk) {
+                        parameterBinder.bind(preparedStatement, 1, entity);
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+
+                    var generatedKeys = preparedStatement.getGeneratedKeys();
+                    for (var entity : chunk) {
+                        generatedKeys.next();
+                        entity.setId(generatedKeys.getObject("id", Integer.class));
+                        entity.setVersion(0);
+                    }
+                    connection.commit();
+                }
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        try (var connection = connectionProvider.get()) {
+            connection.setAutoCommit(false);
+            try (var preparedStatement = connection.prepareStatement(UPDATE_BY_ID_SQL)) {
+                for (int from = 0; from < entities.size(); from += batchSize) {
+                    for (var entity : entities.subList(from, Math.min(from + batchSize, entities.size()))) {
+                        var parameterIndex = parameterBinder.bind(preparedStatement, 1, entity);
+                        preparedStatement.setInt(parameterIndex, entity.getId());
+                        preparedStatement.addBatch();
+                    }
+                    var updateCounts = preparedStatement.executeBatch();
+                    connection.commit();
+                    for (int i = 0; i < updateCounts.length; i++) {
+                        if (updateCounts[i] != 0) {
+                            incrementVersion(entities.get(from + i));
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        }
+        return entities;
+    }
+
+    @SneakyThrows
+    private List<SubscriptionChange> collectChanges(String sql, Collection<Integer> ids,
+                                                    Function<Subscription, SubscriptionChange> transition,
+                                                    Object... leadingParameters) {
+        List<SubscriptionChange> changes = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return changes;
+        }
+        var idList = List.copyOf(ids);
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            for (int from = 0; from < idList.size(); from += batchSize) {
+                var chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+                for (int i = 0; i < leadingParameters.length; i++) {
+                    preparedStatement.setObject(i + 1, leadingParameters[i]);
+                }
+                preparedStatement.setArray(leadingParameters.length + 1, connection.createArrayOf("integer", chunk.toArray()));
+
+                for (var before : mapAll(preparedStatement.executeQuery())) {
+                    changes.add(transition.apply(before));
+                }
+            }
+        }
+        return changes;
+    }
+
+    @SneakyThrows
+    private List<Integer> collectIds(String sql, Collection<Integer> ids) {
+        List<Integer> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        var idList = List.copyOf(ids);
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(sql)) {
+            for (int from = 0; from < idList.size(); from += batchSize) {
+                var chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+                preparedStatement.setArray(1, connection.createArrayOf("integer", chunk.toArray()));
+
+                var resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    result.add(resultSet.getInt(1));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Optional<SubscriptionChange> upsertChangeInOneStatement(Subscription entity) throws SQLException {
+        try (var connection = connectionProvider.get();
+             var preparedStatement = connection.prepareStatement(POSTGRES_UPSERT_CHANGE_BY_USER_ID_AND_NAME_SQL)) {
+            preparedStatement.setInt(1, entity.getUserId());
+            preparedStatement.setString(2, entity.getName());
+            var parameterIndex = parameterBinder.bind(preparedStatement, 3, entity);
+            preparedStatement.setString(parameterIndex, entity.getProvider().name());
+
+            var resultSet = preparedStatement.executeQuery();
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            var after = rowMapperFactory.forResultSet(resultSet).mapRow(resultSet);
+            var previousStatus = resultSet.getString("previous_status");
+            var before = previousStatus == null ? null : after.toBuilder()
+                    .expirationDate(resultSet.getTimestamp("previous_expiration_date").toInstant())
+                    .status(Status.valueOf(previousStatus))
+                    .version(resultSet.getInt("previous_version"))
+                    .build();
+            return Optional.of(new SubscriptionChange(before, after));
+        }
+    }
+
+    // H2 has no delta table carrying both images of a MERGE, so the previous row is locked and read first
+    private Optional<SubscriptionChange> upsertChangeAfterLockingPrevious(Subscription entity) throws SQLException {
+        try (var connection = connectionProvider.get()) {
+            connection.setAutoCommit(false);
+            try (var lockStatement = connection.prepareStatement(GET_BY_USER_ID_AND_NAME_FOR_UPDATE_SQL);
+                 var upsertStatement = connection.prepareStatement(H2_UPSERT_BY_USER_ID_AND_NAME_SQL)) {
+                lockStatement.setInt(1, entity.getUserId());
+                lockStatement.setString(2, entity.getName());
+                var previous = mapAll(lockStatement.executeQuery()).stream().findFirst().orElse(null);
+                parameterBinder.bind(upsertStatement, 1, entity);
+
+                var resultSet = upsertStatement.executeQuery();
+                var change = resultSet.next()
+                        ? Optional.of(new SubscriptionChange(previous, rowMapperFactory.forResultSet(resultSet).mapRow(resultSet)))
+                        : Optional.<SubscriptionChange>empty();
+                connection.commit();
+                return change;
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        }
+    }
+
+    private String upsertAllByUserIdAndNameSql(int rows) {
+        return switch (dialect) {
+            case POSTGRES -> POSTGRES_UPSERT_VALUES_SQL + String.join(", ", nCopies(rows, POSTGRES_UPSERT_ROW_SQL))
+                             + POSTGRES_UPSERT_ON_CONFLICT_SQL;
+            case H2 -> H2_UPSERT_VALUES_SQL + String.join(", ", nCopies(rows, H2_UPSERT_ROW_SQL))
+                       + H2_UPSERT_ON_CONFLICT_SQL;
+        };
+    }
+
+    private String upsertByUserIdAndNameSql() {
+        return switch (dialect) {
+            case POSTGRES -> POSTGRES_UPSERT_BY_USER_ID_AND_NAME_SQL;
+            case H2 -> H2_UPSERT_BY_USER_ID_AND_NAME_SQL;
+        };
+    }
+
+    // Both forms return the rows as they were before the update; Postgres locks them first in the FROM subquery.
+    private String returningPrevious(String set, String where) {
+        return switch (dialect) {
+            case POSTGRES -> "UPDATE subscription s SET " + set + " FROM (" + GET_ALL_SQL + " WHERE " + where
+                             + " FOR UPDATE) previous WHERE s.id = previous.id RETURNING previous.*";
+            case H2 -> "SELECT id, user_id, name, provider, expiration_date, status, version"
+                       + " FROM OLD TABLE (UPDATE subscription s SET " + set + " WHERE " + where + ")";
+        };
+    }
+
+    private static SubscriptionChange transitioned(Subscription before, Status status, Instant expirationDate) {
+        return new SubscriptionChange(before, before.toBuilder()
+                .status(status)
+                .expirationDate(expirationDate)
+                .version(before.getVersion() + 1)
+                .build());
+    }
+
+    @SneakyThrows
+    private Optional<IdRange> findIdRange(SubscriptionFilter filter) {
+        var filterSql = SubscriptionFilterSql.of(filter);
+        try (var connection = connectionProvider.getForRead();
+             var preparedStatement = connection.prepareStatement(FIND_ID_RANGE_SQL + filterSql.where())) {
+            filterSql.bind(preparedStatement, 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            var from = resultSet.getObject(1, Integer.class);
+            return from == null
+                    ? Optional.empty()
+                    : Optional.of(new IdRange(from, resultSet.getInt(2)));
+        }
+    }
+
+    @SneakyThrows
+    private Stream<Subscription> streamRange(SubscriptionFilter filter, IdRange range) {
+        return stream(SubscriptionFilterSql.of(filter)
+                .and("id >= ?", range.from())
+                .and("id <= ?", range.to()), " ORDER BY id");
+    }
+
+    private Stream<Subscription> stream(SubscriptionFilterSql filterSql, String orderBy) throws SQLException {
+        var connection = connectionProvider.getForRead();
+        try {
+            connection.setAutoCommit(false);
+            var preparedStatement = connection.prepareStatement(GET_ALL_SQL + filterSql.where() + orderBy);
+            preparedStatement.setFetchSize(fetchSize);
+            filterSql.bind(preparedStatement, 1);
+            var resultSet = preparedStatement.executeQuery();
+            var rowMapper = rowMapperFactory.forResultSet(resultSet);
+            var spliterator = new Spliterators.AbstractSpliterator<Subscription>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                @SneakyThrows
+                public boolean tryAdvance(Consumer<? super Subscription> action) {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(rowMapper.mapRow(resultSet));
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> closeCursor(connection, preparedStatement, resultSet));
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @SneakyThrows
+    private void closeCursor(Connection connection, PreparedStatement preparedStatement, ResultSet resultSet) {
+        try (connection; preparedStatement; resultSet) {
+            connection.commit();
+        }
+    }
+
+    private void rollback(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private List<Subscription> mapAll(ResultSet resultSet) throws SQLException {
+        var rowMapper = rowMapperFactory.forResultSet(resultSet);
+        List<Subscription> subscriptions = new ArrayList<>();
+        while (resultSet.next()) {
+            subscriptions.add(rowMapper.mapRow(resultSet));
+        }
+        return subscriptions;
+    }
+
+    private void incrementVersion(Subscription entity) {
+        if (entity.getVersion() != null) {
+            entity.setVersion(entity.getVersion() + 1);
+        }
+    }
+
+    private record UserIdAndName(Integer userId, String name) {
+
+        private static UserIdAndName of(Subscription subscription) {
+            return new UserIdAndName(subscription.getUserId(), subscription.getName());
+        }
+    }
+}
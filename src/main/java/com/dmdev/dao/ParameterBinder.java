@@ -0,0 +1,10 @@
+package com.dmdev.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ParameterBinder<T> {
+
+    int bind(PreparedStatement preparedStatement, int parameterIndex, T value) throws SQLException;
+}
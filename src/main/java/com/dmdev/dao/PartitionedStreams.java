@@ -0,0 +1,94 @@
+package com.dmdev.dao;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@UtilityClass
+class PartitionedStreams {
+
+    private static final Object END = new Object();
+
+    static <T> Stream<T> concat(List<Supplier<Stream<T>>> partitions, int parallelism, int bufferSize) {
+        if (partitions.isEmpty()) {
+            return Stream.empty();
+        }
+        var threadNumber = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(Math.min(partitions.size(), parallelism), runnable -> {
+            var thread = new Thread(runnable, "subscription-partition-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<BlockingQueue<Object>> buffers = new ArrayList<>(partitions.size());
+        for (var partition : partitions) {
+            var buffer = new ArrayBlockingQueue<>(bufferSize);
+            buffers.add(buffer);
+            executor.execute(() -> produce(partition, buffer));
+        }
+        executor.shutdown();
+        var spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int current;
+
+            @Override
+            @SneakyThrows
+            @SuppressWarnings("unchecked")
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while (current < buffers.size()) {
+                    var item = buffers.get(current).take();
+                    if (item == END) {
+                        current++;
+                    } else if (item instanceof Failure failure) {
+                        throw failure.cause();
+                    } else {
+                        action.accept((T) item);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> stop(executor));
+    }
+
+    @SneakyThrows
+    private static void stop(ExecutorService executor) {
+        executor.shutdownNow();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private static <T> void produce(Supplier<Stream<T>> partition, BlockingQueue<Object> buffer) {
+        try {
+            try (var rows = partition.get()) {
+                var iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    buffer.put(iterator.next());
+                }
+            } catch (RuntimeException | Error e) {
+                buffer.put(new Failure(e));
+                return;
+            }
+            buffer.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Failure(Throwable cause) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.dmdev.dao;
+
+import java.sql.ResultSet;
+
+@FunctionalInterface
+public interface ResultSetHandler {
+
+    void handle(ResultSet resultSet) throws Exception;
+}
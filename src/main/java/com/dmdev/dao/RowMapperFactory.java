@@ -0,0 +1,10 @@
+package com.dmdev.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface RowMapperFactory<T> {
+
+    RowMapper<T> forResultSet(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,228 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.TransactionCallback;
+import com.dmdev.util.Transactions;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ShadowSubscriptionDao implements SubscriptionDao {
+
+    private final SubscriptionDao database;
+    private final InMemorySubscriptionDao shadow;
+
+    public ShadowSubscriptionDao(SubscriptionDao database, InMemorySubscriptionDao shadow) {
+        this.database = database;
+        this.shadow = shadow;
+    }
+
+    public static ShadowSubscriptionDao warmedUp(SubscriptionDao database) {
+        var shadowSubscriptionDao = new ShadowSubscriptionDao(database, new InMemorySubscriptionDao());
+        shadowSubscriptionDao.warmUp();
+        return shadowSubscriptionDao;
+    }
+
+    public void warmUp() {
+        try (var subscriptions = database.streamAll()) {
+            subscriptions.forEach(shadow::put);
+        }
+    }
+
+    @Override
+    public <R> R inTransaction(TransactionCallback<R> callback) {
+        return database.inTransaction(callback);
+    }
+
+    @Override
+    public <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return database.inTransaction(isolation, callback);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return reads().findAll();
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        return reads().findById(id);
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        return reads().findByUserId(userId);
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        return reads().findByUserIds(userIds);
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        return reads().findPage(pageToken, limit, filter);
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return reads().streamAll();
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return reads().streamByUserId(userId);
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        return reads().streamPartitioned(filter, partitions);
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        return reads().findExistingIds(ids);
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        return reads().findAllById(ids);
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        return reads().count(filter);
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        return reads().countByStatusAndProvider(filter);
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        return reads().countByExpirationDate(filter);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        var deleted = database.delete(id);
+        Transactions.afterCommit(() -> shadow.evict(id));
+        return deleted;
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        database.update(entity);
+        Transactions.afterCommit(() -> refresh(List.of(entity.getId())));
+        return entity;
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        var inserted = database.insert(entity);
+        Transactions.afterCommit(() -> shadow.put(inserted));
+        return entity;
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        var result = database.upsertByUserIdAndName(entity);
+        Transactions.afterCommit(() -> result.ifPresent(shadow::put));
+        return result;
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        var result = database.upsertChangeByUserIdAndName(entity);
+        Transactions.afterCommit(() -> result.ifPresent(change -> shadow.put(change.getAfter())));
+        return result;
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        var results = database.upsertAllByUserIdAndName(entities);
+        Transactions.afterCommit(() -> results.forEach(result -> result.ifPresent(shadow::put)));
+        return results;
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        var inserted = database.insertAll(entities);
+        Transactions.afterCommit(() -> inserted.forEach(shadow::put));
+        return inserted;
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        var updated = database.updateAll(entities);
+        var ids = updated.stream().map(Subscription::getId).toList();
+        Transactions.afterCommit(() -> refresh(ids));
+        return updated;
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        var expired = database.expireOverdue(now, limit);
+        Transactions.afterCommit(() -> refresh(ids(expired)));
+        return expired;
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        var updated = database.compareAndSetStatus(id, expectedStatuses, newStatus, expirationDate, expectedVersion);
+        if (updated) {
+            Transactions.afterCommit(() -> refresh(List.of(id)));
+        }
+        return updated;
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        var canceled = database.cancelAll(ids);
+        Transactions.afterCommit(() -> refresh(ids(canceled)));
+        return canceled;
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        var expired = database.expireAll(ids, expirationDate);
+        Transactions.afterCommit(() -> refresh(ids(expired)));
+        return expired;
+    }
+
+    private static List<Integer> ids(List<SubscriptionChange> changes) {
+        return changes.stream()
+                .map(change -> change.getAfter().getId())
+                .toList();
+    }
+
+    private SubscriptionDao reads() {
+        return Transactions.isActive() ? database : shadow;
+    }
+
+    private void refresh(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var found = database.findAllById(ids);
+        found.forEach(shadow::put);
+        if (found.size() < ids.size()) {
+            var foundIds = found.stream().map(Subscription::getId).collect(Collectors.toSet());
+            ids.stream().filter(id -> !foundIds.contains(id)).forEach(shadow::evict);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.dmdev.dao;
+
+import com.dmdev.util.ConnectionSource;
+import com.dmdev.util.PropertiesUtil;
+import lombok.SneakyThrows;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class Shard implements AutoCloseable {
+
+    private static final String INDEX_KEY = ".index";
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM subscription";
+    private static final String LOCK_SQL = "LOCK TABLE subscription IN SHARE ROW EXCLUSIVE MODE";
+    private static final String RESTART_ID_SQL = "ALTER TABLE subscription ALTER COLUMN id SET INCREMENT BY %d RESTART WITH %d";
+
+    private final String name;
+    private final int index;
+    private final ConnectionSource source;
+    private final SqlDialect dialect;
+    private final JdbcSubscriptionDao dao;
+
+    public Shard(String name, int index, ConnectionSource source) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Shard index must not be negative: " + index);
+        }
+        this.name = name;
+        this.index = index;
+        this.source = source;
+        this.dialect = SqlDialect.fromUrl(source.getUrl());
+        this.dao = new JdbcSubscriptionDao(source::acquire, dialect);
+    }
+
+    public static Shard fromProperties(String prefix, String name, int defaultIndex) {
+        return new Shard(
+                name,
+                PropertiesUtil.getInt(prefix + INDEX_KEY, defaultIndex),
+                ConnectionSource.fromProperties(prefix));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ConnectionSource getSource() {
+        return source;
+    }
+
+    public JdbcSubscriptionDao getDao() {
+        return dao;
+    }
+
+    @SneakyThrows
+    public void initializeIdSequence(int idStride) {
+        if (index >= idStride) {
+            throw new IllegalArgumentException(String.format(
+                    "Shard %s index %d does not fit id stride %d", name, index, idStride));
+        }
+        try (var connection = source.acquire();
+             var statement = connection.createStatement()) {
+            if (dialect == SqlDialect.POSTGRES) {
+                connection.setAutoCommit(false);
+                try {
+                    statement.execute(LOCK_SQL);
+                    restartIdSequence(statement, idStride, findMaxId(statement));
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } else {
+                // H2 has no table lock and commits DDL at once: repeat until no insert slipped in between.
+                long maxId;
+                do {
+                    maxId = findMaxId(statement);
+                    restartIdSequence(statement, idStride, maxId);
+                } while (findMaxId(statement) != maxId);
+            }
+        }
+    }
+
+    private void restartIdSequence(Statement statement, int idStride, long maxId) throws SQLException {
+        var offset = index + 1L;
+        var nextId = maxId < offset
+                ? offset
+                : offset + ((maxId - offset) / idStride + 1) * idStride;
+        statement.execute(String.format(RESTART_ID_SQL, idStride, nextId));
+    }
+
+    private static long findMaxId(Statement statement) throws SQLException {
+        try (var resultSet = statement.executeQuery(MAX_ID_SQL)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
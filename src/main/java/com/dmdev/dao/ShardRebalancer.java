@@ -0,0 +1,139 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.RebalanceReport;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+import lombok.SneakyThrows;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ShardRebalancer {
+
+    private static final String BATCH_SIZE_KEY = "db.shards.rebalance-batch-size";
+    private static final String COPY_SQL = """
+            INSERT INTO subscription (user_id, name, provider, expiration_date, status, id, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String DELETE_SQL = "DELETE FROM subscription WHERE id = ANY(?)";
+
+    private final ShardedSubscriptionDao shardedDao;
+    private final int batchSize;
+    private final ParameterBinder<Subscription> parameterBinder = SubscriptionParameterBinder.getInstance();
+
+    public ShardRebalancer(ShardedSubscriptionDao shardedDao, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.shardedDao = shardedDao;
+        this.batchSize = batchSize;
+    }
+
+    public static ShardRebalancer fromProperties(ShardedSubscriptionDao shardedDao) {
+        return new ShardRebalancer(shardedDao, PropertiesUtil.getInt(BATCH_SIZE_KEY, 1000));
+    }
+
+    public RebalanceReport addShard(Shard shard) {
+        return shardedDao.withWritesPaused(() -> {
+            var start = System.nanoTime();
+            var currentRing = shardedDao.getRing();
+            shardedDao.validateShard(currentRing, shard);
+            shard.initializeIdSequence(shardedDao.getIdStride());
+            var targetRing = currentRing.withNode(shard.getName(), shard);
+
+            Map<Shard, List<Integer>> movedIds = new LinkedHashMap<>();
+            Map<Shard, List<Integer>> copiedIds = new LinkedHashMap<>();
+            try {
+                for (var source : currentRing.getNodes()) {
+                    movedIds.put(source, copyMoved(source, subscription -> targetRing.route(subscription.getUserId()),
+                            copiedIds));
+                }
+            } catch (Exception e) {
+                // Sources are untouched until the ring switches, so dropping the copies lets the add be retried.
+                discardCopies(copiedIds, e);
+                throw e;
+            }
+            shardedDao.setRing(targetRing);
+
+            Map<String, Integer> movedBySourceShard = new LinkedHashMap<>();
+            movedIds.forEach((source, ids) -> {
+                delete(source, ids);
+                movedBySourceShard.put(source.getName(), ids.size());
+            });
+            return new RebalanceReport(shard.getName(), movedBySourceShard, Duration.ofNanos(System.nanoTime() - start));
+        });
+    }
+
+    private List<Integer> copyMoved(Shard source, Function<Subscription, Shard> owner,
+                                    Map<Shard, List<Integer>> copiedIds) {
+        var filter = SubscriptionFilter.builder().build();
+        List<Integer> movedIds = new ArrayList<>();
+        String pageToken = null;
+        do {
+            var page = source.getDao().findPage(pageToken, batchSize, filter);
+            Map<Shard, List<Subscription>> moving = new LinkedHashMap<>();
+            for (var subscription : page.getContent()) {
+                var target = owner.apply(subscription);
+                if (target != source) {
+                    moving.computeIfAbsent(target, shard -> new ArrayList<>()).add(subscription);
+                }
+            }
+            moving.forEach((target, subscriptions) -> {
+                copy(target, subscriptions);
+                var ids = subscriptions.stream().map(Subscription::getId).toList();
+                copiedIds.computeIfAbsent(target, shard -> new ArrayList<>()).addAll(ids);
+                movedIds.addAll(ids);
+            });
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return movedIds;
+    }
+
+    @SneakyThrows
+    private void copy(Shard target, List<Subscription> subscriptions) {
+        try (var connection = target.getSource().acquire()) {
+            connection.setAutoCommit(false);
+            try (var preparedStatement = connection.prepareStatement(COPY_SQL)) {
+                for (var subscription : subscriptions) {
+                    var parameterIndex = parameterBinder.bind(preparedStatement, 1, subscription);
+                    preparedStatement.setInt(parameterIndex++, subscription.getId());
+                    preparedStatement.setInt(parameterIndex, subscription.getVersion());
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void discardCopies(Map<Shard, List<Integer>> copiedIds, Exception failure) {
+        copiedIds.forEach((target, ids) -> {
+            try {
+                delete(target, ids);
+            } catch (Exception e) {
+                failure.addSuppressed(e);
+            }
+        });
+    }
+
+    @SneakyThrows
+    private void delete(Shard source, List<Integer> ids) {
+        try (var connection = source.getSource().acquire();
+             var preparedStatement = connection.prepareStatement(DELETE_SQL)) {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                var chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                preparedStatement.setArray(1, connection.createArrayOf("integer", chunk.toArray()));
+                preparedStatement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConsistentHashRing;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.TransactionCallback;
+import lombok.SneakyThrows;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ShardedSubscriptionDao implements SubscriptionDao, AutoCloseable {
+
+    private static final String PREFIX = "db";
+    private static final String SHARDS_KEY = ".shards";
+    private static final String VIRTUAL_NODES_KEY = ".shards.virtual-nodes";
+    private static final String ID_STRIDE_KEY = ".shards.id-stride";
+    private static final String PARALLELISM_KEY = ".shards.parallelism";
+    private static final String SHARD_PREFIX = ".shard.";
+
+    private final int idStride;
+    private final ExecutorService executor;
+    private final ReentrantReadWriteLock migrationLock = new ReentrantReadWriteLock();
+    private volatile ConsistentHashRing<Shard> ring;
+
+    public ShardedSubscriptionDao(List<Shard> shards, int virtualNodes, int idStride, int parallelism) {
+        if (shards.isEmpty() || idStride <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("At least one shard is required; idStride and parallelism must be positive");
+        }
+        this.idStride = idStride;
+        var initialRing = new ConsistentHashRing<Shard>(virtualNodes);
+        for (var shard : shards) {
+            validateShard(initialRing, shard);
+            initialRing = initialRing.withNode(shard.getName(), shard);
+        }
+        shards.forEach(shard -> shard.initializeIdSequence(idStride));
+        this.ring = initialRing;
+        var threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "subscription-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ShardedSubscriptionDao fromProperties() {
+        var names = Arrays.stream(PropertiesUtil.get(PREFIX + SHARDS_KEY).split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        List<Shard> shards = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            shards.add(Shard.fromProperties(PREFIX + SHARD_PREFIX + names.get(i), names.get(i), i));
+        }
+        return new ShardedSubscriptionDao(
+                shards,
+                PropertiesUtil.getInt(PREFIX + VIRTUAL_NODES_KEY, 128),
+                PropertiesUtil.getInt(PREFIX + ID_STRIDE_KEY, 64),
+                PropertiesUtil.getInt(PREFIX + PARALLELISM_KEY, Math.max(names.size(), 1)));
+    }
+
+    public List<Shard> getShards() {
+        return List.copyOf(ring.getNodes());
+    }
+
+    public Shard shardFor(Integer userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is required to route a subscription");
+        }
+        return ring.route(userId);
+    }
+
+    public int getIdStride() {
+        return idStride;
+    }
+
+    @Override
+    @SneakyThrows
+    public <R> R inTransaction(TransactionCallback<R> callback) {
+        // Shards cannot share a transaction: the callback runs without one and each shard call commits on its own.
+        return callback.doInTransaction(null);
+    }
+
+    @Override
+    public <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return inTransaction(callback);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return merge(fanOut(ring.getNodes(), shard -> shard.getDao().findAll()));
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        return fanOut(ring.getNodes(), shard -> shard.getDao().findById(id)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return write(() -> fanOut(ring.getNodes(), shard -> shard.getDao().delete(id)).contains(true));
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        return write(() -> {
+            var shard = shardFor(entity.getUserId());
+            requireOwned(shard, List.of(entity.getId()));
+            return shard.getDao().update(entity);
+        });
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        return write(() -> shardFor(entity.getUserId()).getDao().insert(entity));
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        return shardFor(userId).getDao().findByUserId(userId);
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var userIdsByShard = groupByShard(List.copyOf(userIds), Function.identity());
+        return flatten(fanOut(userIdsByShard.keySet(), shard -> shard.getDao().findByUserIds(userIdsByShard.get(shard))));
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        if (filter.getUserId() != null) {
+            return shardFor(filter.getUserId()).getDao().findPage(pageToken, limit, filter);
+        }
+        var pages = fanOut(ring.getNodes(), shard -> shard.getDao().findPage(pageToken, limit, filter));
+        var merged = merge(pages.stream().map(Page::getContent).toList());
+        var hasMore = merged.size() > limit || pages.stream().anyMatch(page -> page.getNextPageToken() != null);
+        var content = merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+        var nextPageToken = hasMore
+                ? PageTokens.encode(content.get(content.size() - 1).getId())
+                : null;
+        return new Page<>(content, nextPageToken);
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return getShards().stream()
+                .flatMap(shard -> shard.getDao().streamAll());
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return shardFor(userId).getDao().streamByUserId(userId);
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        if (filter.getUserId() != null) {
+            return shardFor(filter.getUserId()).getDao().streamPartitioned(filter, partitions);
+        }
+        return getShards().stream()
+                .map(shard -> shard.getDao().streamPartitioned(filter, partitions))
+                .reduce(Stream::concat)
+                .orElseGet(Stream::empty);
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        return write(() -> shardFor(entity.getUserId()).getDao().upsertByUserIdAndName(entity));
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        return write(() -> shardFor(entity.getUserId()).getDao().upsertChangeByUserIdAndName(entity));
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return write(() -> {
+            var positionsByShard = groupPositionsByShard(entities);
+            var shards = List.copyOf(positionsByShard.keySet());
+            var shardResults = fanOut(shards, shard -> shard.getDao()
+                    .upsertAllByUserIdAndName(select(entities, positionsByShard.get(shard))));
+            List<Optional<Subscription>> results = new ArrayList<>(Collections.nCopies(entities.size(), Optional.empty()));
+            for (int i = 0; i < shards.size(); i++) {
+                var positions = positionsByShard.get(shards.get(i));
+                var shardResult = shardResults.get(i);
+                for (int j = 0; j < positions.size(); j++) {
+                    results.set(positions.get(j), shardResult.get(j));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        return write(() -> {
+            var entitiesByShard = groupByShard(entities, Subscription::getUserId);
+            fanOut(entitiesByShard.keySet(), shard -> shard.getDao().insertAll(entitiesByShard.get(shard)));
+            return entities;
+        });
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        return write(() -> {
+            var entitiesByShard = groupByShard(entities, Subscription::getUserId);
+            entitiesByShard.forEach((shard, shardEntities) ->
+                    requireOwned(shard, shardEntities.stream().map(Subscription::getId).toList()));
+            fanOut(entitiesByShard.keySet(), shard -> shard.getDao().updateAll(entitiesByShard.get(shard)));
+            return entities;
+        });
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        return write(() -> {
+            List<SubscriptionChange> expired = new ArrayList<>();
+            for (var shard : ring.getNodes()) {
+                if (expired.size() >= limit) {
+                    break;
+                }
+                expired.addAll(shard.getDao().expireOverdue(now, limit - expired.size()));
+            }
+            return expired;
+        });
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        return write(() -> fanOut(ring.getNodes(), shard -> shard.getDao()
+                .compareAndSetStatus(id, expectedStatuses, newStatus, expirationDate, expectedVersion))
+                .contains(true));
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return write(() -> flatten(fanOut(ring.getNodes(), shard -> shard.getDao().cancelAll(ids))));
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return write(() -> flatten(fanOut(ring.getNodes(), shard -> shard.getDao().expireAll(ids, expirationDate))));
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return flatten(fanOut(ring.getNodes(), shard -> shard.getDao().findExistingIds(ids))).stream()
+                .distinct()
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return merge(fanOut(ring.getNodes(), shard -> shard.getDao().findAllById(ids)));
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        if (filter.getUserId() != null) {
+            return shardFor(filter.getUserId()).getDao().count(filter);
+        }
+        return fanOut(ring.getNodes(), shard -> shard.getDao().count(filter)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        if (filter.getUserId() != null) {
+            return shardFor(filter.getUserId()).getDao().countByStatusAndProvider(filter);
+        }
+        Map<Status, Map<Provider, Long>> totals = new EnumMap<>(Status.class);
+        for (var counts : fanOut(ring.getNodes(), shard -> shard.getDao().countByStatusAndProvider(filter))) {
+            for (var count : counts) {
+                totals.computeIfAbsent(count.getStatus(), status -> new EnumMap<>(Provider.class))
+                        .merge(count.getProvider(), count.getCount(), Long::sum);
+            }
+        }
+        List<SubscriptionCount> counts = new ArrayList<>();
+        totals.forEach((status, byProvider) -> byProvider.forEach((provider, count) ->
+                counts.add(new SubscriptionCount(status, provider, count))));
+        return counts;
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        if (filter.getUserId() != null) {
+            return shardFor(filter.getUserId()).getDao().countByExpirationDate(filter);
+        }
+        Map<LocalDate, Long> totals = new TreeMap<>();
+        for (var counts : fanOut(ring.getNodes(), shard -> shard.getDao().countByExpirationDate(filter))) {
+            counts.forEach((date, count) -> totals.merge(date, count, Long::sum));
+        }
+        return totals;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        ring.getNodes().forEach(Shard::close);
+    }
+
+    ConsistentHashRing<Shard> getRing() {
+        return ring;
+    }
+
+    void setRing(ConsistentHashRing<Shard> ring) {
+        this.ring = ring;
+    }
+
+    <R> R withWritesPaused(Supplier<R> action) {
+        migrationLock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            migrationLock.writeLock().unlock();
+        }
+    }
+
+    void validateShard(ConsistentHashRing<Shard> currentRing, Shard shard) {
+        if (shard.getIndex() >= idStride) {
+            throw new IllegalArgumentException(String.format(
+                    "Shard %s index %d does not fit id stride %d", shard.getName(), shard.getIndex(), idStride));
+        }
+        for (var existing : currentRing.getNodes()) {
+            if (existing.getIndex() == shard.getIndex()) {
+                throw new IllegalArgumentException(String.format(
+                        "Shards %s and %s share index %d", existing.getName(), shard.getName(), shard.getIndex()));
+            }
+        }
+    }
+
+    private <R> R write(Supplier<R> action) {
+        migrationLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            migrationLock.readLock().unlock();
+        }
+    }
+
+    private void requireOwned(Shard shard, List<Integer> ids) {
+        var missingIds = new HashSet<>(ids);
+        shard.getDao().findExistingIds(ids).forEach(missingIds::remove);
+        if (missingIds.isEmpty()) {
+            return;
+        }
+        var otherShards = ring.getNodes().stream()
+                .filter(other -> other != shard)
+                .toList();
+        var misplacedIds = flatten(fanOut(otherShards, other -> other.getDao().findExistingIds(missingIds)));
+        if (!misplacedIds.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "Subscriptions %s are stored on another shard than %s; userId cannot be changed", misplacedIds, shard));
+        }
+    }
+
+    private <T> Map<Shard, List<T>> groupByShard(List<T> items, Function<T, Integer> userId) {
+        var currentRing = ring;
+        Map<Shard, List<T>> itemsByShard = new LinkedHashMap<>();
+        for (var item : items) {
+            var key = userId.apply(item);
+            if (key == null) {
+                throw new IllegalArgumentException("userId is required to route a subscription");
+            }
+            itemsByShard.computeIfAbsent(currentRing.route(key), shard -> new ArrayList<>()).add(item);
+        }
+        return itemsByShard;
+    }
+
+    private Map<Shard, List<Integer>> groupPositionsByShard(List<Subscription> entities) {
+        var currentRing = ring;
+        Map<Shard, List<Integer>> positionsByShard = new LinkedHashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            var userId = entities.get(i).getUserId();
+            if (userId == null) {
+                throw new IllegalArgumentException("userId is required to route a subscription");
+            }
+            positionsByShard.computeIfAbsent(currentRing.route(userId), shard -> new ArrayList<>()).add(i);
+        }
+        return positionsByShard;
+    }
+
+    private <R> List<R> fanOut(Collection<Shard> shards, Function<Shard, R> call) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(call.apply(shards.iterator().next()));
+        }
+        List<CompletableFuture<R>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> call.apply(shard), executor))
+                .toList();
+        List<R> results = new ArrayList<>(futures.size());
+        for (var future : futures) {
+            results.add(join(future, futures));
+        }
+        return results;
+    }
+
+    @SneakyThrows
+    private static <R> R join(CompletableFuture<R> future, List<CompletableFuture<R>> futures) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            futures.forEach(other -> other.cancel(true));
+            throw e.getCause();
+        }
+    }
+
+    private static List<Subscription> merge(List<List<Subscription>> shardResults) {
+        var subscriptionsById = new TreeMap<Integer, Subscription>();
+        shardResults.forEach(subscriptions -> subscriptions.forEach(
+                subscription -> subscriptionsById.putIfAbsent(subscription.getId(), subscription)));
+        return new ArrayList<>(subscriptionsById.values());
+    }
+
+    private static <T> List<T> flatten(List<List<T>> lists) {
+        List<T> result = new ArrayList<>();
+        lists.forEach(result::addAll);
+        return result;
+    }
+
+    private static <T> List<T> select(List<T> items, List<Integer> positions) {
+        List<T> selected = new ArrayList<>(positions.size());
+        positions.forEach(position -> selected.add(items.get(position)));
+        return selected;
+    }
+}
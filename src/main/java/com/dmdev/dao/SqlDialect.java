@@ -0,0 +1,15 @@
+package com.dmdev.dao;
+
+public enum SqlDialect {
+    POSTGRES, H2;
+
+    public static SqlDialect fromUrl(String url) {
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            return POSTGRES;
+        }
+        if (url != null && url.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        throw new IllegalStateException("Unsupported database url: " + url);
+    }
+}
@@ -0,0 +1,6 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+
+public record StagedSubscription(long lineNumber, Subscription subscription) {
+}
@@ -0,0 +1,222 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.Transactions;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class SubscriptionBulkLoader {
+
+    private static final SubscriptionBulkLoader INSTANCE = new SubscriptionBulkLoader();
+
+    private static final String URL_KEY = "db.url";
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS subscription_import
+            (
+                line_number BIGINT NOT NULL,
+                user_id INT NOT NULL,
+                name VARCHAR(64) NOT NULL,
+                provider VARCHAR(16) NOT NULL,
+                expiration_date TIMESTAMP NOT NULL,
+                status VARCHAR(16) NOT NULL
+            ) ON COMMIT DELETE ROWS
+            """;
+    private static final String CLEAR_STAGING_SQL = "DELETE FROM subscription_import";
+    private static final String COPY_STAGING_SQL = """
+            COPY subscription_import (line_number, user_id, name, provider, expiration_date, status)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+    private static final String LOCK_STAGED_EXISTING_SQL = """
+            SELECT t.id, t.user_id, t.name, t.provider, t.expiration_date, t.status, t.version
+            FROM subscription t
+            JOIN subscription_import s ON t.user_id = s.user_id AND t.name = s.name
+            FOR UPDATE OF t
+            """;
+    private static final String H2_LOCK_EXISTING_SQL = """
+            SELECT id, user_id, name, provider, expiration_date, status, version
+            FROM subscription
+            WHERE user_id = ANY(?)
+            FOR UPDATE
+            """;
+    private static final String MERGE_STAGING_SQL = """
+            INSERT INTO subscription (user_id, name, provider, expiration_date, status)
+            SELECT user_id, name, provider, expiration_date, status
+            FROM subscription_import
+            ON CONFLICT (user_id, name) DO UPDATE
+            SET expiration_date = EXCLUDED.expiration_date,
+                status = EXCLUDED.status,
+                version = subscription.version + 1
+            WHERE subscription.provider = EXCLUDED.provider
+            """;
+    private static final String H2_MERGE_SQL = """
+            MERGE INTO subscription t
+            USING (VALUES (CAST(? AS INT), CAST(? AS VARCHAR(64)), CAST(? AS VARCHAR(16)),
+                           CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(16))))
+                s (user_id, name, provider, expiration_date, status)
+            ON t.user_id = s.user_id AND t.name = s.name
+            WHEN MATCHED AND t.provider = s.provider THEN
+                UPDATE SET expiration_date = s.expiration_date, status = s.status, version = t.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (user_id, name, provider, expiration_date, status)
+                VALUES (s.user_id, s.name, s.provider, s.expiration_date, s.status)
+            """;
+
+    private final SqlDialect dialect = SqlDialect.fromUrl(PropertiesUtil.get(URL_KEY));
+    private final ParameterBinder<Subscription> parameterBinder = SubscriptionParameterBinder.getInstance();
+    private final RowMapperFactory<Subscription> rowMapperFactory = SubscriptionRowMapper.getInstance();
+
+    public static SubscriptionBulkLoader getInstance() {
+        return INSTANCE;
+    }
+
+    public BulkMergeResult merge(List<StagedSubscription> staged) {
+        if (staged.isEmpty()) {
+            return new BulkMergeResult(List.of(), List.of());
+        }
+        var rounds = splitByOccurrence(staged);
+        return Transactions.inTransaction(transaction -> {
+            List<Long> conflicts = new ArrayList<>();
+            List<SubscriptionChange> changes = new ArrayList<>();
+            for (var round : rounds) {
+                var result = switch (dialect) {
+                    case POSTGRES -> copyAndMerge(transaction.getConnection(), round);
+                    case H2 -> batchMerge(transaction.getConnection(), round);
+                };
+                conflicts.addAll(result.conflicts());
+                changes.addAll(result.changes());
+            }
+            conflicts.sort(null);
+            return new BulkMergeResult(conflicts, changes);
+        });
+    }
+
+    private static List<List<StagedSubscription>> splitByOccurrence(List<StagedSubscription> staged) {
+        List<List<StagedSubscription>> rounds = new ArrayList<>();
+        Map<SubscriptionKey, Integer> occurrences = new HashMap<>();
+        for (var stagedSubscription : staged) {
+            var round = occurrences.merge(SubscriptionKey.of(stagedSubscription.subscription()), 1, Integer::sum) - 1;
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(stagedSubscription);
+        }
+        return rounds;
+    }
+
+    @SneakyThrows
+    private BulkMergeResult copyAndMerge(Connection connection, List<StagedSubscription> staged) {
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+            statement.execute(CLEAR_STAGING_SQL);
+        }
+        copyIn(connection, COPY_STAGING_SQL, toCsv(staged));
+
+        try (var statement = connection.createStatement()) {
+            var existing = mapByKey(statement.executeQuery(LOCK_STAGED_EXISTING_SQL));
+            statement.executeUpdate(MERGE_STAGING_SQL);
+            return changes(staged, existing);
+        }
+    }
+
+    @SneakyThrows
+    private BulkMergeResult batchMerge(Connection connection, List<StagedSubscription> staged) {
+        Map<SubscriptionKey, Subscription> existing;
+        try (var preparedStatement = connection.prepareStatement(H2_LOCK_EXISTING_SQL)) {
+            preparedStatement.setArray(1, connection.createArrayOf("integer", staged.stream()
+                    .map(stagedSubscription -> stagedSubscription.subscription().getUserId())
+                    .distinct()
+                    .toArray()));
+            existing = mapByKey(preparedStatement.executeQuery());
+        }
+        try (var preparedStatement = connection.prepareStatement(H2_MERGE_SQL)) {
+            for (var stagedSubscription : staged) {
+                parameterBinder.bind(preparedStatement, 1, stagedSubscription.subscription());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+        return changes(staged, existing);
+    }
+
+    private Map<SubscriptionKey, Subscription> mapByKey(ResultSet resultSet) throws SQLException {
+        var rowMapper = rowMapperFactory.forResultSet(resultSet);
+        Map<SubscriptionKey, Subscription> subscriptions = new HashMap<>();
+        while (resultSet.next()) {
+            var subscription = rowMapper.mapRow(resultSet);
+            subscriptions.put(SubscriptionKey.of(subscription), subscription);
+        }
+        return subscriptions;
+    }
+
+    // Both merges skip rows whose existing subscription belongs to another provider; those are the conflicts.
+    private static BulkMergeResult changes(List<StagedSubscription> staged, Map<SubscriptionKey, Subscription> existing) {
+        List<Long> conflicts = new ArrayList<>();
+        List<SubscriptionChange> changes = new ArrayList<>(staged.size());
+        for (var stagedSubscription : staged) {
+            var subscription = stagedSubscription.subscription();
+            var before = existing.get(SubscriptionKey.of(subscription));
+            if (before == null) {
+                changes.add(new SubscriptionChange(null, subscription.toBuilder().version(0).build()));
+            } else if (before.getProvider() != subscription.getProvider()) {
+                conflicts.add(stagedSubscription.lineNumber());
+            } else {
+                changes.add(new SubscriptionChange(before, before.toBuilder()
+                        .expirationDate(subscription.getExpirationDate())
+                        .status(subscription.getStatus())
+                        .version(before.getVersion() + 1)
+                        .build()));
+            }
+        }
+        return new BulkMergeResult(conflicts, changes);
+    }
+
+    private static String toCsv(List<StagedSubscription> staged) {
+        var csv = new StringBuilder(staged.size() * 64);
+        for (var stagedSubscription : staged) {
+            var subscription = stagedSubscription.subscription();
+            csv.append(stagedSubscription.lineNumber()).append(',')
+                    .append(subscription.getUserId()).append(',')
+                    .append('"').append(subscription.getName().replace("\"", "\"\"")).append("\",")
+                    .append(subscription.getProvider().name()).append(',')
+                    .append(Timestamp.from(subscription.getExpirationDate())).append(',')
+                    .append(subscription.getStatus().name()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    @SneakyThrows
+    private static void copyIn(Connection connection, String sql, String csv) {
+        var pgConnectionType = Class.forName("org.postgresql.PGConnection");
+        try {
+            var copyManager = pgConnectionType.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnectionType));
+            copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                    .invoke(copyManager, sql, new StringReader(csv));
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record SubscriptionKey(Integer userId, String name) {
+
+        private static SubscriptionKey of(Subscription subscription) {
+            return new SubscriptionKey(subscription.getUserId(), subscription.getName());
+        }
+    }
+}
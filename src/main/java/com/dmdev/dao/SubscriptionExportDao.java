@@ -0,0 +1,85 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.util.ConnectionManager;
+import com.dmdev.util.PropertiesUtil;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.util.Optional;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class SubscriptionExportDao {
+
+    private static final SubscriptionExportDao INSTANCE = new SubscriptionExportDao();
+
+    private static final String SCAN_SQL = """
+            SELECT
+                id,
+                user_id,
+                name,
+                provider,
+                expiration_date,
+                status,
+                version
+            FROM subscription
+            """;
+    private static final String FIND_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM subscription";
+    private static final String FETCH_SIZE_KEY = "db.fetch-size";
+
+    private final int fetchSize = PropertiesUtil.getInt(FETCH_SIZE_KEY, 1000);
+
+    public static SubscriptionExportDao getInstance() {
+        return INSTANCE;
+    }
+
+    @SneakyThrows
+    public Optional<IdRange> findIdRange(SubscriptionFilter filter) {
+        var filterSql = SubscriptionFilterSql.of(filter);
+        try (var connection = ConnectionManager.getForRead();
+             var preparedStatement = connection.prepareStatement(FIND_ID_RANGE_SQL + filterSql.where())) {
+            filterSql.bind(preparedStatement, 1);
+
+            var resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            var from = resultSet.getObject(1, Integer.class);
+            return from == null
+                    ? Optional.empty()
+                    : Optional.of(new IdRange(from, resultSet.getInt(2)));
+        }
+    }
+
+    public long scan(SubscriptionFilter filter, ResultSetHandler handler) {
+        return scan(SubscriptionFilterSql.of(filter), handler);
+    }
+
+    public long scan(SubscriptionFilter filter, IdRange range, ResultSetHandler handler) {
+        return scan(SubscriptionFilterSql.of(filter)
+                .and("id >= ?", range.from())
+                .and("id <= ?", range.to()), handler);
+    }
+
+    @SneakyThrows
+    private long scan(SubscriptionFilterSql filterSql, ResultSetHandler handler) {
+        try (var connection = ConnectionManager.getForRead()) {
+            connection.setAutoCommit(false);
+            try (var preparedStatement = connection.prepareStatement(SCAN_SQL + filterSql.where() + " ORDER BY id")) {
+                preparedStatement.setFetchSize(fetchSize);
+                filterSql.bind(preparedStatement, 1);
+
+                long rows = 0;
+                try (var resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        handler.handle(resultSet);
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.commit();
+            }
+        }
+    }
+}
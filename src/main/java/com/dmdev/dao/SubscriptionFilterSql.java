@@ -0,0 +1,52 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionFilter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+final class SubscriptionFilterSql {
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> parameters = new ArrayList<>();
+
+    static SubscriptionFilterSql of(SubscriptionFilter filter) {
+        var filterSql = new SubscriptionFilterSql();
+        if (filter.getUserId() != null) {
+            filterSql.and("user_id = ?", filter.getUserId());
+        }
+        if (filter.getStatus() != null) {
+            filterSql.and("status = ?", filter.getStatus().name());
+        }
+        if (filter.getProvider() != null) {
+            filterSql.and("provider = ?", filter.getProvider().name());
+        }
+        if (filter.getExpiresFrom() != null) {
+            filterSql.and("expiration_date >= ?", Timestamp.from(filter.getExpiresFrom()));
+        }
+        if (filter.getExpiresTo() != null) {
+            filterSql.and("expiration_date < ?", Timestamp.from(filter.getExpiresTo()));
+        }
+        return filterSql;
+    }
+
+    SubscriptionFilterSql and(String condition, Object parameter) {
+        conditions.add(condition);
+        parameters.add(parameter);
+        return this;
+    }
+
+    String where() {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    int bind(PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        for (var parameter : parameters) {
+            preparedStatement.setObject(parameterIndex++, parameter);
+        }
+        return parameterIndex;
+    }
+}
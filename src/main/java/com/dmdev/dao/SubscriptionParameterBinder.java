@@ -0,0 +1,30 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Subscription;
+import lombok.NoArgsConstructor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class SubscriptionParameterBinder implements ParameterBinder<Subscription> {
+
+    private static final SubscriptionParameterBinder INSTANCE = new SubscriptionParameterBinder();
+
+    public static SubscriptionParameterBinder getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public int bind(PreparedStatement preparedStatement, int parameterIndex, Subscription entity) throws SQLException {
+        preparedStatement.setInt(parameterIndex++, entity.getUserId());
+        preparedStatement.setString(parameterIndex++, entity.getName());
+        preparedStatement.setString(parameterIndex++, entity.getProvider().name());
+        preparedStatement.setTimestamp(parameterIndex++, Timestamp.from(entity.getExpirationDate()));
+        preparedStatement.setString(parameterIndex++, entity.getStatus().name());
+        return parameterIndex;
+    }
+}
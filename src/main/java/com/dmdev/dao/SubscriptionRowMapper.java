@@ -0,0 +1,57 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import lombok.NoArgsConstructor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class SubscriptionRowMapper implements RowMapperFactory<Subscription> {
+
+    private static final SubscriptionRowMapper INSTANCE = new SubscriptionRowMapper();
+
+    private static final Map<String, Provider> PROVIDERS = Arrays.stream(Provider.values())
+            .collect(Collectors.toUnmodifiableMap(Provider::name, Function.identity()));
+    private static final Map<String, Status> STATUSES = Arrays.stream(Status.values())
+            .collect(Collectors.toUnmodifiableMap(Status::name, Function.identity()));
+
+    public static SubscriptionRowMapper getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public RowMapper<Subscription> forResultSet(ResultSet resultSet) throws SQLException {
+        var idIndex = resultSet.findColumn("id");
+        var userIdIndex = resultSet.findColumn("user_id");
+        var nameIndex = resultSet.findColumn("name");
+        var providerIndex = resultSet.findColumn("provider");
+        var expirationDateIndex = resultSet.findColumn("expiration_date");
+        var statusIndex = resultSet.findColumn("status");
+        var versionIndex = resultSet.findColumn("version");
+        return row -> new Subscription(
+                row.getInt(idIndex),
+                row.getInt(userIdIndex),
+                row.getString(nameIndex),
+                lookup(PROVIDERS, row.getString(providerIndex), "provider"),
+                row.getTimestamp(expirationDateIndex).toInstant(),
+                lookup(STATUSES, row.getString(statusIndex), "status"),
+                row.getInt(versionIndex));
+    }
+
+    private static <E extends Enum<E>> E lookup(Map<String, E> values, String name, String column) throws SQLException {
+        var value = values.get(name);
+        if (value == null) {
+            throw new SQLException(String.format("Unknown %s value: %s", column, name));
+        }
+        return value;
+    }
+}
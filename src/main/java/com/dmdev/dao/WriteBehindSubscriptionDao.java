@@ -0,0 +1,477 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.Counter;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.metrics.Timer;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.ReadYourWritesFuture;
+import com.dmdev.util.TransactionCallback;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+public class WriteBehindSubscriptionDao implements SubscriptionDao, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(WriteBehindSubscriptionDao.class.getName());
+    private static final String MIN_BATCH_SIZE_KEY = "subscription.write-behind.min-batch-size";
+    private static final String MAX_BATCH_SIZE_KEY = "subscription.write-behind.max-batch-size";
+    private static final String MAX_LATENCY_KEY = "subscription.write-behind.max-latency-ms";
+    private static final String MAX_PENDING_KEY = "subscription.write-behind.max-pending";
+
+    private final SubscriptionDao delegate;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final int maxPending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition writesAvailable = lock.newCondition();
+    private final LinkedHashMap<SubscriptionKey, PendingWrite> pending = new LinkedHashMap<>();
+    private final ArrayDeque<PendingWrite> deferred = new ArrayDeque<>();
+    private final HashSet<SubscriptionKey> deferredKeys = new HashSet<>();
+    private final Thread flusher;
+    private final Timer flushTimer = Metrics.getRegistry().timer("dao.subscription.write-behind.flush");
+    private final Counter flushedRows = Metrics.getRegistry().counter("dao.subscription.write-behind.rows");
+    private final Counter coalescedWrites = Metrics.getRegistry().counter("dao.subscription.write-behind.coalesced");
+    private final Counter rejectedWrites = Metrics.getRegistry().counter("dao.subscription.write-behind.rejected");
+    private long oldestEnqueuedAt;
+    private boolean closed;
+    @Getter
+    private volatile int batchSize;
+
+    public WriteBehindSubscriptionDao(SubscriptionDao delegate, int minBatchSize, int maxBatchSize,
+                                      Duration maxLatency, int maxPending) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize || maxPending < maxBatchSize) {
+            throw new IllegalArgumentException("Expected 0 < minBatchSize <= maxBatchSize <= maxPending");
+        }
+        this.delegate = delegate;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.maxPending = maxPending;
+        this.batchSize = minBatchSize;
+        this.flusher = new Thread(this::flushLoop, "subscription-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static WriteBehindSubscriptionDao fromProperties(SubscriptionDao delegate) {
+        return new WriteBehindSubscriptionDao(
+                delegate,
+                PropertiesUtil.getInt(MIN_BATCH_SIZE_KEY, 16),
+                PropertiesUtil.getInt(MAX_BATCH_SIZE_KEY, 500),
+                Duration.ofMillis(PropertiesUtil.getLong(MAX_LATENCY_KEY, 5)),
+                PropertiesUtil.getInt(MAX_PENDING_KEY, 10_000));
+    }
+
+    public CompletableFuture<Optional<Subscription>> upsertAsync(Subscription entity) {
+        var future = new ReadYourWritesFuture<Optional<Subscription>>();
+        var key = SubscriptionKey.of(entity);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-behind pipeline is closed");
+            }
+            var existing = pending.get(key);
+            if (existing != null && !isDeferred(key) && existing.coalesce(entity, future)) {
+                coalescedWrites.increment();
+                return future;
+            }
+            if (pending.size() + deferred.size() >= maxPending) {
+                rejectedWrites.increment();
+                future.completeExceptionally(new RejectedExecutionException(String.format(
+                        "Write-behind queue is full (%d pending writes)", maxPending)));
+                return future;
+            }
+            var write = new PendingWrite(entity, future, System.nanoTime());
+            if (existing != null) {
+                deferred.addLast(write);
+                deferredKeys.add(key);
+            } else {
+                if (pending.isEmpty()) {
+                    oldestEnqueuedAt = write.enqueuedAt;
+                }
+                pending.put(key, write);
+                if (pending.size() == 1 || pending.size() >= batchSize) {
+                    writesAvailable.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    @Override
+    public Optional<Subscription> upsertByUserIdAndName(Subscription entity) {
+        try {
+            return upsertAsync(entity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size() + deferred.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            writesAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        try {
+            List<PendingWrite> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                flush(batch);
+            }
+        } catch (Error e) {
+            log.log(System.Logger.Level.ERROR, "Write-behind flusher stopped", e);
+            failRemaining(e);
+            throw e;
+        }
+    }
+
+    private void failRemaining(Throwable cause) {
+        List<PendingWrite> remaining = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            remaining.addAll(pending.values());
+            remaining.addAll(deferred);
+            pending.clear();
+            deferred.clear();
+            deferredKeys.clear();
+        } finally {
+            lock.unlock();
+        }
+        var failure = new IllegalStateException("Write-behind flusher stopped", cause);
+        remaining.forEach(write -> write.fail(failure));
+    }
+
+    private List<PendingWrite> nextBatch() {
+        lock.lock();
+        try {
+            while (pending.size() < batchSize && !closed) {
+                if (pending.isEmpty()) {
+                    writesAvailable.awaitUninterruptibly();
+                    continue;
+                }
+                var remaining = oldestEnqueuedAt + maxLatencyNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    writesAvailable.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            List<PendingWrite> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            var iterator = pending.values().iterator();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            promoteDeferred();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void promoteDeferred() {
+        var oldest = pending.isEmpty() ? Long.MAX_VALUE : pending.values().iterator().next().enqueuedAt;
+        var blocked = new HashSet<SubscriptionKey>();
+        deferredKeys.clear();
+        var iterator = deferred.iterator();
+        while (iterator.hasNext()) {
+            var write = iterator.next();
+            var key = SubscriptionKey.of(write.entity);
+            if (blocked.contains(key)) {
+                deferredKeys.add(key);
+                continue;
+            }
+            var existing = pending.get(key);
+            if (existing == null) {
+                pending.put(key, write);
+                oldest = Math.min(oldest, write.enqueuedAt);
+                iterator.remove();
+            } else if (existing.merge(write)) {
+                iterator.remove();
+            } else {
+                blocked.add(key);
+                deferredKeys.add(key);
+            }
+        }
+        oldestEnqueuedAt = oldest;
+    }
+
+    private boolean isDeferred(SubscriptionKey key) {
+        return deferredKeys.contains(key);
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        var start = System.nanoTime();
+        try {
+            flushOrSplit(batch);
+        } finally {
+            flushTimer.recordSince(start);
+            adaptBatchSize(batch.size());
+        }
+    }
+
+    private void flushOrSplit(List<PendingWrite> batch) {
+        try {
+            var results = delegate.upsertAllByUserIdAndName(batch.stream()
+                    .map(write -> write.entity)
+                    .toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+            flushedRows.add(batch.size());
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.log(System.Logger.Level.WARNING, "Write-behind upsert of " + SubscriptionKey.of(batch.get(0).entity) + " failed", e);
+                batch.get(0).fail(e);
+                return;
+            }
+            var middle = batch.size() / 2;
+            flushOrSplit(batch.subList(0, middle));
+            flushOrSplit(batch.subList(middle, batch.size()));
+        } catch (Error e) {
+            batch.forEach(write -> write.fail(e));
+            throw e;
+        }
+    }
+
+    private void adaptBatchSize(int flushed) {
+        var current = batchSize;
+        if (flushed >= current && getPendingCount() >= current) {
+            batchSize = Math.min(current * 2, maxBatchSize);
+        } else if (flushed < current / 2) {
+            batchSize = Math.max(current / 2, minBatchSize);
+        }
+    }
+
+    @Override
+    public Optional<SubscriptionChange> upsertChangeByUserIdAndName(Subscription entity) {
+        return delegate.upsertChangeByUserIdAndName(entity);
+    }
+
+    @Override
+    public List<Optional<Subscription>> upsertAllByUserIdAndName(List<Subscription> entities) {
+        return delegate.upsertAllByUserIdAndName(entities);
+    }
+
+    @Override
+    public <R> R inTransaction(TransactionCallback<R> callback) {
+        return delegate.inTransaction(callback);
+    }
+
+    @Override
+    public <R> R inTransaction(IsolationLevel isolation, TransactionCallback<R> callback) {
+        return delegate.inTransaction(isolation, callback);
+    }
+
+    @Override
+    public List<Subscription> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Optional<Subscription> findById(Integer id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        return delegate.delete(id);
+    }
+
+    @Override
+    public Subscription update(Subscription entity) {
+        return delegate.update(entity);
+    }
+
+    @Override
+    public Subscription insert(Subscription entity) {
+        return delegate.insert(entity);
+    }
+
+    @Override
+    public List<Subscription> findByUserId(Integer userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public List<Subscription> findByUserIds(Collection<Integer> userIds) {
+        return delegate.findByUserIds(userIds);
+    }
+
+    @Override
+    public Page<Subscription> findPage(String pageToken, int limit, SubscriptionFilter filter) {
+        return delegate.findPage(pageToken, limit, filter);
+    }
+
+    @Override
+    public Stream<Subscription> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Subscription> streamByUserId(Integer userId) {
+        return delegate.streamByUserId(userId);
+    }
+
+    @Override
+    public Stream<Subscription> streamPartitioned(SubscriptionFilter filter, int partitions) {
+        return delegate.streamPartitioned(filter, partitions);
+    }
+
+    @Override
+    public List<Subscription> insertAll(List<Subscription> entities) {
+        return delegate.insertAll(entities);
+    }
+
+    @Override
+    public List<Subscription> updateAll(List<Subscription> entities) {
+        return delegate.updateAll(entities);
+    }
+
+    @Override
+    public List<SubscriptionChange> expireOverdue(Instant now, int limit) {
+        return delegate.expireOverdue(now, limit);
+    }
+
+    @Override
+    public boolean compareAndSetStatus(Integer id, Collection<Status> expectedStatuses, Status newStatus,
+                                       Instant expirationDate, Integer expectedVersion) {
+        return delegate.compareAndSetStatus(id, expectedStatuses, newStatus, expirationDate, expectedVersion);
+    }
+
+    @Override
+    public List<SubscriptionChange> cancelAll(Collection<Integer> ids) {
+        return delegate.cancelAll(ids);
+    }
+
+    @Override
+    public List<SubscriptionChange> expireAll(Collection<Integer> ids, Instant expirationDate) {
+        return delegate.expireAll(ids, expirationDate);
+    }
+
+    @Override
+    public List<Integer> findExistingIds(Collection<Integer> ids) {
+        return delegate.findExistingIds(ids);
+    }
+
+    @Override
+    public List<Subscription> findAllById(Collection<Integer> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    @Override
+    public long count(SubscriptionFilter filter) {
+        return delegate.count(filter);
+    }
+
+    @Override
+    public List<SubscriptionCount> countByStatusAndProvider(SubscriptionFilter filter) {
+        return delegate.countByStatusAndProvider(filter);
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByExpirationDate(SubscriptionFilter filter) {
+        return delegate.countByExpirationDate(filter);
+    }
+
+    private record SubscriptionKey(Integer userId, String name) {
+
+        private static SubscriptionKey of(Subscription subscription) {
+            return new SubscriptionKey(subscription.getUserId(), subscription.getName());
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final List<CompletableFuture<Optional<Subscription>>> waiters = new ArrayList<>(1);
+        private final long enqueuedAt;
+        private Subscription entity;
+
+        private PendingWrite(Subscription entity, CompletableFuture<Optional<Subscription>> waiter, long enqueuedAt) {
+            this.entity = entity;
+            this.enqueuedAt = enqueuedAt;
+            this.waiters.add(waiter);
+        }
+
+        private boolean coalesce(Subscription newer, CompletableFuture<Optional<Subscription>> waiter) {
+            if (entity.getProvider() != newer.getProvider()) {
+                return false;
+            }
+            entity = newer;
+            waiters.add(waiter);
+            return true;
+        }
+
+        private boolean merge(PendingWrite newer) {
+            if (entity.getProvider() != newer.entity.getProvider()) {
+                return false;
+            }
+            entity = newer.entity;
+            waiters.addAll(newer.waiters);
+            return true;
+        }
+
+        private void complete(Optional<Subscription> result) {
+            for (int i = 0; i < waiters.size(); i++) {
+                waiters.get(i).complete(i == 0 ? result : result.map(subscription -> subscription.toBuilder().build()));
+            }
+        }
+
+        private void fail(Throwable cause) {
+            waiters.forEach(waiter -> waiter.completeExceptionally(cause));
+        }
+    }
+}
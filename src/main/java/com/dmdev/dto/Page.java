@@ -0,0 +1,15 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class Page<T> {
+    List<T> content;
+    String nextPageToken;
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Value
+public class RebalanceReport {
+    String addedShard;
+    Map<String, Integer> movedBySourceShard;
+    Duration elapsed;
+
+    public int getMovedCount() {
+        return movedBySourceShard.values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+}
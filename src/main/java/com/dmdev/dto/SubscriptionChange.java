@@ -0,0 +1,10 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Subscription;
+import lombok.Value;
+
+@Value
+public class SubscriptionChange {
+    Subscription before;
+    Subscription after;
+}
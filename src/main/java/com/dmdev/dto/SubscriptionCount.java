@@ -0,0 +1,12 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import lombok.Value;
+
+@Value
+public class SubscriptionCount {
+    Status status;
+    Provider provider;
+    long count;
+}
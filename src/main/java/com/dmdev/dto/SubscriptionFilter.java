@@ -0,0 +1,21 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class SubscriptionFilter {
+
+    public static final SubscriptionFilter EMPTY = SubscriptionFilter.builder().build();
+
+    Integer userId;
+    Status status;
+    Provider provider;
+    Instant expiresFrom;
+    Instant expiresTo;
+}
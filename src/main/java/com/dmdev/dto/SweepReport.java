@@ -0,0 +1,19 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Value
+public class SweepReport {
+    Instant startedAt;
+    int expiredCount;
+    List<Duration> batchDurations;
+
+    public Duration getTotalDuration() {
+        return batchDurations.stream()
+                .reduce(Duration.ZERO, Duration::plus);
+    }
+}
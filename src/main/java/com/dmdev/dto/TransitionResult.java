@@ -0,0 +1,27 @@
+package com.dmdev.dto;
+
+import lombok.Value;
+
+@Value
+public class TransitionResult {
+    Integer subscriptionId;
+    Outcome outcome;
+    String message;
+
+    public static TransitionResult transitioned(Integer subscriptionId) {
+        return new TransitionResult(subscriptionId, Outcome.TRANSITIONED, null);
+    }
+
+    public static TransitionResult notFound(Integer subscriptionId) {
+        return new TransitionResult(subscriptionId, Outcome.NOT_FOUND,
+                String.format("Subscription %d does not exist", subscriptionId));
+    }
+
+    public static TransitionResult rejected(Integer subscriptionId, String message) {
+        return new TransitionResult(subscriptionId, Outcome.REJECTED, message);
+    }
+
+    public enum Outcome {
+        TRANSITIONED, NOT_FOUND, REJECTED
+    }
+}
@@ -0,0 +1,31 @@
+package com.dmdev.dto;
+
+import com.dmdev.entity.Subscription;
+import com.dmdev.validator.Error;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class UpsertResult {
+    CreateSubscriptionDto dto;
+    Outcome outcome;
+    Subscription subscription;
+    List<Error> errors;
+
+    public static UpsertResult created(CreateSubscriptionDto dto, Subscription subscription) {
+        return new UpsertResult(dto, Outcome.CREATED, subscription, List.of());
+    }
+
+    public static UpsertResult updated(CreateSubscriptionDto dto, Subscription subscription) {
+        return new UpsertResult(dto, Outcome.UPDATED, subscription, List.of());
+    }
+
+    public static UpsertResult failed(CreateSubscriptionDto dto, List<Error> errors) {
+        return new UpsertResult(dto, Outcome.FAILED, null, List.copyOf(errors));
+    }
+
+    public enum Outcome {
+        CREATED, UPDATED, FAILED
+    }
+}
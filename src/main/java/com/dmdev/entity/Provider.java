@@ -1,18 +1,51 @@
 package com.dmdev.entity;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 public enum Provider {
     GOOGLE, APPLE;
 
+    private static final Provider[] LOOKUP = buildLookup();
+
     public static Provider findByName(String name) {
         return findByNameOpt(name).orElseThrow();
     }
 
     public static Optional<Provider> findByNameOpt(String name) {
-        return Arrays.stream(values())
-                .filter(provider -> provider.name().equalsIgnoreCase(name))
-                .findFirst();
+        return Optional.ofNullable(findByNameOrNull(name));
+    }
+
+    public static Provider findByNameOrNull(String name) {
+        if (name == null) {
+            return null;
+        }
+        var mask = LOOKUP.length - 1;
+        for (int i = caseInsensitiveHash(name) & mask; LOOKUP[i] != null; i = (i + 1) & mask) {
+            if (LOOKUP[i].name().equalsIgnoreCase(name)) {
+                return LOOKUP[i];
+            }
+        }
+        return null;
+    }
+
+    private static Provider[] buildLookup() {
+        var lookup = new Provider[Integer.highestOneBit(values().length * 2) << 1];
+        var mask = lookup.length - 1;
+        for (var provider : values()) {
+            var i = caseInsensitiveHash(provider.name()) & mask;
+            while (lookup[i] != null) {
+                i = (i + 1) & mask;
+            }
+            lookup[i] = provider;
+        }
+        return lookup;
+    }
+
+    private static int caseInsensitiveHash(String name) {
+        var hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return hash ^ (hash >>> 16);
     }
 }
@@ -0,0 +1,14 @@
+package com.dmdev.exporter;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Value
+public class ExportReport {
+    long rows;
+    List<Path> files;
+    Duration elapsed;
+}
@@ -0,0 +1,140 @@
+package com.dmdev.exporter;
+
+import com.dmdev.dao.IdRange;
+import com.dmdev.dao.SubscriptionExportDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.util.PropertiesUtil;
+import lombok.SneakyThrows;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public class SubscriptionExporter implements AutoCloseable {
+
+    private static final String PARALLELISM_KEY = "subscription.export.parallelism";
+    private static final String BUFFER_SIZE_KEY = "subscription.export.buffer-size";
+
+    private final SubscriptionExportDao subscriptionExportDao;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int bufferSize;
+
+    public SubscriptionExporter(SubscriptionExportDao subscriptionExportDao, int parallelism, int bufferSize) {
+        if (parallelism <= 0 || bufferSize <= 0) {
+            throw new IllegalArgumentException("parallelism and bufferSize must be positive");
+        }
+        this.subscriptionExportDao = subscriptionExportDao;
+        this.parallelism = parallelism;
+        this.bufferSize = bufferSize;
+        var threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            var thread = new Thread(runnable, "subscription-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static SubscriptionExporter fromProperties() {
+        return new SubscriptionExporter(
+                SubscriptionExportDao.getInstance(),
+                PropertiesUtil.getInt(PARALLELISM_KEY, 4),
+                PropertiesUtil.getInt(BUFFER_SIZE_KEY, 1 << 16));
+    }
+
+    @SneakyThrows
+    public long export(OutputStream outputStream, SubscriptionFilter filter, ExportFormat format, boolean gzip) {
+        var stream = gzip ? new GZIPOutputStream(outputStream, bufferSize) : outputStream;
+        var writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), bufferSize);
+        var rowWriter = new SubscriptionRowWriter(format, writer);
+        rowWriter.writeHeader();
+        var rows = subscriptionExportDao.scan(filter, rowWriter::write);
+        writer.flush();
+        if (stream instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        return rows;
+    }
+
+    public ExportReport export(Path file, SubscriptionFilter filter, ExportFormat format, boolean gzip) {
+        var start = System.nanoTime();
+        var rows = writeFile(file, filter, null, format, gzip);
+        return new ExportReport(rows, List.of(file), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    public ExportReport exportPartitioned(Path directory, String baseName, SubscriptionFilter filter,
+                                          ExportFormat format, boolean gzip) {
+        var start = System.nanoTime();
+        var idRange = subscriptionExportDao.findIdRange(filter);
+        if (idRange.isEmpty()) {
+            return new ExportReport(0, List.of(), Duration.ofNanos(System.nanoTime() - start));
+        }
+        var partitions = idRange.get().split(parallelism);
+        List<Path> files = new ArrayList<>(partitions.size());
+        List<CompletableFuture<Long>> futures = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            var file = directory.resolve(String.format("%s-%04d%s%s",
+                    baseName, i, format.getExtension(), gzip ? ".gz" : ""));
+            var partition = partitions.get(i);
+            files.add(file);
+            futures.add(CompletableFuture.supplyAsync(() -> writeFile(file, filter, partition, format, gzip), executor));
+        }
+        long rows = 0;
+        for (var future : futures) {
+            rows += join(future, futures);
+        }
+        return new ExportReport(rows, List.copyOf(files), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @SneakyThrows
+    private long writeFile(Path file, SubscriptionFilter filter, IdRange range, ExportFormat format, boolean gzip) {
+        try (var channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+             var stream = gzip
+                     ? new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize)
+                     : Channels.newOutputStream(channel);
+             var writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), bufferSize)) {
+            var rowWriter = new SubscriptionRowWriter(format, writer);
+            rowWriter.writeHeader();
+            return range == null
+                    ? subscriptionExportDao.scan(filter, rowWriter::write)
+                    : subscriptionExportDao.scan(filter, range, rowWriter::write);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    @SneakyThrows
+    private static long join(CompletableFuture<Long> future, List<CompletableFuture<Long>> futures) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            futures.forEach(other -> other.cancel(true));
+            throw e.getCause();
+        }
+    }
+}
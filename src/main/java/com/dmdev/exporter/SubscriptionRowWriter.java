@@ -0,0 +1,110 @@
+package com.dmdev.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+
+final class SubscriptionRowWriter {
+
+    private static final String CSV_HEADER = "id,user_id,name,provider,expiration_date,status,version\n";
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final StringBuilder row = new StringBuilder(256);
+    private char[] buffer = new char[256];
+
+    SubscriptionRowWriter(ExportFormat format, Writer writer) {
+        this.format = format;
+        this.writer = writer;
+    }
+
+    void writeHeader() throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+    }
+
+    void write(ResultSet resultSet) throws SQLException, IOException {
+        row.setLength(0);
+        switch (format) {
+            case CSV -> appendCsv(resultSet);
+            case NDJSON -> appendNdjson(resultSet);
+        }
+        var length = row.length();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        row.getChars(0, length, buffer, 0);
+        writer.write(buffer, 0, length);
+    }
+
+    private void appendCsv(ResultSet resultSet) throws SQLException {
+        row.append(resultSet.getInt(1)).append(',')
+                .append(resultSet.getInt(2)).append(',');
+        appendCsvValue(resultSet.getString(3));
+        row.append(',').append(resultSet.getString(4)).append(',');
+        DateTimeFormatter.ISO_INSTANT.formatTo(resultSet.getTimestamp(5).toInstant(), row);
+        row.append(',').append(resultSet.getString(6))
+                .append(',').append(resultSet.getInt(7))
+                .append('\n');
+    }
+
+    private void appendNdjson(ResultSet resultSet) throws SQLException {
+        row.append("{\"id\":").append(resultSet.getInt(1))
+                .append(",\"userId\":").append(resultSet.getInt(2))
+                .append(",\"name\":");
+        appendJsonString(resultSet.getString(3));
+        row.append(",\"provider\":\"").append(resultSet.getString(4))
+                .append("\",\"expirationDate\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(resultSet.getTimestamp(5).toInstant(), row);
+        row.append("\",\"status\":\"").append(resultSet.getString(6))
+                .append("\",\"version\":").append(resultSet.getInt(7))
+                .append("}\n");
+    }
+
+    private void appendCsvValue(String value) {
+        var needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            var current = value.charAt(i);
+            needsQuotes = current == ',' || current == '"' || current == '\n' || current == '\r';
+        }
+        if (!needsQuotes) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var current = value.charAt(i);
+            if (current == '"') {
+                row.append('"');
+            }
+            row.append(current);
+        }
+        row.append('"');
+    }
+
+    private void appendJsonString(String value) {
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            var current = value.charAt(i);
+            switch (current) {
+                case '"' -> row.append("\\\"");
+                case '\\' -> row.append("\\\\");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                case '\t' -> row.append("\\t");
+                default -> {
+                    if (current < 0x20) {
+                        row.append("\\u00");
+                        row.append(Character.forDigit(current >> 4, 16)).append(Character.forDigit(current & 0xF, 16));
+                    } else {
+                        row.append(current);
+                    }
+                }
+            }
+        }
+        row.append('"');
+    }
+}
@@ -0,0 +1,157 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import lombok.NoArgsConstructor;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class CsvLineParser implements LineParser {
+
+    private static final CsvLineParser INSTANCE = new CsvLineParser();
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    public static CsvLineParser getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CreateSubscriptionDto parse(String line) {
+        var cursor = new Cursor(line);
+        var userId = cursor.next().intValue();
+        var name = cursor.next().stringValue();
+        var provider = cursor.next().stringValue();
+        var expirationDate = cursor.next().instantValue();
+        cursor.end();
+        return CreateSubscriptionDto.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(expirationDate)
+                .build();
+    }
+
+    @Override
+    public boolean isHeader(String line) {
+        return line.regionMatches(true, 0, "user_id", 0, 7) || line.regionMatches(true, 0, "userId", 0, 6);
+    }
+
+    private static final class Cursor {
+
+        private final String line;
+        private int position;
+        private int start;
+        private int end;
+        private String unescaped;
+
+        private Cursor(String line) {
+            this.line = line;
+        }
+
+        private Cursor next() {
+            if (position > line.length()) {
+                throw new IllegalArgumentException("expected 4 fields");
+            }
+            unescaped = null;
+            var fieldStart = skipWhitespace(position);
+            if (fieldStart < line.length() && line.charAt(fieldStart) == QUOTE) {
+                readQuoted(fieldStart);
+            } else {
+                var separator = line.indexOf(SEPARATOR, position);
+                end = separator < 0 ? line.length() : separator;
+                start = fieldStart;
+                position = end + 1;
+                while (end > start && line.charAt(end - 1) == ' ') {
+                    end--;
+                }
+            }
+            return this;
+        }
+
+        private void end() {
+            if (position <= line.length()) {
+                throw new IllegalArgumentException("expected 4 fields");
+            }
+        }
+
+        private void readQuoted(int quote) {
+            StringBuilder builder = null;
+            var index = quote + 1;
+            var segmentStart = index;
+            while (true) {
+                var closing = line.indexOf(QUOTE, index);
+                if (closing < 0) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                }
+                if (closing + 1 < line.length() && line.charAt(closing + 1) == QUOTE) {
+                    if (builder == null) {
+                        builder = new StringBuilder();
+                    }
+                    builder.append(line, segmentStart, closing + 1);
+                    index = closing + 2;
+                    segmentStart = index;
+                    continue;
+                }
+                if (builder != null) {
+                    unescaped = builder.append(line, segmentStart, closing).toString();
+                }
+                start = quote + 1;
+                end = closing;
+                var separator = skipWhitespace(closing + 1);
+                if (separator < line.length() && line.charAt(separator) != SEPARATOR) {
+                    throw new IllegalArgumentException("unexpected character after quoted field");
+                }
+                position = separator + 1;
+                return;
+            }
+        }
+
+        private int skipWhitespace(int index) {
+            while (index < line.length() && line.charAt(index) == ' ') {
+                index++;
+            }
+            return index;
+        }
+
+        private Integer intValue() {
+            if (unescaped != null || start == end) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(line, start, end, 10);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String stringValue() {
+            if (unescaped != null) {
+                return unescaped;
+            }
+            return start == end ? null : line.substring(start, end);
+        }
+
+        private Instant instantValue() {
+            if (start == end) {
+                return null;
+            }
+            var text = unescaped != null ? unescaped : line;
+            var from = unescaped != null ? 0 : start;
+            var to = unescaped != null ? unescaped.length() : end;
+            try {
+                var parsePosition = new ParsePosition(from);
+                var parsed = DateTimeFormatter.ISO_INSTANT.parse(text, parsePosition);
+                return parsePosition.getIndex() == to ? Instant.from(parsed) : null;
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.dmdev.importer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    public static ImportFormat fromFileName(Path file) {
+        var fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import file: " + file);
+    }
+
+    LineParser parser() {
+        return switch (this) {
+            case CSV -> CsvLineParser.getInstance();
+            case NDJSON -> NdjsonLineParser.getInstance();
+        };
+    }
+}
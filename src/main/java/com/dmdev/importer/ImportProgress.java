@@ -0,0 +1,18 @@
+package com.dmdev.importer;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class ImportProgress {
+    long linesRead;
+    long imported;
+    long rejected;
+    Duration elapsed;
+
+    public double getLinesPerSecond() {
+        var nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : linesRead * 1_000_000_000d / nanos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.dmdev.importer;
+
+@FunctionalInterface
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = progress -> {
+    };
+
+    void onProgress(ImportProgress progress);
+}
@@ -0,0 +1,15 @@
+package com.dmdev.importer;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Value
+public class ImportReport {
+    long linesRead;
+    long imported;
+    long rejected;
+    Duration elapsed;
+    Path rejectsFile;
+}
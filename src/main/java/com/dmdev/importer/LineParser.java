@@ -0,0 +1,12 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+
+public interface LineParser {
+
+    CreateSubscriptionDto parse(String line);
+
+    default boolean isHeader(String line) {
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import lombok.NoArgsConstructor;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class NdjsonLineParser implements LineParser {
+
+    private static final NdjsonLineParser INSTANCE = new NdjsonLineParser();
+
+    public static NdjsonLineParser getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public CreateSubscriptionDto parse(String line) {
+        var cursor = new Cursor(line);
+        var builder = CreateSubscriptionDto.builder();
+        cursor.expect('{');
+        if (!cursor.consume('}')) {
+            do {
+                cursor.readString();
+                var keyStart = cursor.start;
+                var keyLength = cursor.end - cursor.start;
+                cursor.expect(':');
+                if (cursor.keyEquals(keyStart, keyLength, "userId", "user_id")) {
+                    builder.userId(cursor.readValue().intValue());
+                } else if (cursor.keyEquals(keyStart, keyLength, "name", "name")) {
+                    builder.name(cursor.readValue().stringValue());
+                } else if (cursor.keyEquals(keyStart, keyLength, "provider", "provider")) {
+                    builder.provider(cursor.readValue().stringValue());
+                } else if (cursor.keyEquals(keyStart, keyLength, "expirationDate", "expiration_date")) {
+                    builder.expirationDate(cursor.readValue().instantValue());
+                } else {
+                    cursor.readValue();
+                }
+            } while (cursor.consume(','));
+            cursor.expect('}');
+        }
+        cursor.expectEnd();
+        return builder.build();
+    }
+
+    private static final class Cursor {
+
+        private final String line;
+        private int position;
+        private int start;
+        private int end;
+        private boolean string;
+        private String unescaped;
+
+        private Cursor(String line) {
+            this.line = line;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw new IllegalArgumentException("expected '" + expected + "' at " + position);
+            }
+        }
+
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (position < line.length() && line.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectEnd() {
+            skipWhitespace();
+            if (position != line.length()) {
+                throw new IllegalArgumentException("unexpected content at " + position);
+            }
+        }
+
+        private boolean keyEquals(int keyStart, int keyLength, String camelCase, String snakeCase) {
+            return unescaped == null
+                    && (keyLength == camelCase.length() && line.regionMatches(keyStart, camelCase, 0, keyLength)
+                    || keyLength == snakeCase.length() && line.regionMatches(keyStart, snakeCase, 0, keyLength));
+        }
+
+        private Cursor readValue() {
+            skipWhitespace();
+            if (position >= line.length()) {
+                throw new IllegalArgumentException("expected value at " + position);
+            }
+            var first = line.charAt(position);
+            if (first == '"') {
+                readString();
+                return this;
+            }
+            if (first == '{' || first == '[') {
+                throw new IllegalArgumentException("nested values are not supported at " + position);
+            }
+            string = false;
+            unescaped = null;
+            start = position;
+            while (position < line.length() && ",} \t".indexOf(line.charAt(position)) < 0) {
+                position++;
+            }
+            end = position;
+            if (start == end) {
+                throw new IllegalArgumentException("expected value at " + position);
+            }
+            return this;
+        }
+
+        private void readString() {
+            expect('"');
+            string = true;
+            unescaped = null;
+            start = position;
+            StringBuilder builder = null;
+            while (position < line.length()) {
+                var current = line.charAt(position);
+                if (current == '"') {
+                    end = position++;
+                    if (builder != null) {
+                        unescaped = builder.toString();
+                    }
+                    return;
+                }
+                if (current == '\\') {
+                    if (builder == null) {
+                        builder = new StringBuilder().append(line, start, position);
+                    }
+                    builder.append(unescape());
+                    continue;
+                }
+                if (builder != null) {
+                    builder.append(current);
+                }
+                position++;
+            }
+            throw new IllegalArgumentException("unterminated string");
+        }
+
+        private char unescape() {
+            if (position + 1 >= line.length()) {
+                throw new IllegalArgumentException("unterminated escape sequence");
+            }
+            var escaped = line.charAt(position + 1);
+            position += 2;
+            return switch (escaped) {
+                case '"', '\\', '/' -> escaped;
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> {
+                    if (position + 4 > line.length()) {
+                        throw new IllegalArgumentException("invalid unicode escape");
+                    }
+                    position += 4;
+                    yield (char) Integer.parseInt(line, position - 4, position, 16);
+                }
+                default -> throw new IllegalArgumentException("invalid escape sequence \\" + escaped);
+            };
+        }
+
+        private void skipWhitespace() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean isNull() {
+            return !string && end - start == 4 && line.startsWith("null", start);
+        }
+
+        private Integer intValue() {
+            if (string || isNull()) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(line, start, end, 10);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String stringValue() {
+            if (!string) {
+                return null;
+            }
+            return unescaped != null ? unescaped : line.substring(start, end);
+        }
+
+        private Instant instantValue() {
+            if (!string || start == end) {
+                return null;
+            }
+            var text = unescaped != null ? unescaped : line;
+            var from = unescaped != null ? 0 : start;
+            var to = unescaped != null ? unescaped.length() : end;
+            try {
+                var parsePosition = new ParsePosition(from);
+                var parsed = DateTimeFormatter.ISO_INSTANT.parse(text, parsePosition);
+                return parsePosition.getIndex() == to ? Instant.from(parsed) : null;
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+    }
+}
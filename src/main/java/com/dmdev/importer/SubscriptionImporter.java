@@ -0,0 +1,273 @@
+package com.dmdev.importer;
+
+import com.dmdev.dao.StagedSubscription;
+import com.dmdev.dao.SubscriptionBulkLoader;
+import com.dmdev.entity.Provider;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.AsyncSubscriptionService;
+import com.dmdev.service.SubscriptionCounters;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.Error;
+import lombok.SneakyThrows;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+public class SubscriptionImporter implements AutoCloseable {
+
+    private static final String CHUNK_SIZE_KEY = "subscription.import.chunk-size";
+    private static final String PARALLELISM_KEY = "subscription.import.parallelism";
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private static final List<Error> NAME_USED_BY_ANOTHER_PROVIDER =
+            List.of(Error.of(104, "name is already used by another provider"));
+    private static final int MALFORMED_LINE_CODE = 110;
+
+    private final SubscriptionBulkLoader bulkLoader;
+    private final CreateSubscriptionValidator createSubscriptionValidator;
+    private final CreateSubscriptionMapper createSubscriptionMapper;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private volatile SubscriptionCounters counters;
+
+    public SubscriptionImporter(SubscriptionBulkLoader bulkLoader,
+                                CreateSubscriptionValidator createSubscriptionValidator,
+                                CreateSubscriptionMapper createSubscriptionMapper,
+                                Executor executor, int parallelism, int chunkSize) {
+        this(bulkLoader, createSubscriptionValidator, createSubscriptionMapper, executor, false, parallelism, chunkSize);
+    }
+
+    private SubscriptionImporter(SubscriptionBulkLoader bulkLoader,
+                                 CreateSubscriptionValidator createSubscriptionValidator,
+                                 CreateSubscriptionMapper createSubscriptionMapper,
+                                 Executor executor, boolean ownsExecutor, int parallelism, int chunkSize) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be positive");
+        }
+        this.bulkLoader = bulkLoader;
+        this.createSubscriptionValidator = createSubscriptionValidator;
+        this.createSubscriptionMapper = createSubscriptionMapper;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = parallelism * 2;
+    }
+
+    public static SubscriptionImporter fromProperties() {
+        var parallelism = PropertiesUtil.getInt(PARALLELISM_KEY, Runtime.getRuntime().availableProcessors());
+        return new SubscriptionImporter(
+                SubscriptionBulkLoader.getInstance(),
+                CreateSubscriptionValidator.getInstance(),
+                CreateSubscriptionMapper.getInstance(),
+                AsyncSubscriptionService.defaultExecutor(parallelism),
+                true,
+                parallelism,
+                PropertiesUtil.getInt(CHUNK_SIZE_KEY, 1000));
+    }
+
+    public void setCounters(SubscriptionCounters counters) {
+        this.counters = counters;
+    }
+
+    public ImportReport importFile(Path file, Path rejectsFile) {
+        return importFile(file, ImportFormat.fromFileName(file), rejectsFile, ImportProgressListener.NONE);
+    }
+
+    @SneakyThrows
+    public ImportReport importFile(Path file, ImportFormat format, Path rejectsFile, ImportProgressListener listener) {
+        var parser = format.parser();
+        var progress = new ProgressTracker(listener);
+        Deque<CompletableFuture<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(file), StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+             var rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            rejects.write("line\terrors\trecord");
+            rejects.newLine();
+
+            var chunk = new RawChunk(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || lineNumber == 1 && parser.isHeader(line)) {
+                    continue;
+                }
+                chunk.add(lineNumber, line);
+                if (chunk.isFull()) {
+                    inFlight.add(parseAsync(parser, chunk));
+                    chunk = new RawChunk(chunkSize);
+                    while (inFlight.size() >= maxChunksInFlight) {
+                        write(join(inFlight.poll()), rejects, progress);
+                    }
+                }
+            }
+            if (chunk.size > 0) {
+                inFlight.add(parseAsync(parser, chunk));
+            }
+            while (!inFlight.isEmpty()) {
+                write(join(inFlight.poll()), rejects, progress);
+            }
+            progress.linesRead = lineNumber;
+        } catch (Throwable e) {
+            inFlight.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        listener.onProgress(progress.snapshot());
+        return new ImportReport(progress.linesRead, progress.imported, progress.rejected, progress.elapsed(), rejectsFile);
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor && executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private CompletableFuture<ParsedChunk> parseAsync(LineParser parser, RawChunk chunk) {
+        return CompletableFuture.supplyAsync(() -> parse(parser, chunk), executor);
+    }
+
+    private ParsedChunk parse(LineParser parser, RawChunk chunk) {
+        List<StagedSubscription> staged = new ArrayList<>(chunk.size);
+        List<Rejection> rejections = new ArrayList<>();
+        for (int i = 0; i < chunk.size; i++) {
+            var lineNumber = chunk.lineNumbers[i];
+            try {
+                var dto = parser.parse(chunk.lines[i]);
+                var provider = Provider.findByNameOrNull(dto.getProvider());
+                var validationResult = createSubscriptionValidator.validate(dto, provider);
+                if (validationResult.hasErrors()) {
+                    rejections.add(new Rejection(lineNumber, validationResult.getErrors(), chunk.lines[i]));
+                } else {
+                    staged.add(new StagedSubscription(lineNumber, createSubscriptionMapper.map(dto, provider)));
+                }
+            } catch (IllegalArgumentException e) {
+                rejections.add(new Rejection(lineNumber,
+                        List.of(Error.of(MALFORMED_LINE_CODE, "line is malformed: " + e.getMessage())), chunk.lines[i]));
+            }
+        }
+        return new ParsedChunk(chunk, staged, rejections);
+    }
+
+    private void write(ParsedChunk chunk, BufferedWriter rejects, ProgressTracker progress) throws IOException {
+        var result = bulkLoader.merge(chunk.staged());
+        var counters = this.counters;
+        if (counters != null) {
+            result.changes().forEach(change -> counters.record(change.getBefore(), change.getAfter()));
+        }
+        var conflicts = result.conflicts();
+        for (var rejection : chunk.rejections()) {
+            writeRejection(rejects, rejection);
+        }
+        for (var lineNumber : conflicts) {
+            writeRejection(rejects, new Rejection(lineNumber, NAME_USED_BY_ANOTHER_PROVIDER, chunk.raw().line(lineNumber)));
+        }
+        progress.linesRead = chunk.raw().lastLineNumber();
+        progress.imported += chunk.staged().size() - conflicts.size();
+        progress.rejected += chunk.rejections().size() + conflicts.size();
+        progress.report();
+    }
+
+    private static void writeRejection(BufferedWriter rejects, Rejection rejection) throws IOException {
+        rejects.write(Long.toString(rejection.lineNumber()));
+        rejects.write('\t');
+        for (int i = 0; i < rejection.errors().size(); i++) {
+            var error = rejection.errors().get(i);
+            if (i > 0) {
+                rejects.write("; ");
+            }
+            rejects.write(error.getCode() + ":" + error.getMessage());
+        }
+        rejects.write('\t');
+        rejects.write(rejection.line());
+        rejects.newLine();
+    }
+
+    @SneakyThrows
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class RawChunk {
+
+        private final long[] lineNumbers;
+        private final String[] lines;
+        private int size;
+
+        private RawChunk(int capacity) {
+            this.lineNumbers = new long[capacity];
+            this.lines = new String[capacity];
+        }
+
+        private void add(long lineNumber, String line) {
+            lineNumbers[size] = lineNumber;
+            lines[size++] = line;
+        }
+
+        private boolean isFull() {
+            return size == lines.length;
+        }
+
+        private long lastLineNumber() {
+            return lineNumbers[size - 1];
+        }
+
+        private String line(long lineNumber) {
+            var index = Arrays.binarySearch(lineNumbers, 0, size, lineNumber);
+            return index >= 0 ? lines[index] : "";
+        }
+    }
+
+    private record ParsedChunk(RawChunk raw, List<StagedSubscription> staged, List<Rejection> rejections) {
+    }
+
+    private record Rejection(long lineNumber, List<Error> errors, String line) {
+    }
+
+    private static final class ProgressTracker {
+
+        private final ImportProgressListener listener;
+        private final long start = System.nanoTime();
+        private long linesRead;
+        private long imported;
+        private long rejected;
+
+        private ProgressTracker(ImportProgressListener listener) {
+            this.listener = listener;
+        }
+
+        private Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - start);
+        }
+
+        private ImportProgress snapshot() {
+            return new ImportProgress(linesRead, imported, rejected, elapsed());
+        }
+
+        private void report() {
+            listener.onProgress(snapshot());
+        }
+    }
+}
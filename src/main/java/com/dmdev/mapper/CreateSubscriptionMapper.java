@@ -19,10 +19,14 @@ public class CreateSubscriptionMapper implements Mapper<CreateSubscriptionDto, S
 
     @Override
     public Subscription map(CreateSubscriptionDto object) {
+        return map(object, Provider.findByNameOrNull(object.getProvider()));
+    }
+
+    public Subscription map(CreateSubscriptionDto object, Provider provider) {
         return Subscription.builder()
                 .userId(object.getUserId())
                 .name(object.getName())
-                .provider(Provider.findByNameOpt(object.getProvider()).orElse(null))
+                .provider(provider)
                 .expirationDate(object.getExpirationDate())
                 .status(Status.ACTIVE)
                 .build();
@@ -0,0 +1,18 @@
+package com.dmdev.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdderCounter implements Counter, CounterMXBean {
+
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void add(long delta) {
+        count.add(delta);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
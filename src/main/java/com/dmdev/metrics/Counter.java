@@ -0,0 +1,11 @@
+package com.dmdev.metrics;
+
+@FunctionalInterface
+public interface Counter {
+
+    void add(long delta);
+
+    default void increment() {
+        add(1);
+    }
+}
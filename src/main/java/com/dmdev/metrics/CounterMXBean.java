@@ -0,0 +1,6 @@
+package com.dmdev.metrics;
+
+public interface CounterMXBean {
+
+    long getCount();
+}
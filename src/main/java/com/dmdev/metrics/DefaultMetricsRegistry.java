@@ -0,0 +1,64 @@
+package com.dmdev.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+    private static final System.Logger log = System.getLogger(DefaultMetricsRegistry.class.getName());
+
+    private final String jmxDomain;
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+
+    public DefaultMetricsRegistry() {
+        this(null);
+    }
+
+    public DefaultMetricsRegistry(String jmxDomain) {
+        this.jmxDomain = jmxDomain;
+    }
+
+    @Override
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> register("Timer", key, new LatencyHistogram()));
+    }
+
+    @Override
+    public AdderCounter counter(String name) {
+        return counters.computeIfAbsent(name, key -> register("Counter", key, new AdderCounter()));
+    }
+
+    public Map<String, HistogramSnapshot> snapshotTimers() {
+        Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        timers.forEach((name, timer) -> snapshots.put(name, timer.snapshot()));
+        return snapshots;
+    }
+
+    public Map<String, Long> snapshotCounters() {
+        Map<String, Long> snapshots = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshots.put(name, counter.getCount()));
+        return snapshots;
+    }
+
+    private <T> T register(String type, String name, T metric) {
+        if (jmxDomain == null) {
+            return metric;
+        }
+        try {
+            var objectName = new ObjectName(jmxDomain + ":type=" + type + ",name=" + ObjectName.quote(name));
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(metric, objectName);
+        } catch (JMException e) {
+            log.log(System.Logger.Level.WARNING, "Unable to expose metric " + name + " via JMX", e);
+        }
+        return metric;
+    }
+}
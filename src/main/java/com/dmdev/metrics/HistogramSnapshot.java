@@ -0,0 +1,17 @@
+package com.dmdev.metrics;
+
+import lombok.Value;
+
+@Value
+public class HistogramSnapshot {
+    long count;
+    long totalNanos;
+    long maxNanos;
+    long p50Nanos;
+    long p99Nanos;
+    long p999Nanos;
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+}
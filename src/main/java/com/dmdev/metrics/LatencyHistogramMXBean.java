@@ -0,0 +1,16 @@
+package com.dmdev.metrics;
+
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    long getMeanNanos();
+
+    long getMaxNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+}
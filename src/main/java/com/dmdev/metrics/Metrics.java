@@ -0,0 +1,29 @@
+package com.dmdev.metrics;
+
+import com.dmdev.util.PropertiesUtil;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Metrics {
+
+    private static final String ENABLED_KEY = "metrics.enabled";
+    private static final String JMX_DOMAIN_KEY = "metrics.jmx-domain";
+
+    private static volatile MetricsRegistry registry = fromProperties();
+
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public static void setRegistry(MetricsRegistry metricsRegistry) {
+        registry = metricsRegistry;
+    }
+
+    private static MetricsRegistry fromProperties() {
+        if (!PropertiesUtil.getBoolean(ENABLED_KEY, false)) {
+            return MetricsRegistry.noop();
+        }
+        var jmxDomain = PropertiesUtil.get(JMX_DOMAIN_KEY);
+        return new DefaultMetricsRegistry(jmxDomain == null || jmxDomain.isBlank() ? null : jmxDomain);
+    }
+}
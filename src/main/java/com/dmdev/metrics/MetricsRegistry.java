@@ -0,0 +1,12 @@
+package com.dmdev.metrics;
+
+public interface MetricsRegistry {
+
+    static MetricsRegistry noop() {
+        return NoopMetricsRegistry.INSTANCE;
+    }
+
+    Timer timer(String name);
+
+    Counter counter(String name);
+}
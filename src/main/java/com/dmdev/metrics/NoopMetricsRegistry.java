@@ -0,0 +1,26 @@
+package com.dmdev.metrics;
+
+import lombok.NoArgsConstructor;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+final class NoopMetricsRegistry implements MetricsRegistry {
+
+    static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    private static final Timer TIMER = durationNanos -> {
+    };
+    private static final Counter COUNTER = delta -> {
+    };
+
+    @Override
+    public Timer timer(String name) {
+        return TIMER;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return COUNTER;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dmdev.metrics;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class OperationMetrics {
+
+    private final Timer latency;
+    private final Counter rows;
+    private final Counter errors;
+
+    public static OperationMetrics of(MetricsRegistry registry, String name) {
+        return new OperationMetrics(
+                registry.timer(name),
+                registry.counter(name + ".rows"),
+                registry.counter(name + ".errors"));
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void success(long startNanos) {
+        latency.recordSince(startNanos);
+    }
+
+    public void success(long startNanos, long rowCount) {
+        latency.recordSince(startNanos);
+        rows.add(rowCount);
+    }
+
+    public void failure(long startNanos) {
+        latency.recordSince(startNanos);
+        errors.increment();
+    }
+}
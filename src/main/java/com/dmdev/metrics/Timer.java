@@ -0,0 +1,11 @@
+package com.dmdev.metrics;
+
+@FunctionalInterface
+public interface Timer {
+
+    void record(long durationNanos);
+
+    default void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+}
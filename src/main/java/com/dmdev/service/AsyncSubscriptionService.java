@@ -0,0 +1,252 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.Counter;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.ReadYourWrites;
+import com.dmdev.util.ReadYourWritesFuture;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class AsyncSubscriptionService implements AutoCloseable {
+
+    private static final String MAX_CONCURRENCY_KEY = "subscription.async.max-concurrency";
+    private static final String QUEUE_CAPACITY_KEY = "subscription.async.queue-capacity";
+    private static final String TIMEOUT_KEY = "subscription.async.timeout-ms";
+    private static final String POOL_MAX_SIZE_KEY = "db.pool.max-size";
+
+    private final SubscriptionService subscriptionService;
+    private final SubscriptionDao subscriptionDao;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final Duration defaultTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected = Metrics.getRegistry().counter("service.subscription.async.rejected");
+    private final Counter timedOut = Metrics.getRegistry().counter("service.subscription.async.timed-out");
+
+    public AsyncSubscriptionService(SubscriptionService subscriptionService, SubscriptionDao subscriptionDao,
+                                    Executor executor, int maxConcurrency, int queueCapacity, Duration defaultTimeout) {
+        this(subscriptionService, subscriptionDao, executor, false, maxConcurrency, queueCapacity, defaultTimeout);
+    }
+
+    private AsyncSubscriptionService(SubscriptionService subscriptionService, SubscriptionDao subscriptionDao,
+                                     Executor executor, boolean ownsExecutor, int maxConcurrency, int queueCapacity,
+                                     Duration defaultTimeout) {
+        if (maxConcurrency <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive and queueCapacity non-negative");
+        }
+        this.subscriptionService = subscriptionService;
+        this.subscriptionDao = subscriptionDao;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxInFlight = maxConcurrency + queueCapacity;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public static AsyncSubscriptionService fromProperties(SubscriptionService subscriptionService,
+                                                          SubscriptionDao subscriptionDao) {
+        var maxConcurrency = PropertiesUtil.getInt(MAX_CONCURRENCY_KEY, PropertiesUtil.getInt(POOL_MAX_SIZE_KEY, 10));
+        var timeoutMillis = PropertiesUtil.getLong(TIMEOUT_KEY, 0);
+        return new AsyncSubscriptionService(
+                subscriptionService,
+                subscriptionDao,
+                defaultExecutor(maxConcurrency),
+                true,
+                maxConcurrency,
+                PropertiesUtil.getInt(QUEUE_CAPACITY_KEY, 1000),
+                timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : null);
+    }
+
+    public static ExecutorService defaultExecutor(int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            var threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(platformThreads, runnable -> {
+                var thread = new Thread(runnable, "subscription-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public CompletableFuture<Subscription> upsert(CreateSubscriptionDto dto) {
+        return upsert(dto, defaultTimeout);
+    }
+
+    public CompletableFuture<Subscription> upsert(CreateSubscriptionDto dto, Duration timeout) {
+        return submit(() -> subscriptionService.upsert(dto), timeout);
+    }
+
+    public CompletableFuture<Void> cancel(Integer subscriptionId) {
+        return cancel(subscriptionId, defaultTimeout);
+    }
+
+    public CompletableFuture<Void> cancel(Integer subscriptionId, Duration timeout) {
+        return submit(() -> {
+            subscriptionService.cancel(subscriptionId);
+            return null;
+        }, timeout);
+    }
+
+    public CompletableFuture<Void> expire(Integer subscriptionId) {
+        return expire(subscriptionId, defaultTimeout);
+    }
+
+    public CompletableFuture<Void> expire(Integer subscriptionId, Duration timeout) {
+        return submit(() -> {
+            subscriptionService.expire(subscriptionId);
+            return null;
+        }, timeout);
+    }
+
+    public CompletableFuture<Optional<Subscription>> findById(Integer id) {
+        return submit(() -> subscriptionDao.findById(id), defaultTimeout);
+    }
+
+    public CompletableFuture<List<Subscription>> findByUserId(Integer userId) {
+        return submit(() -> subscriptionDao.findByUserId(userId), defaultTimeout);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task, Duration timeout) {
+        var future = new TaskFuture<T>();
+        if (!tryAdmit()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(String.format(
+                    "Too many pending subscription operations (limit %d)", maxInFlight)));
+            return future;
+        }
+        var lastWrite = ReadYourWrites.lastWrite();
+        try {
+            executor.execute(() -> run(future, task, lastWrite));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (timeout != null) {
+            future.orTimeout(timeout.toNanos(), NANOSECONDS);
+        }
+        return future;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor && executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private boolean tryAdmit() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private <T> void run(TaskFuture<T> future, Supplier<T> task, Long lastWrite) {
+        T result = null;
+        Throwable failure = null;
+        var executed = false;
+        try {
+            if (!future.isDone()) {
+                permits.acquire();
+                try {
+                    if (future.attach(Thread.currentThread())) {
+                        executed = true;
+                        ReadYourWrites.observe(lastWrite);
+                        try {
+                            result = task.get();
+                        } finally {
+                            future.detach();
+                        }
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException | RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else if (executed) {
+            future.complete(result);
+        }
+    }
+
+    private final class TaskFuture<T> extends ReadYourWritesFuture<T> {
+
+        private Thread runner;
+
+        private synchronized boolean attach(Thread thread) {
+            if (isDone()) {
+                return false;
+            }
+            runner = thread;
+            return true;
+        }
+
+        private synchronized void detach() {
+            runner = null;
+            Thread.interrupted();
+        }
+
+        private synchronized void interruptRunner() {
+            if (runner != null && runner != Thread.currentThread()) {
+                runner.interrupt();
+            }
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            var completed = super.completeExceptionally(ex);
+            if (completed) {
+                if (ex instanceof TimeoutException) {
+                    timedOut.increment();
+                }
+                interruptRunner();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            var cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                interruptRunner();
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.dto.TransitionResult;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.TimingWheel;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class ExpirationScheduler implements SubscriptionListener, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ExpirationScheduler.class.getName());
+    private static final String TICK_KEY = "subscription.expiration-scheduler.tick-ms";
+    private static final String WINDOW_KEY = "subscription.expiration-scheduler.window-ms";
+    private static final String BATCH_SIZE_KEY = "subscription.expiration-scheduler.batch-size";
+    private static final String PAGE_SIZE_KEY = "subscription.expiration-scheduler.page-size";
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final SubscriptionService subscriptionService;
+    private final SubscriptionDao subscriptionDao;
+    private final Clock clock;
+    private final Duration tick;
+    private final Duration window;
+    private final int batchSize;
+    private final int pageSize;
+    private final TimingWheel timingWheel;
+    private final ReentrantLock tickLock = new ReentrantLock();
+    private Instant loadedUntil;
+    private ScheduledExecutorService scheduler;
+
+    public ExpirationScheduler(SubscriptionService subscriptionService, SubscriptionDao subscriptionDao, Clock clock,
+                               Duration tick, Duration window, int batchSize, int pageSize) {
+        if (batchSize <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("batchSize and pageSize must be positive");
+        }
+        this.subscriptionService = subscriptionService;
+        this.subscriptionDao = subscriptionDao;
+        this.clock = clock;
+        this.tick = tick;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.pageSize = pageSize;
+        this.timingWheel = new TimingWheel(tick.toMillis(), WHEEL_SIZE, WHEEL_LEVELS, clock.millis());
+        if (window.toMillis() >= timingWheel.getHorizonMillis()) {
+            throw new IllegalArgumentException(String.format(
+                    "window %s exceeds the timing wheel horizon of %d ms", window, timingWheel.getHorizonMillis()));
+        }
+    }
+
+    public static ExpirationScheduler fromProperties(SubscriptionService subscriptionService,
+                                                     SubscriptionDao subscriptionDao, Clock clock) {
+        return new ExpirationScheduler(
+                subscriptionService,
+                subscriptionDao,
+                clock,
+                Duration.ofMillis(PropertiesUtil.getLong(TICK_KEY, 1000)),
+                Duration.ofMillis(PropertiesUtil.getLong(WINDOW_KEY, 3_600_000)),
+                PropertiesUtil.getInt(BATCH_SIZE_KEY, 1000),
+                PropertiesUtil.getInt(PAGE_SIZE_KEY, 1000));
+    }
+
+    public int getScheduledCount() {
+        synchronized (timingWheel) {
+            return timingWheel.size();
+        }
+    }
+
+    public Instant getLoadedUntil() {
+        synchronized (timingWheel) {
+            return loadedUntil;
+        }
+    }
+
+    public int rebuild() {
+        tickLock.lock();
+        try {
+            var now = Instant.now(clock);
+            var expired = expireOverdue(now);
+            loadWindow(now, now);
+            return expired;
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    public int tick() {
+        tickLock.lock();
+        try {
+            var loadedFrom = getLoadedUntil();
+            if (loadedFrom == null) {
+                return rebuild();
+            }
+            var now = Instant.now(clock);
+            List<Integer> due;
+            synchronized (timingWheel) {
+                due = timingWheel.advance(now.toEpochMilli());
+            }
+            var expired = due.isEmpty() ? 0 : expireDue(due);
+            loadWindow(loadedFrom, now);
+            return expired;
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    @Override
+    public void onUpserted(Subscription subscription) {
+        if (subscription.getId() == null) {
+            return;
+        }
+        synchronized (timingWheel) {
+            if (loadedUntil == null) {
+                return;
+            }
+            if (subscription.getStatus() == Status.EXPIRED || !subscription.getExpirationDate().isBefore(loadedUntil)) {
+                timingWheel.cancel(subscription.getId());
+            } else {
+                timingWheel.schedule(subscription.getId(), subscription.getExpirationDate().toEpochMilli());
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Expiration scheduler is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-expiration-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tickSafely, 0, tick.toMillis(), MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void loadWindow(Instant from, Instant now) {
+        var until = now.plus(window);
+        if (until.toEpochMilli() - from.toEpochMilli() < window.toMillis() / 2) {
+            return;
+        }
+        // Published before reading, so upserts racing with the load are scheduled by onUpserted.
+        synchronized (timingWheel) {
+            loadedUntil = until;
+        }
+        var filter = SubscriptionFilter.builder()
+                .expiresFrom(from)
+                .expiresTo(until)
+                .build();
+        try {
+            String pageToken = null;
+            do {
+                var page = subscriptionDao.findPage(pageToken, pageSize, filter);
+                synchronized (timingWheel) {
+                    for (var subscription : page.getContent()) {
+                        if (subscription.getStatus() != Status.EXPIRED) {
+                            timingWheel.schedule(subscription.getId(), subscription.getExpirationDate().toEpochMilli());
+                        }
+                    }
+                }
+                pageToken = page.getNextPageToken();
+            } while (pageToken != null);
+        } catch (RuntimeException e) {
+            synchronized (timingWheel) {
+                loadedUntil = from;
+            }
+            throw e;
+        }
+    }
+
+    private int expireDue(List<Integer> due) {
+        return (int) subscriptionService.expireAll(due).stream()
+                .filter(result -> result.getOutcome() == TransitionResult.Outcome.TRANSITIONED)
+                .count();
+    }
+
+    private int expireOverdue(Instant now) {
+        var expiredCount = 0;
+        int expired;
+        do {
+            expired = subscriptionService.expireOverdue(now, batchSize);
+            expiredCount += expired;
+        } while (expired >= batchSize);
+        return expiredCount;
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.log(System.Logger.Level.ERROR, "Expiration scheduler tick failed", e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dmdev.service;
+
+import com.dmdev.dto.SweepReport;
+import com.dmdev.util.PropertiesUtil;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+@RequiredArgsConstructor
+public class ExpirationSweeper implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ExpirationSweeper.class.getName());
+    private static final String BATCH_SIZE_KEY = "subscription.sweeper.batch-size";
+    private static final String INTERVAL_KEY = "subscription.sweeper.interval-ms";
+
+    private final SubscriptionService subscriptionService;
+    private final Clock clock;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+    @Getter
+    private volatile SweepReport lastReport;
+
+    public static ExpirationSweeper fromProperties(SubscriptionService subscriptionService, Clock clock) {
+        return new ExpirationSweeper(subscriptionService, clock, PropertiesUtil.getInt(BATCH_SIZE_KEY, 1000));
+    }
+
+    public SweepReport sweep() {
+        var now = Instant.now(clock);
+        List<Duration> batchDurations = new ArrayList<>();
+        var expiredCount = 0;
+        int expired;
+        do {
+            var start = System.nanoTime();
+            expired = subscriptionService.expireOverdue(now, batchSize);
+            batchDurations.add(Duration.ofNanos(System.nanoTime() - start));
+            expiredCount += expired;
+        } while (expired >= batchSize);
+
+        var report = new SweepReport(now, expiredCount, List.copyOf(batchDurations));
+        lastReport = report;
+        log.log(System.Logger.Level.INFO, "Expired {0} subscriptions in {1} batches, took {2} ms",
+                expiredCount, batchDurations.size(), report.getTotalDuration().toMillis());
+        return report;
+    }
+
+    public synchronized void start() {
+        start(Duration.ofMillis(PropertiesUtil.getLong(INTERVAL_KEY, 60_000)));
+    }
+
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Expiration sweeper is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-expiration-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweepSafely, 0, interval.toMillis(), MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.log(System.Logger.Level.ERROR, "Expiration sweep failed", e);
+        }
+    }
+}
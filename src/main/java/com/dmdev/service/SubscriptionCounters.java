@@ -0,0 +1,195 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.PropertiesUtil;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class SubscriptionCounters implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(SubscriptionCounters.class.getName());
+    private static final String RELOAD_KEY = "subscription.counters.reload-ms";
+
+    private final Clock clock;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final ReentrantReadWriteLock generationLock = new ReentrantReadWriteLock();
+    private volatile Generation generation = new Generation();
+    private Queue<SubscriptionChange> recordedDuringReload;
+    private ScheduledExecutorService scheduler;
+
+    public SubscriptionCounters(Clock clock) {
+        this.clock = clock.withZone(SubscriptionDao.EXPIRATION_DATE_ZONE);
+    }
+
+    public static SubscriptionCounters loadFrom(SubscriptionDao subscriptionDao, Clock clock) {
+        var counters = new SubscriptionCounters(clock);
+        counters.reload(subscriptionDao);
+        return counters;
+    }
+
+    public static SubscriptionCounters fromProperties(SubscriptionDao subscriptionDao, Clock clock) {
+        var counters = loadFrom(subscriptionDao, clock);
+        counters.startReloading(subscriptionDao, Duration.ofMillis(PropertiesUtil.getLong(RELOAD_KEY, 60_000)));
+        return counters;
+    }
+
+    // Records made while the snapshot is read are replayed onto the fresh generation before it is swapped in.
+    public void reload(SubscriptionDao subscriptionDao) {
+        reloadLock.lock();
+        try {
+            Queue<SubscriptionChange> recorded = new ConcurrentLinkedQueue<>();
+            setRecordedDuringReload(recorded);
+            var reloaded = new Generation();
+            try {
+                subscriptionDao.countByStatusAndProvider(SubscriptionFilter.builder().build())
+                        .forEach(count -> reloaded.byStatusAndProvider.get(count.getStatus()).get(count.getProvider())
+                                .add(count.getCount()));
+                subscriptionDao.countByExpirationDate(SubscriptionFilter.builder()
+                                .status(Status.ACTIVE)
+                                .build())
+                        .forEach((date, count) -> reloaded.adder(date).add(count));
+            } catch (RuntimeException e) {
+                setRecordedDuringReload(null);
+                throw e;
+            }
+            generationLock.writeLock().lock();
+            try {
+                recordedDuringReload = null;
+                recorded.forEach(change -> add(reloaded, change.getBefore(), change.getAfter()));
+                generation = reloaded;
+            } finally {
+                generationLock.writeLock().unlock();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public synchronized void startReloading(SubscriptionDao subscriptionDao, Duration period) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Subscription counters are already reloading");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "subscription-counters-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> reloadSafely(subscriptionDao),
+                period.toMillis(), period.toMillis(), MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public long count(Status status, Provider provider) {
+        return generation.byStatusAndProvider.get(status).get(provider).sum();
+    }
+
+    public long count(Status status) {
+        return generation.byStatusAndProvider.get(status).values().stream()
+                .mapToLong(LongAdder::sum)
+                .sum();
+    }
+
+    public Map<Provider, Long> countByProvider(Status status) {
+        Map<Provider, Long> counts = new EnumMap<>(Provider.class);
+        generation.byStatusAndProvider.get(status).forEach((provider, adder) -> counts.put(provider, adder.sum()));
+        return counts;
+    }
+
+    public long countActiveExpiringWithinDays(int days) {
+        var today = LocalDate.now(clock);
+        return generation.activeByExpirationDate.subMap(today, today.plusDays(days)).values().stream()
+                .mapToLong(LongAdder::sum)
+                .sum();
+    }
+
+    public void record(Subscription before, Subscription after) {
+        generationLock.readLock().lock();
+        try {
+            add(generation, before, after);
+            if (recordedDuringReload != null) {
+                recordedDuringReload.add(new SubscriptionChange(before, after));
+            }
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    private void add(Generation target, Subscription before, Subscription after) {
+        if (before != null) {
+            add(target, before, -1);
+        }
+        if (after != null) {
+            add(target, after, 1);
+        }
+    }
+
+    private void add(Generation target, Subscription subscription, long delta) {
+        target.byStatusAndProvider.get(subscription.getStatus()).get(subscription.getProvider()).add(delta);
+        if (subscription.getStatus() == Status.ACTIVE) {
+            target.adder(LocalDate.ofInstant(subscription.getExpirationDate(), clock.getZone())).add(delta);
+        }
+    }
+
+    private void setRecordedDuringReload(Queue<SubscriptionChange> recorded) {
+        generationLock.writeLock().lock();
+        try {
+            recordedDuringReload = recorded;
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+    }
+
+    private void reloadSafely(SubscriptionDao subscriptionDao) {
+        try {
+            reload(subscriptionDao);
+        } catch (RuntimeException e) {
+            log.log(System.Logger.Level.ERROR, "Subscription counters reload failed", e);
+        }
+    }
+
+    private static final class Generation {
+
+        private final Map<Status, Map<Provider, LongAdder>> byStatusAndProvider = new EnumMap<>(Status.class);
+        private final ConcurrentSkipListMap<LocalDate, LongAdder> activeByExpirationDate = new ConcurrentSkipListMap<>();
+
+        private Generation() {
+            for (var status : Status.values()) {
+                Map<Provider, LongAdder> byProvider = new EnumMap<>(Provider.class);
+                for (var provider : Provider.values()) {
+                    byProvider.put(provider, new LongAdder());
+                }
+                byStatusAndProvider.put(status, byProvider);
+            }
+        }
+
+        private LongAdder adder(LocalDate date) {
+            return activeByExpirationDate.computeIfAbsent(date, key -> new LongAdder());
+        }
+    }
+}
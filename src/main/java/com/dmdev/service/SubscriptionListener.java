@@ -0,0 +1,9 @@
+package com.dmdev.service;
+
+import com.dmdev.entity.Subscription;
+
+@FunctionalInterface
+public interface SubscriptionListener {
+
+    void onUpserted(Subscription subscription);
+}
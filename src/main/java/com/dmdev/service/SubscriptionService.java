@@ -2,62 +2,456 @@ package com.dmdev.service;
 
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.TransitionResult;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.metrics.Counter;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.metrics.OperationMetrics;
+import com.dmdev.util.PropertiesUtil;
+import com.dmdev.util.Transactions;
 import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.Error;
+import com.dmdev.validator.ValidationResult;
 import lombok.RequiredArgsConstructor;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class SubscriptionService {
 
+    private static final String METRICS_PREFIX = "service.subscription.";
+    private static final Set<Status> CANCELABLE_STATUSES = EnumSet.of(Status.ACTIVE);
+    private static final Set<Status> EXPIRABLE_STATUSES = EnumSet.complementOf(EnumSet.of(Status.EXPIRED));
+    private static final List<Error> NAME_USED_BY_ANOTHER_PROVIDER =
+            List.of(Error.of(104, "name is already used by another provider"));
+    private static final int SAVE_FAILED_CODE = 105;
+
     private final SubscriptionDao subscriptionDao;
     private final CreateSubscriptionMapper createSubscriptionMapper;
     private final CreateSubscriptionValidator createSubscriptionValidator;
     private final Clock clock;
+    private final int batchSize = PropertiesUtil.getInt("db.batch-size", 500);
+    private final OperationMetrics upsertMetrics = operationMetrics("upsert");
+    private final OperationMetrics upsertAllMetrics = operationMetrics("upsert-all");
+    private final OperationMetrics cancelMetrics = operationMetrics("cancel");
+    private final OperationMetrics expireMetrics = operationMetrics("expire");
+    private final OperationMetrics cancelAllMetrics = operationMetrics("cancel-all");
+    private final OperationMetrics expireAllMetrics = operationMetrics("expire-all");
+    private final OperationMetrics expireOverdueMetrics = operationMetrics("expire-overdue");
+    private final Counter validationFailures = counter("validation-failures");
+    private final Counter rejections = counter("rejections");
+    private final Counter notFound = counter("not-found");
+    private final Map<UpsertResult.Outcome, Counter> upsertOutcomes = outcomeCounters(UpsertResult.Outcome.class, "upsert");
+    private final Map<TransitionResult.Outcome, Counter> transitionOutcomes =
+            outcomeCounters(TransitionResult.Outcome.class, "transition");
+    private final List<SubscriptionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile SubscriptionCounters counters;
+
+    public void setCounters(SubscriptionCounters counters) {
+        this.counters = counters;
+    }
+
+    public void addListener(SubscriptionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SubscriptionListener listener) {
+        listeners.remove(listener);
+    }
 
     public Subscription upsert(CreateSubscriptionDto dto) {
-        var validationResult = createSubscriptionValidator.validate(dto);
+        var start = upsertMetrics.start();
+        try {
+            var subscription = doUpsert(dto, counters);
+            upsertMetrics.success(start, 1);
+            notifyUpserted(subscription);
+            return subscription;
+        } catch (RuntimeException e) {
+            recordFailure(upsertMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public List<UpsertResult> upsertAll(List<CreateSubscriptionDto> dtos) {
+        var start = upsertAllMetrics.start();
+        try {
+            var counters = this.counters;
+            List<UpsertResult> results = new ArrayList<>(dtos.size());
+            var joined = Transactions.isActive();
+            var failed = false;
+            for (int from = 0; from < dtos.size(); from += batchSize) {
+                var chunk = dtos.subList(from, Math.min(from + batchSize, dtos.size()));
+                Map<Subscription, Subscription> changes = new IdentityHashMap<>();
+                List<UpsertResult> chunkResults = new ArrayList<>(chunk.size());
+                try {
+                    subscriptionDao.inTransaction(transaction ->
+                            doUpsertAll(chunk, chunkResults, counters != null ? changes : null));
+                } catch (Exception e) {
+                    if (joined) {
+                        throw e;
+                    }
+                    failUnsaved(chunk, chunkResults, e);
+                    results.addAll(chunkResults);
+                    failed = true;
+                    continue;
+                }
+                Transactions.afterCommit(() -> {
+                    if (counters != null) {
+                        changes.forEach((after, before) -> counters.record(before, after));
+                    }
+                    for (var result : chunkResults) {
+                        upsertOutcomes.get(result.getOutcome()).increment();
+                    }
+                });
+                results.addAll(chunkResults);
+            }
+            if (failed) {
+                upsertAllMetrics.failure(start);
+            } else {
+                upsertAllMetrics.success(start, results.size());
+            }
+            for (var result : results) {
+                if (result.getSubscription() != null) {
+                    notifyUpserted(result.getSubscription());
+                }
+            }
+            return results;
+        } catch (RuntimeException e) {
+            recordFailure(upsertAllMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public void cancel(Integer subscriptionId) {
+        cancel(subscriptionId, null);
+    }
+
+    public void cancel(Integer subscriptionId, Integer expectedVersion) {
+        var start = cancelMetrics.start();
+        try {
+            var counters = this.counters;
+            if (counters != null) {
+                var before = subscriptionDao.inTransaction(transaction -> {
+                    var current = subscriptionDao.findById(subscriptionId).orElse(null);
+                    doCancel(subscriptionId, expectedVersion);
+                    return current;
+                });
+                if (before != null) {
+                    recordTransition(counters, before, Status.CANCELED, before.getExpirationDate());
+                }
+            } else {
+                doCancel(subscriptionId, expectedVersion);
+            }
+            cancelMetrics.success(start, 1);
+        } catch (RuntimeException e) {
+            recordFailure(cancelMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public void expire(Integer subscriptionId) {
+        expire(subscriptionId, null);
+    }
+
+    public void expire(Integer subscriptionId, Integer expectedVersion) {
+        var start = expireMetrics.start();
+        try {
+            var counters = this.counters;
+            if (counters != null) {
+                var expiredAt = Instant.now(clock);
+                var before = subscriptionDao.inTransaction(transaction -> {
+                    var current = subscriptionDao.findById(subscriptionId).orElse(null);
+                    doExpire(subscriptionId, expectedVersion, expiredAt);
+                    return current;
+                });
+                if (before != null) {
+                    recordTransition(counters, before, Status.EXPIRED, expiredAt);
+                }
+            } else {
+                doExpire(subscriptionId, expectedVersion, Instant.now(clock));
+            }
+            expireMetrics.success(start, 1);
+        } catch (RuntimeException e) {
+            recordFailure(expireMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public List<TransitionResult> cancelAll(Collection<Integer> subscriptionIds) {
+        var start = cancelAllMetrics.start();
+        try {
+            var ids = new LinkedHashSet<>(subscriptionIds);
+            var changes = subscriptionDao.cancelAll(ids);
+            recordChanges(counters, changes);
+            var results = collectTransitionResults(ids, changes, SubscriptionService::cancelRejectionMessage);
+            recordTransitions(cancelAllMetrics, start, results);
+            return results;
+        } catch (RuntimeException e) {
+            recordFailure(cancelAllMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public List<TransitionResult> expireAll(Collection<Integer> subscriptionIds) {
+        var start = expireAllMetrics.start();
+        try {
+            var ids = new LinkedHashSet<>(subscriptionIds);
+            var changes = subscriptionDao.expireAll(ids, Instant.now(clock));
+            recordChanges(counters, changes);
+            var results = collectTransitionResults(ids, changes, SubscriptionService::expireRejectionMessage);
+            recordTransitions(expireAllMetrics, start, results);
+            return results;
+        } catch (RuntimeException e) {
+            recordFailure(expireAllMetrics, start, e);
+            throw e;
+        }
+    }
+
+    public int expireOverdue(Instant now, int limit) {
+        var start = expireOverdueMetrics.start();
+        try {
+            var changes = subscriptionDao.expireOverdue(now, limit);
+            recordChanges(counters, changes);
+            transitionOutcomes.get(TransitionResult.Outcome.TRANSITIONED).add(changes.size());
+            expireOverdueMetrics.success(start, changes.size());
+            return changes.size();
+        } catch (RuntimeException e) {
+            recordFailure(expireOverdueMetrics, start, e);
+            throw e;
+        }
+    }
+
+    private Subscription doUpsert(CreateSubscriptionDto dto, SubscriptionCounters counters) {
+        var provider = Provider.findByNameOrNull(dto.getProvider());
+        var validationResult = createSubscriptionValidator.validate(dto, provider);
         if (validationResult.hasErrors()) {
             throw new ValidationException(validationResult.getErrors());
         }
 
-        Subscription subscription = subscriptionDao.findByUserId(dto.getUserId()).stream()
-                .filter(existingSubscription -> existingSubscription.getName().equals(dto.getName()))
-                .filter(existingSubscription -> existingSubscription.getProvider() == Provider.findByName(dto.getProvider()))
-                .findFirst()
-                .map(existingSubscription -> existingSubscription
-                        .setExpirationDate(dto.getExpirationDate())
-                        .setStatus(Status.ACTIVE))
-                .orElseGet(() -> createSubscriptionMapper.map(dto));
+        var subscription = createSubscriptionMapper.map(dto, provider);
+        if (counters == null) {
+            return subscriptionDao.upsertByUserIdAndName(subscription)
+                    .orElseThrow(() -> anotherProvider(dto));
+        }
+        var change = subscriptionDao.upsertChangeByUserIdAndName(subscription)
+                .orElseThrow(() -> anotherProvider(dto));
+        counters.record(change.getBefore(), change.getAfter());
+        return change.getAfter();
+    }
 
-        return subscriptionDao.upsert(subscription);
+    private SubscriptionException anotherProvider(CreateSubscriptionDto dto) {
+        return new SubscriptionException(String.format(
+                "Subscription %s of user %d belongs to another provider", dto.getName(), dto.getUserId()));
     }
 
-    public void cancel(Integer subscriptionId) {
-        var subscription = subscriptionDao.findById(subscriptionId)
-                .orElseThrow(IllegalArgumentException::new);
-        if (subscription.getStatus() != Status.ACTIVE) {
-            throw new SubscriptionException(String.format("Only active subscription %d can be canceled", subscriptionId));
+    private List<UpsertResult> doUpsertAll(List<CreateSubscriptionDto> dtos, List<UpsertResult> results,
+                                           Map<Subscription, Subscription> changes) {
+        var providers = new Provider[dtos.size()];
+        var validationResults = new ValidationResult[dtos.size()];
+        Set<Integer> userIds = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            providers[i] = Provider.findByNameOrNull(dtos.get(i).getProvider());
+            validationResults[i] = createSubscriptionValidator.validate(dtos.get(i), providers[i]);
+            if (!validationResults[i].hasErrors()) {
+                userIds.add(dtos.get(i).getUserId());
+            }
+        }
+        Map<SubscriptionKey, Subscription> subscriptions = subscriptionDao.findByUserIds(userIds).stream()
+                .collect(Collectors.toMap(SubscriptionKey::of, subscription -> subscription, (first, second) -> first, HashMap::new));
+
+        List<Subscription> toInsert = new ArrayList<>();
+        List<Subscription> toUpdate = new ArrayList<>();
+        Set<Integer> updatedIds = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            var dto = dtos.get(i);
+            var validationResult = validationResults[i];
+            if (validationResult.hasErrors()) {
+                results.add(UpsertResult.failed(dto, validationResult.getErrors()));
+                continue;
+            }
+
+            var key = new SubscriptionKey(dto.getUserId(), dto.getName());
+            var subscription = subscriptions.get(key);
+            if (subscription == null) {
+                subscription = createSubscriptionMapper.map(dto, providers[i]);
+                subscriptions.put(key, subscription);
+                if (changes != null) {
+                    changes.put(subscription, null);
+                }
+                toInsert.add(subscription);
+                results.add(UpsertResult.created(dto, subscription));
+            } else if (subscription.getProvider() != providers[i]) {
+                results.add(UpsertResult.failed(dto, NAME_USED_BY_ANOTHER_PROVIDER));
+            } else {
+                if (changes != null && !changes.containsKey(subscription)) {
+                    changes.put(subscription, subscription.toBuilder().build());
+                }
+                subscription.setExpirationDate(dto.getExpirationDate())
+                        .setStatus(Status.ACTIVE);
+                if (subscription.getId() == null) {
+                    results.add(UpsertResult.created(dto, subscription));
+                } else {
+                    if (updatedIds.add(subscription.getId())) {
+                        toUpdate.add(subscription);
+                    }
+                    results.add(UpsertResult.updated(dto, subscription));
+                }
+            }
         }
-        subscription.setStatus(Status.CANCELED);
-        subscriptionDao.update(subscription);
+
+        subscriptionDao.insertAll(toInsert);
+        subscriptionDao.updateAll(toUpdate);
+        return results;
     }
 
-    public void expire(Integer subscriptionId) {
-        var subscription = subscriptionDao.findById(subscriptionId)
-                .orElseThrow(IllegalArgumentException::new);
-        if (subscription.getStatus() == Status.EXPIRED) {
-            throw new SubscriptionException(String.format("Subscription %d has already expired", subscriptionId));
-        }
-        subscription.setStatus(Status.EXPIRED);
-        subscription.setExpirationDate(Instant.now(clock));
-        subscriptionDao.update(subscription);
+    private void failUnsaved(List<CreateSubscriptionDto> dtos, List<UpsertResult> results, Exception cause) {
+        var errors = List.of(Error.of(SAVE_FAILED_CODE, "subscription could not be saved: " + cause.getMessage()));
+        for (int i = 0; i < dtos.size(); i++) {
+            if (i == results.size()) {
+                results.add(UpsertResult.failed(dtos.get(i), errors));
+            } else if (results.get(i).getOutcome() != UpsertResult.Outcome.FAILED) {
+                results.set(i, UpsertResult.failed(dtos.get(i), errors));
+            }
+        }
+    }
+
+    private void doCancel(Integer subscriptionId, Integer expectedVersion) {
+        if (!subscriptionDao.compareAndSetStatus(subscriptionId, CANCELABLE_STATUSES, Status.CANCELED, null, expectedVersion)) {
+            throw rejectTransition(subscriptionId, expectedVersion, cancelRejectionMessage(subscriptionId));
+        }
+    }
+
+    private void doExpire(Integer subscriptionId, Integer expectedVersion, Instant expiredAt) {
+        if (!subscriptionDao.compareAndSetStatus(subscriptionId, EXPIRABLE_STATUSES, Status.EXPIRED, expiredAt, expectedVersion)) {
+            throw rejectTransition(subscriptionId, expectedVersion, expireRejectionMessage(subscriptionId));
+        }
+    }
+
+    private List<TransitionResult> collectTransitionResults(Set<Integer> ids, List<SubscriptionChange> changes,
+                                                            IntFunction<String> rejectionMessage) {
+        var transitioned = changes.stream()
+                .map(change -> change.getAfter().getId())
+                .collect(Collectors.toSet());
+        var remaining = ids.stream()
+                .filter(id -> !transitioned.contains(id))
+                .toList();
+        var existing = new HashSet<>(subscriptionDao.findExistingIds(remaining));
+
+        List<TransitionResult> results = new ArrayList<>(ids.size());
+        for (var id : ids) {
+            if (transitioned.contains(id)) {
+                results.add(TransitionResult.transitioned(id));
+            } else if (existing.contains(id)) {
+                results.add(TransitionResult.rejected(id, rejectionMessage.apply(id)));
+            } else {
+                results.add(TransitionResult.notFound(id));
+            }
+        }
+        return results;
+    }
+
+    private RuntimeException rejectTransition(Integer subscriptionId, Integer expectedVersion, String message) {
+        var subscription = subscriptionDao.findById(subscriptionId);
+        if (subscription.isEmpty()) {
+            return new IllegalArgumentException();
+        }
+        var actualVersion = subscription.get().getVersion();
+        if (expectedVersion != null && !expectedVersion.equals(actualVersion)) {
+            return new SubscriptionException(String.format(
+                    "Subscription %d was modified concurrently: expected version %d but was %d",
+                    subscriptionId, expectedVersion, actualVersion));
+        }
+        return new SubscriptionException(message);
+    }
+
+    private void recordChanges(SubscriptionCounters counters, List<SubscriptionChange> changes) {
+        if (counters != null) {
+            changes.forEach(change -> counters.record(change.getBefore(), change.getAfter()));
+        }
+    }
+
+    private void recordTransition(SubscriptionCounters counters, Subscription before, Status newStatus,
+                                  Instant expirationDate) {
+        counters.record(before, before.toBuilder()
+                .status(newStatus)
+                .expirationDate(expirationDate)
+                .build());
+    }
+
+    private void notifyUpserted(Subscription subscription) {
+        for (var listener : listeners) {
+            listener.onUpserted(subscription);
+        }
+    }
+
+    private void recordFailure(OperationMetrics metrics, long start, RuntimeException e) {
+        metrics.failure(start);
+        if (e instanceof ValidationException) {
+            validationFailures.increment();
+        } else if (e instanceof SubscriptionException) {
+            rejections.increment();
+        } else if (e instanceof IllegalArgumentException) {
+            notFound.increment();
+        }
+    }
+
+    private void recordTransitions(OperationMetrics metrics, long start, List<TransitionResult> results) {
+        for (var result : results) {
+            transitionOutcomes.get(result.getOutcome()).increment();
+        }
+        metrics.success(start, results.size());
+    }
+
+    private static OperationMetrics operationMetrics(String operation) {
+        return OperationMetrics.of(Metrics.getRegistry(), METRICS_PREFIX + operation);
+    }
+
+    private static Counter counter(String name) {
+        return Metrics.getRegistry().counter(METRICS_PREFIX + name);
+    }
+
+    private static <E extends Enum<E>> Map<E, Counter> outcomeCounters(Class<E> outcomeType, String operation) {
+        Map<E, Counter> counters = new EnumMap<>(outcomeType);
+        for (var outcome : outcomeType.getEnumConstants()) {
+            counters.put(outcome, counter(operation + "." + outcome.name().toLowerCase().replace('_', '-')));
+        }
+        return counters;
+    }
+
+    private static String cancelRejectionMessage(int subscriptionId) {
+        return String.format("Only active subscription %d can be canceled", subscriptionId);
+    }
+
+    private static String expireRejectionMessage(int subscriptionId) {
+        return String.format("Subscription %d has already expired", subscriptionId);
+    }
+
+    private record SubscriptionKey(Integer userId, String name) {
+
+        private static SubscriptionKey of(Subscription subscription) {
+            return new SubscriptionKey(subscription.getUserId(), subscription.getName());
+        }
     }
 }
@@ -1,21 +1,33 @@
 package com.dmdev.util;
 
+import com.dmdev.metrics.Counter;
+import com.dmdev.metrics.Metrics;
+import com.dmdev.metrics.Timer;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
 
 @UtilityClass
 public class ConnectionManager {
 
-    private static final String URL_KEY = "db.url";
-    private static final String USER_KEY = "db.user";
-    private static final String PASSWORD_KEY = "db.password";
+    private static final String PREFIX = "db";
     private static final String DRIVER_KEY = "db.driver";
+    private static final String MIGRATE_KEY = "db.migrate";
+
+    private static final ReplicaRouter router;
+    private static final Timer acquireTimer = Metrics.getRegistry().timer("db.connection.acquire");
+    private static final Counter acquireErrors = Metrics.getRegistry().counter("db.connection.acquire.errors");
 
     static {
         loadDriver();
+        router = initRouter();
+        if (PropertiesUtil.getBoolean(MIGRATE_KEY, false)) {
+            SchemaMigrator.migrate(router.getPrimary()::acquire);
+        }
     }
 
     @SneakyThrows
@@ -23,11 +35,44 @@ public class ConnectionManager {
         Class.forName(PropertiesUtil.get(DRIVER_KEY));
     }
 
-    @SneakyThrows
+    private static ReplicaRouter initRouter() {
+        var replicaRouter = ReplicaRouter.fromProperties(PREFIX);
+        Runtime.getRuntime().addShutdownHook(new Thread(replicaRouter::close, "connection-pool-shutdown"));
+        return replicaRouter;
+    }
+
     public static Connection get() {
-        return DriverManager.getConnection(
-                PropertiesUtil.get(URL_KEY),
-                PropertiesUtil.get(USER_KEY),
-                PropertiesUtil.get(PASSWORD_KEY));
+        return acquire(false);
+    }
+
+    public static Connection getForRead() {
+        return acquire(true);
+    }
+
+    public static Optional<PoolMetrics> getPoolMetrics() {
+        return router.getPrimary().getMetrics();
+    }
+
+    public static Map<String, PoolMetrics> getReplicaPoolMetrics() {
+        return router.getReplicaMetrics();
+    }
+
+    @SneakyThrows
+    private static Connection acquire(boolean read) {
+        var transaction = Transactions.current();
+        if (transaction.isPresent()) {
+            return transaction.get().getConnection();
+        }
+        var start = System.nanoTime();
+        try {
+            var connection = read
+                    ? router.acquireForRead()
+                    : router.acquireForWrite();
+            acquireTimer.recordSince(start);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            acquireErrors.increment();
+            throw e;
+        }
     }
 }
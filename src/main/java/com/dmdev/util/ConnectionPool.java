@@ -0,0 +1,294 @@
+package com.dmdev.util;
+
+import lombok.Getter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ConnectionPool.class.getName());
+
+    @Getter
+    private final PoolConfig config;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Lease, Boolean> leases = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireTimeNanos = new LongAdder();
+    private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final StatementCache.Counters statementCacheCounters = new StatementCache.Counters();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    public ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+        warmUp();
+        this.leakDetector = config.getLeakDetectionThreshold().isZero()
+                ? null
+                : startLeakDetector();
+    }
+
+    public Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool " + config.getName() + " is closed");
+        }
+        var start = System.nanoTime();
+        awaitPermit();
+        try {
+            var lease = new Lease(takeValidConnection());
+            var proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+            leases.put(lease, Boolean.TRUE);
+            recordAcquire(System.nanoTime() - start);
+            return proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getActiveCount() {
+        return leases.size() + waiting.get();
+    }
+
+    public PoolMetrics getMetrics() {
+        var idleCount = idle.size();
+        return new PoolMetrics(
+                leases.size(),
+                idleCount,
+                waiting.get(),
+                total.get(),
+                acquireCount.sum(),
+                acquireTimeNanos.sum(),
+                maxAcquireTimeNanos.get(),
+                timeoutCount.sum(),
+                leakCount.sum(),
+                statementCacheCounters.hits.sum(),
+                statementCacheCounters.misses.sum(),
+                statementCacheCounters.evictions.sum());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closePhysical(connection);
+        }
+    }
+
+    private void warmUp() {
+        try {
+            for (int i = 0; i < config.getMinSize(); i++) {
+                idle.offerLast(openPhysical());
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Unable to warm up connection pool " + config.getName(), e);
+        }
+    }
+
+    private void awaitPermit() throws SQLException {
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeout().toNanos(), NANOSECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTransientConnectionException(String.format(
+                        "Connection pool %s exhausted: no connection available within %d ms (active=%d, max=%d)",
+                        config.getName(), config.getAcquireTimeout().toMillis(), leases.size(), config.getMaxSize()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isValid(connection)) {
+                return connection;
+            }
+            closePhysical(connection);
+        }
+        return openPhysical();
+    }
+
+    private boolean isValid(PooledConnection connection) {
+        try {
+            return connection.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        var connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+        total.incrementAndGet();
+        return new PooledConnection(connection,
+                new StatementCache(connection, config.getStatementCacheSize(), statementCacheCounters));
+    }
+
+    private void closePhysical(PooledConnection connection) {
+        total.decrementAndGet();
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            log.log(System.Logger.Level.DEBUG, "Failed to close pooled connection", e);
+        }
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        var connection = lease.pooled;
+        try {
+            if (closed || connection.physical.isClosed()) {
+                closePhysical(connection);
+            } else {
+                connection.statementCache.releaseAll();
+                resetState(connection.physical);
+                idle.offerFirst(connection);
+            }
+        } catch (SQLException e) {
+            closePhysical(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void resetState(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        if (connection.isReadOnly()) {
+            connection.setReadOnly(false);
+        }
+        connection.clearWarnings();
+    }
+
+    private void recordAcquire(long elapsedNanos) {
+        acquireCount.increment();
+        acquireTimeNanos.add(elapsedNanos);
+        maxAcquireTimeNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    private ScheduledExecutorService startLeakDetector() {
+        var executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "connection-pool-leak-detector-" + config.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        var period = Math.max(config.getLeakDetectionThreshold().toMillis() / 2, 100);
+        executor.scheduleAtFixedRate(this::detectLeaks, period, period, MILLISECONDS);
+        return executor;
+    }
+
+    private void detectLeaks() {
+        var threshold = config.getLeakDetectionThreshold().toNanos();
+        var now = System.nanoTime();
+        for (var lease : leases.keySet()) {
+            if (!lease.leakReported && now - lease.borrowedAt > threshold) {
+                lease.leakReported = true;
+                leakCount.increment();
+                log.log(System.Logger.Level.WARNING,
+                        "Connection leak detected in pool " + config.getName()
+                        + ": connection held for more than " + config.getLeakDetectionThreshold().toMillis() + " ms",
+                        lease.origin);
+            }
+        }
+    }
+
+    private static boolean isCacheablePrepare(Method method, Object[] args) {
+        if (!"prepareStatement".equals(method.getName())) {
+            return false;
+        }
+        var parameterTypes = method.getParameterTypes();
+        return parameterTypes.length == 1
+               || parameterTypes.length == 2 && parameterTypes[1] == int.class;
+    }
+
+    private record PooledConnection(Connection physical, StatementCache statementCache) {
+    }
+
+    private final class Lease implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final Connection physical;
+        private final long borrowedAt = System.nanoTime();
+        private final Throwable origin = leakDetector != null
+                ? new Throwable("Connection acquired here")
+                : null;
+        private volatile boolean leakReported;
+        private volatile boolean released;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.physical = pooled.physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    if (isCacheablePrepare(method, args)) {
+                        return pooled.statementCache.prepare((String) args[0],
+                                args.length == 1 ? Statement.NO_GENERATED_KEYS : (int) args[1]);
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
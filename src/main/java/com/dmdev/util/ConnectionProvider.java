@@ -0,0 +1,28 @@
+package com.dmdev.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionProvider {
+
+    static ConnectionProvider managed() {
+        return new ConnectionProvider() {
+            @Override
+            public Connection get() {
+                return ConnectionManager.get();
+            }
+
+            @Override
+            public Connection getForRead() {
+                return ConnectionManager.getForRead();
+            }
+        };
+    }
+
+    Connection get() throws SQLException;
+
+    default Connection getForRead() throws SQLException {
+        return get();
+    }
+}
@@ -0,0 +1,54 @@
+package com.dmdev.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Optional;
+
+public class ConnectionSource implements AutoCloseable {
+
+    private static final String POOL_ENABLED_KEY = ".pool.enabled";
+
+    private final PoolConfig config;
+    private final ConnectionPool pool;
+
+    public ConnectionSource(PoolConfig config, boolean pooled) {
+        this.config = config;
+        this.pool = pooled ? new ConnectionPool(config) : null;
+    }
+
+    public static ConnectionSource fromProperties(String prefix) {
+        return new ConnectionSource(
+                PoolConfig.fromProperties(prefix),
+                PropertiesUtil.getBoolean(prefix + POOL_ENABLED_KEY, false));
+    }
+
+    public String getName() {
+        return config.getName();
+    }
+
+    public String getUrl() {
+        return config.getUrl();
+    }
+
+    public Connection acquire() throws SQLException {
+        return pool != null
+                ? pool.acquire()
+                : DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+    }
+
+    public int getActiveCount() {
+        return pool != null ? pool.getActiveCount() : 0;
+    }
+
+    public Optional<PoolMetrics> getMetrics() {
+        return Optional.ofNullable(pool).map(ConnectionPool::getMetrics);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+}
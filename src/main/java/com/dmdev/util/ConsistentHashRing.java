@@ -0,0 +1,68 @@
+package com.dmdev.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ConsistentHashRing<T> {
+
+    private final int virtualNodes;
+    private final Map<String, T> nodes;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(int virtualNodes) {
+        this(virtualNodes, Map.of());
+    }
+
+    private ConsistentHashRing(int virtualNodes, Map<String, T> nodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        for (var name : nodes.keySet()) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                ring.put(mix((long) name.hashCode() << 32 | replica), name);
+            }
+        }
+    }
+
+    public ConsistentHashRing<T> withNode(String name, T node) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Node " + name + " is already on the ring");
+        }
+        Map<String, T> updated = new LinkedHashMap<>(nodes);
+        updated.put(name, node);
+        return new ConsistentHashRing<>(virtualNodes, updated);
+    }
+
+    public ConsistentHashRing<T> withoutNode(String name) {
+        Map<String, T> updated = new LinkedHashMap<>(nodes);
+        updated.remove(name);
+        return new ConsistentHashRing<>(virtualNodes, updated);
+    }
+
+    public T route(long key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("Hash ring has no nodes");
+        }
+        var entry = ring.ceilingEntry(mix(key));
+        return nodes.get(entry != null ? entry.getValue() : ring.firstEntry().getValue());
+    }
+
+    public Collection<T> getNodes() {
+        return nodes.values();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,122 @@
+package com.dmdev.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Function<V, ? extends Collection<?>> indexKeys;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final Map<Object, Set<K>> index = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long generation;
+
+    public LruCache(int maxSize, Duration ttl, Clock clock) {
+        this(maxSize, ttl, clock, value -> List.of());
+    }
+
+    public LruCache(int maxSize, Duration ttl, Clock clock, Function<V, ? extends Collection<?>> indexKeys) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.indexKeys = indexKeys;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= LruCache.this.maxSize) {
+                    return false;
+                }
+                evictions.increment();
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        var entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            remove(key);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void putIfNotInvalidatedSince(K key, V value, long expectedGeneration) {
+        if (generation == expectedGeneration && maxSize > 0) {
+            remove(key);
+            var entry = new Entry<>(value, clock.millis() + ttlMillis);
+            for (var indexKey : indexKeys.apply(value)) {
+                index.computeIfAbsent(indexKey, ignored -> new HashSet<>()).add(key);
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+    }
+
+    public synchronized void invalidateByIndex(Object indexKey) {
+        generation++;
+        var keys = index.remove(indexKey);
+        if (keys != null) {
+            List.copyOf(keys).forEach(this::remove);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        index.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void remove(K key) {
+        var entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(K key, Entry<V> entry) {
+        for (var indexKey : indexKeys.apply(entry.value)) {
+            var keys = index.get(indexKey);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
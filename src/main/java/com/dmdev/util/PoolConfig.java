@@ -0,0 +1,59 @@
+package com.dmdev.util;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class PoolConfig {
+
+    private static final String URL_KEY = ".url";
+    private static final String USER_KEY = ".user";
+    private static final String PASSWORD_KEY = ".password";
+    private static final String MIN_SIZE_KEY = ".pool.min-size";
+    private static final String MAX_SIZE_KEY = ".pool.max-size";
+    private static final String ACQUIRE_TIMEOUT_KEY = ".pool.acquire-timeout-ms";
+    private static final String VALIDATION_TIMEOUT_KEY = ".pool.validation-timeout-s";
+    private static final String LEAK_DETECTION_THRESHOLD_KEY = ".pool.leak-detection-threshold-ms";
+    private static final String STATEMENT_CACHE_SIZE_KEY = ".pool.statement-cache-size";
+
+    String name;
+    String url;
+    String user;
+    String password;
+    @Builder.Default
+    int minSize = 2;
+    @Builder.Default
+    int maxSize = 10;
+    @Builder.Default
+    Duration acquireTimeout = Duration.ofSeconds(5);
+    @Builder.Default
+    int validationTimeoutSeconds = 2;
+    @Builder.Default
+    Duration leakDetectionThreshold = Duration.ZERO;
+    @Builder.Default
+    int statementCacheSize = 0;
+
+    public static PoolConfig fromProperties(String prefix) {
+        var minSize = PropertiesUtil.getInt(prefix + MIN_SIZE_KEY, 2);
+        var maxSize = PropertiesUtil.getInt(prefix + MAX_SIZE_KEY, Math.max(minSize, 10));
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalStateException(String.format(
+                    "Invalid pool size for %s: min-size=%d, max-size=%d", prefix, minSize, maxSize));
+        }
+        return PoolConfig.builder()
+                .name(prefix)
+                .url(PropertiesUtil.get(prefix + URL_KEY))
+                .user(PropertiesUtil.get(prefix + USER_KEY))
+                .password(PropertiesUtil.get(prefix + PASSWORD_KEY))
+                .minSize(minSize)
+                .maxSize(maxSize)
+                .acquireTimeout(Duration.ofMillis(PropertiesUtil.getLong(prefix + ACQUIRE_TIMEOUT_KEY, 5000)))
+                .validationTimeoutSeconds(PropertiesUtil.getInt(prefix + VALIDATION_TIMEOUT_KEY, 2))
+                .leakDetectionThreshold(Duration.ofMillis(PropertiesUtil.getLong(prefix + LEAK_DETECTION_THRESHOLD_KEY, 0)))
+                .statementCacheSize(PropertiesUtil.getInt(prefix + STATEMENT_CACHE_SIZE_KEY, 0))
+                .build();
+    }
+}
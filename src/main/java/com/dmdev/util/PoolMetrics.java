@@ -0,0 +1,28 @@
+package com.dmdev.util;
+
+import lombok.Value;
+
+@Value
+public class PoolMetrics {
+    int active;
+    int idle;
+    int waiting;
+    int total;
+    long acquireCount;
+    long acquireTimeNanos;
+    long maxAcquireTimeNanos;
+    long timeoutCount;
+    long leakCount;
+    long statementCacheHits;
+    long statementCacheMisses;
+    long statementCacheEvictions;
+
+    public double getAverageAcquireTimeNanos() {
+        return acquireCount == 0 ? 0 : (double) acquireTimeNanos / acquireCount;
+    }
+
+    public double getStatementCacheHitRatio() {
+        var lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+}
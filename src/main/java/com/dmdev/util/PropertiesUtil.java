@@ -22,6 +22,32 @@ public class PropertiesUtil {
     }
 
     public static String get(String key) {
-        return properties.getProperty(key);
+        return System.getProperty(key, properties.getProperty(key));
+    }
+
+    public static String get(String key, String defaultValue) {
+        var value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        var value = get(key);
+        return value == null || value.isBlank()
+                ? defaultValue
+                : Integer.parseInt(value.trim());
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        var value = get(key);
+        return value == null || value.isBlank()
+                ? defaultValue
+                : Long.parseLong(value.trim());
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        var value = get(key);
+        return value == null || value.isBlank()
+                ? defaultValue
+                : Boolean.parseBoolean(value.trim());
     }
 }
@@ -0,0 +1,43 @@
+package com.dmdev.util;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    public static void recordWrite() {
+        LAST_WRITE.set(System.nanoTime());
+    }
+
+    public static Long lastWrite() {
+        return LAST_WRITE.get();
+    }
+
+    public static void observe(Long writtenAt) {
+        if (writtenAt == null) {
+            return;
+        }
+        var current = LAST_WRITE.get();
+        if (current == null || writtenAt - current > 0) {
+            LAST_WRITE.set(writtenAt);
+        }
+    }
+
+    static boolean isWithin(long windowNanos) {
+        var lastWrite = LAST_WRITE.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < windowNanos) {
+            return true;
+        }
+        LAST_WRITE.remove();
+        return false;
+    }
+
+    static void clear() {
+        LAST_WRITE.remove();
+    }
+}
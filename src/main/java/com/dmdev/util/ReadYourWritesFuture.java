@@ -0,0 +1,63 @@
+package com.dmdev.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ReadYourWritesFuture<T> extends CompletableFuture<T> {
+
+    private final ReadYourWritesFuture<?> source;
+    private volatile Long writtenAt;
+
+    public ReadYourWritesFuture() {
+        this(null);
+    }
+
+    private ReadYourWritesFuture(ReadYourWritesFuture<?> source) {
+        this.source = source;
+    }
+
+    @Override
+    public boolean complete(T value) {
+        writtenAt = ReadYourWrites.lastWrite();
+        return super.complete(value);
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        var result = super.get();
+        ReadYourWrites.observe(getWrittenAt());
+        return result;
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        var result = super.get(timeout, unit);
+        ReadYourWrites.observe(getWrittenAt());
+        return result;
+    }
+
+    @Override
+    public T join() {
+        var result = super.join();
+        ReadYourWrites.observe(getWrittenAt());
+        return result;
+    }
+
+    @Override
+    public T getNow(T valueIfAbsent) {
+        var result = super.getNow(valueIfAbsent);
+        ReadYourWrites.observe(getWrittenAt());
+        return result;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new ReadYourWritesFuture<>(this);
+    }
+
+    private Long getWrittenAt() {
+        return source != null ? source.getWrittenAt() : writtenAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.dmdev.util;
+
+import java.util.Locale;
+
+public enum ReplicaBalancing {
+    ROUND_ROBIN, LEAST_LOADED;
+
+    public static ReplicaBalancing fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,124 @@
+package com.dmdev.util;
+
+import com.dmdev.metrics.Counter;
+import com.dmdev.metrics.Metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReplicaRouter implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(ReplicaRouter.class.getName());
+    private static final String REPLICAS_KEY = ".replicas";
+    private static final String BALANCING_KEY = ".replicas.balancing";
+    private static final String READ_YOUR_WRITES_KEY = ".replicas.read-your-writes-ms";
+    private static final String REPLICA_PREFIX = ".replica.";
+
+    private final ConnectionSource primary;
+    private final List<ConnectionSource> replicas;
+    private final ReplicaBalancing balancing;
+    private final long readYourWritesNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter replicaReads = Metrics.getRegistry().counter("db.replica.reads");
+    private final Counter replicaFallbacks = Metrics.getRegistry().counter("db.replica.fallbacks");
+
+    public ReplicaRouter(ConnectionSource primary, List<ConnectionSource> replicas, ReplicaBalancing balancing,
+                         Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+    }
+
+    public static ReplicaRouter fromProperties(String prefix) {
+        List<ConnectionSource> replicas = new ArrayList<>();
+        var names = PropertiesUtil.get(prefix + REPLICAS_KEY);
+        if (names != null && !names.isBlank()) {
+            Arrays.stream(names.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .forEach(name -> replicas.add(ConnectionSource.fromProperties(prefix + REPLICA_PREFIX + name)));
+        }
+        var balancing = PropertiesUtil.get(prefix + BALANCING_KEY);
+        return new ReplicaRouter(
+                ConnectionSource.fromProperties(prefix),
+                replicas,
+                balancing == null ? ReplicaBalancing.ROUND_ROBIN : ReplicaBalancing.fromProperty(balancing),
+                Duration.ofMillis(PropertiesUtil.getLong(prefix + READ_YOUR_WRITES_KEY, 1000)));
+    }
+
+    public ConnectionSource getPrimary() {
+        return primary;
+    }
+
+    public List<ConnectionSource> getReplicas() {
+        return replicas;
+    }
+
+    public Connection acquireForWrite() throws SQLException {
+        ReadYourWrites.recordWrite();
+        return primary.acquire();
+    }
+
+    public Connection acquireForRead() throws SQLException {
+        if (replicas.isEmpty() || ReadYourWrites.isWithin(readYourWritesNanos)) {
+            return primary.acquire();
+        }
+        var replica = chooseReplica();
+        try {
+            var connection = replica.acquire();
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            replicaFallbacks.increment();
+            log.log(System.Logger.Level.WARNING, "Replica " + replica.getName() + " is unavailable, reading from primary", e);
+            return primary.acquire();
+        }
+    }
+
+    public Map<String, PoolMetrics> getReplicaMetrics() {
+        Map<String, PoolMetrics> metrics = new LinkedHashMap<>();
+        for (var replica : replicas) {
+            replica.getMetrics().ifPresent(replicaMetrics -> metrics.put(replica.getName(), replicaMetrics));
+        }
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(ConnectionSource::close);
+        primary.close();
+    }
+
+    private ConnectionSource chooseReplica() {
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+        return switch (balancing) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            case LEAST_LOADED -> leastLoaded();
+        };
+    }
+
+    private ConnectionSource leastLoaded() {
+        var offset = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        var chosen = replicas.get(offset);
+        var minActive = chosen.getActiveCount();
+        for (int i = 1; i < replicas.size() && minActive > 0; i++) {
+            var candidate = replicas.get((offset + i) % replicas.size());
+            var active = candidate.getActiveCount();
+            if (active < minActive) {
+                chosen = candidate;
+                minActive = active;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,183 @@
+package com.dmdev.util;
+
+import com.dmdev.dao.SqlDialect;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+@UtilityClass
+public class SchemaMigrator {
+
+    private static final String LOCATION = "db/migration/";
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__create_subscription.sql",
+            "V2__add_subscription_version.sql",
+            "V3__add_subscription_status_expiration_date_index.sql",
+            "V4__add_subscription_expiration_date_index.sql");
+    // CREATE INDEX CONCURRENTLY does not block writes but cannot run inside a transaction block.
+    private static final Set<String> NON_TRANSACTIONAL = Set.of(
+            "V3__add_subscription_status_expiration_date_index.sql",
+            "V4__add_subscription_expiration_date_index.sql");
+    private static final Pattern CONCURRENTLY = Pattern.compile("\\s+CONCURRENTLY\\b", Pattern.CASE_INSENSITIVE);
+    private static final String CREATE_HISTORY_SQL = """
+            CREATE TABLE IF NOT EXISTS schema_version
+            (
+                version INT PRIMARY KEY,
+                script VARCHAR(128) NOT NULL,
+                applied_at TIMESTAMP NOT NULL
+            )
+            """;
+    private static final String IS_APPLIED_SQL = "SELECT 1 FROM schema_version WHERE version = ?";
+    private static final String SAVE_APPLIED_SQL = "INSERT INTO schema_version (version, script, applied_at) VALUES (?, ?, ?)";
+    private static final String UNIQUE_VIOLATION = "23505";
+    // Arbitrary application-wide key shared by every migrator running against the same database.
+    private static final long ADVISORY_LOCK_KEY = 7_310_912_003L;
+    private static final String ADVISORY_LOCK_SQL = "SELECT pg_advisory_lock(?)";
+    private static final String ADVISORY_UNLOCK_SQL = "SELECT pg_advisory_unlock(?)";
+    // H2 commits on every DDL statement, so a lock row would be released mid-script; embedded databases live in
+    // this JVM, so a process-wide lock serializes their migrators instead.
+    private static final ReentrantLock EMBEDDED_LOCK = new ReentrantLock();
+
+    @SneakyThrows
+    public static int migrate(ConnectionProvider connectionProvider) {
+        try (var connection = connectionProvider.get()) {
+            return migrate(connection);
+        }
+    }
+
+    public static int migrate(Connection connection) throws SQLException {
+        var dialect = SqlDialect.fromUrl(connection.getMetaData().getURL());
+        var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        lock(connection, dialect);
+        try {
+            try (var statement = connection.createStatement()) {
+                statement.execute(CREATE_HISTORY_SQL);
+            }
+            connection.setAutoCommit(false);
+            var count = 0;
+            for (var script : MIGRATIONS) {
+                if (apply(connection, dialect, versionOf(script), script)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            connection.setAutoCommit(true);
+            unlock(connection, dialect);
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void lock(Connection connection, SqlDialect dialect) throws SQLException {
+        if (dialect == SqlDialect.POSTGRES) {
+            callAdvisoryLock(connection, ADVISORY_LOCK_SQL);
+        } else {
+            EMBEDDED_LOCK.lock();
+        }
+    }
+
+    private static void unlock(Connection connection, SqlDialect dialect) throws SQLException {
+        if (dialect == SqlDialect.POSTGRES) {
+            callAdvisoryLock(connection, ADVISORY_UNLOCK_SQL);
+        } else {
+            EMBEDDED_LOCK.unlock();
+        }
+    }
+
+    private static void callAdvisoryLock(Connection connection, String sql) throws SQLException {
+        try (var preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setLong(1, ADVISORY_LOCK_KEY);
+            preparedStatement.executeQuery().close();
+        }
+    }
+
+    private static boolean apply(Connection connection, SqlDialect dialect, int version, String script)
+            throws SQLException {
+        var statements = statementsOf(script, dialect);
+        try {
+            if (isApplied(connection, version)) {
+                connection.commit();
+                return false;
+            }
+            if (NON_TRANSACTIONAL.contains(script)) {
+                // Each statement commits on its own; a failed concurrent build is dropped by the script on retry.
+                connection.setAutoCommit(true);
+                try {
+                    execute(connection, statements);
+                } finally {
+                    connection.setAutoCommit(false);
+                }
+            } else {
+                execute(connection, statements);
+            }
+            try (var preparedStatement = connection.prepareStatement(SAVE_APPLIED_SQL)) {
+                preparedStatement.setInt(1, version);
+                preparedStatement.setString(2, script);
+                preparedStatement.setTimestamp(3, Timestamp.from(Instant.now()));
+                preparedStatement.executeUpdate();
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                // Another migrator recorded this version first; the scripts are idempotent, so it is applied.
+                return false;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private static void execute(Connection connection, List<String> statements) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            for (var sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static boolean isApplied(Connection connection, int version) throws SQLException {
+        try (var preparedStatement = connection.prepareStatement(IS_APPLIED_SQL)) {
+            preparedStatement.setInt(1, version);
+            try (var resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private static List<String> statementsOf(String script, SqlDialect dialect) {
+        try (var inputStream = SchemaMigrator.class.getClassLoader().getResourceAsStream(LOCATION + script)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Migration script not found: " + script);
+            }
+            return Arrays.stream(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).split(";"))
+                    .map(String::trim)
+                    .filter(sql -> !sql.isEmpty())
+                    // H2 has no concurrent index builds; its plain CREATE INDEX is the closest equivalent.
+                    .map(sql -> dialect == SqlDialect.H2 ? CONCURRENTLY.matcher(sql).replaceAll("") : sql)
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int versionOf(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+}
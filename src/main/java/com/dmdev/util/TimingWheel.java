@@ -0,0 +1,121 @@
+package com.dmdev.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelSpans;
+    private final List<List<ArrayDeque<Entry>>> slots;
+    private final Map<Integer, Long> deadlines = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive, wheelSize at least 2 and levels positive");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelSpans = new long[levels + 1];
+        this.levelSpans[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            levelSpans[level] = Math.multiplyExact(levelSpans[level - 1], wheelSize);
+        }
+        this.slots = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<ArrayDeque<Entry>> levelSlots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                levelSlots.add(new ArrayDeque<>());
+            }
+            slots.add(levelSlots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public long getHorizonMillis() {
+        return levelSpans[slots.size()] * tickMillis;
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    public boolean schedule(int id, long deadlineMillis) {
+        var deadlineTick = deadlineMillis / tickMillis + 1;
+        if (deadlineTick - currentTick >= levelSpans[slots.size()]) {
+            deadlines.remove(id);
+            return false;
+        }
+        deadlines.put(id, deadlineMillis);
+        place(new Entry(id, deadlineMillis, Math.max(deadlineTick, currentTick + 1)), null);
+        return true;
+    }
+
+    public boolean cancel(int id) {
+        return deadlines.remove(id) != null;
+    }
+
+    public List<Integer> advance(long nowMillis) {
+        List<Integer> due = new ArrayList<>();
+        var targetTick = nowMillis / tickMillis;
+        if (deadlines.isEmpty()) {
+            clear();
+            currentTick = Math.max(currentTick, targetTick);
+            return due;
+        }
+        List<Entry> ready = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = slots.size() - 1; level > 0; level--) {
+                if (currentTick % levelSpans[level] == 0) {
+                    var cascaded = slots.get(level).get(slotIndex(currentTick, level));
+                    for (int i = cascaded.size(); i > 0; i--) {
+                        place(cascaded.poll(), ready);
+                    }
+                }
+            }
+            ready.addAll(slots.get(0).get(slotIndex(currentTick, 0)));
+            slots.get(0).get(slotIndex(currentTick, 0)).clear();
+            for (var entry : ready) {
+                if (deadlines.remove(entry.id(), entry.deadlineMillis())) {
+                    due.add(entry.id());
+                }
+            }
+            ready.clear();
+        }
+        return due;
+    }
+
+    private void place(Entry entry, List<Entry> ready) {
+        var delta = entry.tick() - currentTick;
+        if (delta <= 0) {
+            ready.add(entry);
+            return;
+        }
+        var level = 0;
+        while (delta >= levelSpans[level + 1]) {
+            level++;
+        }
+        slots.get(level).get(slotIndex(entry.tick(), level)).add(entry);
+    }
+
+    private int slotIndex(long tick, int level) {
+        return (int) (tick / levelSpans[level] % wheelSize);
+    }
+
+    private void clear() {
+        for (var level : slots) {
+            for (var slot : level) {
+                slot.clear();
+            }
+        }
+    }
+
+    private record Entry(int id, long deadlineMillis, long tick) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.dmdev.util;
+
+import lombok.Getter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class Transaction {
+
+    private static final System.Logger log = System.getLogger(Transaction.class.getName());
+
+    private static final Set<String> OWNER_ONLY_METHODS =
+            Set.of("close", "commit", "rollback", "setAutoCommit", "setTransactionIsolation", "setReadOnly");
+
+    @Getter
+    private final IsolationLevel isolation;
+    @Getter
+    private final Connection connection;
+    @Getter
+    private boolean rollbackOnly;
+    private final List<Consumer<Boolean>> completionCallbacks = new ArrayList<>();
+
+    Transaction(Connection owner, IsolationLevel isolation) {
+        this.isolation = isolation;
+        this.connection = participant(owner);
+    }
+
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public void afterCompletion(Consumer<Boolean> callback) {
+        completionCallbacks.add(callback);
+    }
+
+    public void afterCommit(Runnable callback) {
+        afterCompletion(committed -> {
+            if (committed) {
+                callback.run();
+            }
+        });
+    }
+
+    void complete(boolean committed) {
+        for (var callback : completionCallbacks) {
+            try {
+                callback.accept(committed);
+            } catch (RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Transaction completion callback failed", e);
+            }
+        }
+        completionCallbacks.clear();
+    }
+
+    private static Connection participant(Connection owner) {
+        return (Connection) Proxy.newProxyInstance(
+                Transaction.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (OWNER_ONLY_METHODS.contains(method.getName()) && !isSavepointRollback(args)) {
+                        return null;
+                    }
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Transactional[" + owner + "]";
+                        default:
+                            try {
+                                return method.invoke(owner, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static boolean isSavepointRollback(Object[] args) {
+        return args != null && args.length == 1 && args[0] instanceof Savepoint;
+    }
+}
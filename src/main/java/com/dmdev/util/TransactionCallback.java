@@ -0,0 +1,9 @@
+package com.dmdev.util;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    T doInTransaction(Transaction transaction) throws SQLException;
+}
@@ -0,0 +1,85 @@
+package com.dmdev.util;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+
+@UtilityClass
+public class Transactions {
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    public static <T> T inTransaction(TransactionCallback<T> callback) {
+        return inTransaction(IsolationLevel.DEFAULT, callback);
+    }
+
+    @SneakyThrows
+    public static <T> T inTransaction(IsolationLevel isolation, TransactionCallback<T> callback) {
+        var current = CURRENT.get();
+        if (current != null) {
+            return callback.doInTransaction(current);
+        }
+        Transaction transaction = null;
+        var committed = false;
+        try (var connection = ConnectionManager.get()) {
+            var previousIsolation = connection.getTransactionIsolation();
+            if (isolation != IsolationLevel.DEFAULT) {
+                connection.setTransactionIsolation(isolation.getLevel());
+            }
+            connection.setAutoCommit(false);
+            transaction = new Transaction(connection, isolation);
+            CURRENT.set(transaction);
+            try {
+                var result = callback.doInTransaction(transaction);
+                if (transaction.isRollbackOnly()) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+                    committed = true;
+                }
+                return result;
+            } catch (Throwable e) {
+                rollback(connection, e);
+                throw e;
+            } finally {
+                CURRENT.remove();
+                connection.setAutoCommit(true);
+                if (isolation != IsolationLevel.DEFAULT) {
+                    connection.setTransactionIsolation(previousIsolation);
+                }
+            }
+        } finally {
+            if (transaction != null) {
+                transaction.complete(committed);
+            }
+        }
+    }
+
+    public static void afterCommit(Runnable action) {
+        var current = CURRENT.get();
+        if (current != null) {
+            current.afterCommit(action);
+        } else {
+            action.run();
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static Optional<Transaction> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    private static void rollback(Connection connection, Throwable cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -2,17 +2,24 @@ package com.dmdev.validator;
 
 import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
-import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Clock;
 import java.time.Instant;
 
-import static lombok.AccessLevel.PRIVATE;
-
-@NoArgsConstructor(access = PRIVATE)
+@RequiredArgsConstructor
 public class CreateSubscriptionValidator implements Validator<CreateSubscriptionDto> {
 
-    private static final CreateSubscriptionValidator INSTANCE = new CreateSubscriptionValidator();
+    private static final CreateSubscriptionValidator INSTANCE = new CreateSubscriptionValidator(Clock.systemUTC(), false);
+
+    private static final Error INVALID_USER_ID = Error.of(100, "userId is invalid");
+    private static final Error INVALID_NAME = Error.of(101, "name is invalid");
+    private static final Error INVALID_PROVIDER = Error.of(102, "provider is invalid");
+    private static final Error INVALID_EXPIRATION_DATE = Error.of(103, "expirationDate is invalid");
+
+    private final Clock clock;
+    private final boolean failFast;
 
     public static CreateSubscriptionValidator getInstance() {
         return INSTANCE;
@@ -20,19 +27,39 @@ public class CreateSubscriptionValidator implements Validator<CreateSubscription
 
     @Override
     public ValidationResult validate(CreateSubscriptionDto object) {
-        var validationResult = new ValidationResult();
+        return validate(object, Provider.findByNameOrNull(object.getProvider()));
+    }
+
+    public ValidationResult validate(CreateSubscriptionDto object, Provider provider) {
+        var validationResult = ValidationResult.success();
         if (object.getUserId() == null) {
-            validationResult.add(Error.of(100, "userId is invalid"));
+            validationResult = validationResult.withError(INVALID_USER_ID);
+            if (failFast) {
+                return validationResult;
+            }
         }
         if (StringUtils.isBlank(object.getName())) {
-            validationResult.add(Error.of(101, "name is invalid"));
+            validationResult = validationResult.withError(INVALID_NAME);
+            if (failFast) {
+                return validationResult;
+            }
         }
-        if (Provider.findByNameOpt(object.getProvider()).isEmpty()) {
-            validationResult.add(Error.of(102, "provider is invalid"));
+        if (provider == null) {
+            validationResult = validationResult.withError(INVALID_PROVIDER);
+            if (failFast) {
+                return validationResult;
+            }
         }
-        if (object.getExpirationDate() == null || object.getExpirationDate().isBefore(Instant.now())) {
-            validationResult.add(Error.of(103, "expirationDate is invalid"));
+        if (object.getExpirationDate() == null || isBefore(object.getExpirationDate(), clock.millis())) {
+            validationResult = validationResult.withError(INVALID_EXPIRATION_DATE);
         }
         return validationResult;
     }
+
+    private static boolean isBefore(Instant instant, long epochMilli) {
+        var epochSecond = Math.floorDiv(epochMilli, 1000);
+        return instant.getEpochSecond() < epochSecond
+               || instant.getEpochSecond() == epochSecond
+                  && instant.getNano() < Math.floorMod(epochMilli, 1000) * 1_000_000;
+    }
 }
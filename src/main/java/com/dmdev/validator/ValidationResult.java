@@ -1,17 +1,31 @@
 package com.dmdev.validator;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class ValidationResult {
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ValidationResult {
+
+    private static final ValidationResult SUCCESS = new ValidationResult(List.of());
 
     @Getter
-    private final List<Error> errors = new ArrayList<>();
+    private final List<Error> errors;
+
+    public static ValidationResult success() {
+        return SUCCESS;
+    }
+
+    public static ValidationResult of(Error... errors) {
+        return errors.length == 0 ? SUCCESS : new ValidationResult(List.of(errors));
+    }
 
-    public void add(Error error) {
-        this.errors.add(error);
+    public ValidationResult withError(Error error) {
+        var result = errors.toArray(new Error[errors.size() + 1]);
+        result[errors.size()] = error;
+        return new ValidationResult(List.of(result));
     }
 
     public boolean hasErrors() {
@@ -0,0 +1,2 @@
+DROP INDEX CONCURRENTLY IF EXISTS subscription_status_expiration_date_idx;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS subscription_status_expiration_date_idx ON subscription (status, expiration_date);
@@ -0,0 +1,2 @@
+DROP INDEX CONCURRENTLY IF EXISTS subscription_expiration_date_idx;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS subscription_expiration_date_idx ON subscription (expiration_date);
@@ -0,0 +1,186 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.IsolationLevel;
+import com.dmdev.util.TransactionCallback;
+import com.dmdev.util.Transactions;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingSubscriptionDaoTest {
+
+    @Mock
+    private SubscriptionDao delegate;
+    @Mock
+    private Clock clock;
+    private CachingSubscriptionDao cachingSubscriptionDao;
+
+    @BeforeEach
+    void init() {
+        cachingSubscriptionDao = new CachingSubscriptionDao(delegate, 2, Duration.ofMinutes(1), clock);
+    }
+
+    @Test
+    void findByIdShouldHitCacheOnSecondCall() {
+        var subscription = getSubscription(1, 1);
+        doReturn(Optional.of(subscription)).when(delegate).findById(1);
+
+        cachingSubscriptionDao.findById(1);
+        var actualResult = cachingSubscriptionDao.findById(1);
+
+        assertThat(actualResult).contains(subscription);
+        verify(delegate, times(1)).findById(1);
+        assertThat(cachingSubscriptionDao.getByIdStats().getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldRunTransactionsOnDelegate() {
+        TransactionCallback<String> callback = transaction -> "done";
+        doReturn("delegated").when(delegate).inTransaction(callback);
+        doReturn("isolated").when(delegate).inTransaction(IsolationLevel.SERIALIZABLE, callback);
+
+        assertThat(cachingSubscriptionDao.inTransaction(callback)).isEqualTo("delegated");
+        assertThat(cachingSubscriptionDao.inTransaction(IsolationLevel.SERIALIZABLE, callback)).isEqualTo("isolated");
+    }
+
+    @Test
+    void shouldNotExposeCachedInstanceToMutation() {
+        doReturn(Optional.of(getSubscription(1, 1))).when(delegate).findById(1);
+
+        cachingSubscriptionDao.findById(1).get().setStatus(Status.CANCELED);
+        var actualResult = cachingSubscriptionDao.findById(1);
+
+        assertThat(actualResult.get().getStatus()).isEqualTo(Status.ACTIVE);
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        doReturn(Optional.of(getSubscription(1, 1))).when(delegate).findById(1);
+        doReturn(0L, 0L, Duration.ofMinutes(2).toMillis()).when(clock).millis();
+
+        cachingSubscriptionDao.findById(1);
+        cachingSubscriptionDao.findById(1);
+        cachingSubscriptionDao.findById(1);
+
+        verify(delegate, times(2)).findById(1);
+    }
+
+    @Test
+    void updateShouldInvalidateIdAndUserEntries() {
+        var subscription = getSubscription(1, 1);
+        doReturn(Optional.of(subscription)).when(delegate).findById(1);
+        doReturn(List.of(subscription)).when(delegate).findByUserId(1);
+        cachingSubscriptionDao.findById(1);
+        cachingSubscriptionDao.findByUserId(1);
+
+        cachingSubscriptionDao.update(getSubscription(1, 1).setStatus(Status.CANCELED));
+        cachingSubscriptionDao.findById(1);
+        cachingSubscriptionDao.findByUserId(1);
+
+        verify(delegate, times(2)).findById(1);
+        verify(delegate, times(2)).findByUserId(1);
+    }
+
+    @Test
+    void deleteShouldInvalidateUserEntryContainingId() {
+        var subscription = getSubscription(1, 1);
+        doReturn(List.of(subscription)).when(delegate).findByUserId(1);
+        cachingSubscriptionDao.findByUserId(1);
+
+        cachingSubscriptionDao.delete(1);
+        cachingSubscriptionDao.findByUserId(1);
+
+        verify(delegate, times(2)).findByUserId(1);
+    }
+
+    @Test
+    void cancelAllShouldInvalidateOnlyUserEntriesContainingIds() {
+        doReturn(List.of(getSubscription(1, 1))).when(delegate).findByUserId(1);
+        doReturn(List.of(getSubscription(2, 2))).when(delegate).findByUserId(2);
+        cachingSubscriptionDao.findByUserId(1);
+        cachingSubscriptionDao.findByUserId(2);
+
+        cachingSubscriptionDao.cancelAll(List.of(2));
+        cachingSubscriptionDao.findByUserId(1);
+        cachingSubscriptionDao.findByUserId(2);
+
+        verify(delegate, times(1)).findByUserId(1);
+        verify(delegate, times(2)).findByUserId(2);
+    }
+
+    @Test
+    void upsertShouldInvalidateUserEntry() {
+        var subscription = getSubscription(1, 1);
+        doReturn(List.of(subscription)).when(delegate).findByUserId(1);
+        doReturn(Optional.of(subscription)).when(delegate).upsertByUserIdAndName(subscription);
+        cachingSubscriptionDao.findByUserId(1);
+
+        cachingSubscriptionDao.upsertByUserIdAndName(subscription);
+        cachingSubscriptionDao.findByUserId(1);
+
+        verify(delegate, times(2)).findByUserId(1);
+    }
+
+    @Test
+    void shouldNotServeRowCachedByConcurrentReaderBeforeCommit() throws Exception {
+        var committed = getSubscription(1, 1);
+        var updated = getSubscription(1, 1).setStatus(Status.CANCELED);
+        doReturn(Optional.of(committed)).when(delegate).findById(1);
+
+        Transactions.inTransaction(transaction -> {
+            cachingSubscriptionDao.update(updated);
+            var reader = CompletableFuture.supplyAsync(() -> cachingSubscriptionDao.findById(1));
+            assertThat(reader.join()).contains(committed);
+            doReturn(Optional.of(updated)).when(delegate).findById(1);
+            return null;
+        });
+        var actualResult = cachingSubscriptionDao.findById(1);
+
+        assertThat(actualResult).contains(updated);
+        verify(delegate, times(2)).findById(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntry() {
+        doReturn(Optional.of(getSubscription(1, 1))).when(delegate).findById(1);
+        doReturn(Optional.of(getSubscription(2, 1))).when(delegate).findById(2);
+        doReturn(Optional.of(getSubscription(3, 1))).when(delegate).findById(3);
+
+        cachingSubscriptionDao.findById(1);
+        cachingSubscriptionDao.findById(2);
+        cachingSubscriptionDao.findById(3);
+        cachingSubscriptionDao.findById(1);
+
+        verify(delegate, times(2)).findById(1);
+        assertThat(cachingSubscriptionDao.getByIdStats().getEvictions()).isEqualTo(2);
+    }
+
+    private Subscription getSubscription(Integer id, Integer userId) {
+        return Subscription.builder()
+                .id(id)
+                .userId(userId)
+                .name("testName")
+                .provider(Provider.APPLE)
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
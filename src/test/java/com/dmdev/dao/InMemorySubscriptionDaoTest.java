@@ -0,0 +1,180 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemorySubscriptionDaoTest {
+
+    private static final Instant EXPIRATION_DATE = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+
+    private final InMemorySubscriptionDao subscriptionDao = new InMemorySubscriptionDao();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldInsertAndFindByUserId() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE));
+        subscriptionDao.insert(getSubscription(2, "name2", Provider.APPLE));
+
+        var actualResult = subscriptionDao.findByUserId(1);
+
+        assertThat(subscription.getId()).isNotNull();
+        assertThat(subscription.getVersion()).isZero();
+        assertThat(actualResult).containsExactly(subscription);
+        assertThat(actualResult.get(0)).isNotSameAs(subscription);
+    }
+
+    @Test
+    void shouldEnforceUniqueUserIdAndName() {
+        subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE));
+
+        assertThrows(SQLIntegrityConstraintViolationException.class,
+                () -> subscriptionDao.insert(getSubscription(1, "name1", Provider.GOOGLE)));
+        var updated = subscriptionDao.insert(getSubscription(1, "name2", Provider.APPLE));
+        assertThrows(SQLIntegrityConstraintViolationException.class,
+                () -> subscriptionDao.update(updated.setName("name1")));
+        assertThat(subscriptionDao.findByUserId(1)).hasSize(2);
+    }
+
+    @Test
+    void shouldUpsertByUserIdAndNameUnlessProviderDiffers() {
+        var inserted = subscriptionDao.upsertByUserIdAndName(getSubscription(1, "name1", Provider.APPLE));
+        var updated = subscriptionDao.upsertByUserIdAndName(getSubscription(1, "name1", Provider.APPLE)
+                .setStatus(Status.CANCELED));
+        var conflicting = subscriptionDao.upsertByUserIdAndName(getSubscription(1, "name1", Provider.GOOGLE));
+
+        assertThat(inserted).isPresent();
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getId()).isEqualTo(inserted.get().getId());
+        assertThat(updated.get().getVersion()).isEqualTo(1);
+        assertThat(updated.get().getStatus()).isEqualTo(Status.CANCELED);
+        assertThat(conflicting).isEmpty();
+    }
+
+    @Test
+    void shouldCountMatchingSubscriptions() {
+        subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE));
+        subscriptionDao.insert(getSubscription(1, "name2", Provider.GOOGLE));
+        subscriptionDao.insert(getSubscription(2, "name1", Provider.APPLE).setStatus(Status.CANCELED));
+        var all = SubscriptionFilter.builder().build();
+
+        assertThat(subscriptionDao.count(all)).isEqualTo(3);
+        assertThat(subscriptionDao.count(SubscriptionFilter.builder().userId(1).build())).isEqualTo(2);
+        assertThat(subscriptionDao.countByStatusAndProvider(all)).containsExactlyInAnyOrder(
+                new SubscriptionCount(Status.ACTIVE, Provider.APPLE, 1),
+                new SubscriptionCount(Status.ACTIVE, Provider.GOOGLE, 1),
+                new SubscriptionCount(Status.CANCELED, Provider.APPLE, 1));
+        assertThat(subscriptionDao.countByExpirationDate(SubscriptionFilter.builder().status(Status.ACTIVE).build()))
+                .containsExactly(Map.entry(LocalDate.ofInstant(EXPIRATION_DATE, SubscriptionDao.EXPIRATION_DATE_ZONE), 2L));
+    }
+
+    @Test
+    void shouldExpireOverdueUsingStatusIndex() {
+        var overdue = subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE)
+                .setExpirationDate(Instant.now().minus(1, ChronoUnit.DAYS)));
+        var canceledOverdue = subscriptionDao.insert(getSubscription(2, "name2", Provider.APPLE)
+                .setExpirationDate(Instant.now().minus(1, ChronoUnit.DAYS))
+                .setStatus(Status.CANCELED));
+        var active = subscriptionDao.insert(getSubscription(3, "name3", Provider.APPLE));
+
+        var actualResult = subscriptionDao.expireOverdue(Instant.now(), 10);
+
+        assertThat(actualResult).extracting(change -> change.getBefore().getStatus())
+                .containsExactlyInAnyOrder(Status.ACTIVE, Status.CANCELED);
+        assertThat(subscriptionDao.findById(overdue.getId())).get().extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+        assertThat(subscriptionDao.findById(canceledOverdue.getId())).get().extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+        assertThat(subscriptionDao.findById(active.getId())).get().extracting(Subscription::getStatus).isEqualTo(Status.ACTIVE);
+        assertThat(subscriptionDao.findOverdueIds(Instant.now())).isEmpty();
+    }
+
+    @Test
+    void shouldCompareAndSetStatusWithVersion() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE));
+
+        assertFalse(subscriptionDao.compareAndSetStatus(subscription.getId(), EnumSet.of(Status.ACTIVE), Status.CANCELED, null, 5));
+        assertTrue(subscriptionDao.compareAndSetStatus(subscription.getId(), EnumSet.of(Status.ACTIVE), Status.CANCELED, null, 0));
+        assertThat(subscriptionDao.cancelAll(List.of(subscription.getId()))).isEmpty();
+        assertThat(subscriptionDao.findById(subscription.getId())).get().extracting(Subscription::getVersion).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepNewerVersionOnPut() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1", Provider.APPLE));
+        var stale = subscription.toBuilder().build();
+        subscriptionDao.put(subscription.toBuilder().status(Status.CANCELED).version(1).build());
+
+        subscriptionDao.put(stale);
+
+        assertThat(subscriptionDao.findById(subscription.getId())).get()
+                .extracting(Subscription::getStatus, Subscription::getVersion)
+                .containsExactly(Status.CANCELED, 1);
+    }
+
+    @Test
+    void shouldPageWithFilter() {
+        for (int i = 0; i < 5; i++) {
+            subscriptionDao.insert(getSubscription(i, "name" + i, i % 2 == 0 ? Provider.APPLE : Provider.GOOGLE));
+        }
+        var filter = SubscriptionFilter.builder().provider(Provider.APPLE).build();
+
+        var firstPage = subscriptionDao.findPage(null, 2, filter);
+        var secondPage = subscriptionDao.findPage(firstPage.getNextPageToken(), 2, filter);
+
+        assertThat(firstPage.getContent()).extracting(Subscription::getUserId).containsExactly(0, 2);
+        assertThat(secondPage.getContent()).extracting(Subscription::getUserId).containsExactly(4);
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void shouldKeepUniqueIdsAndIndexesUnderConcurrentUpserts() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(CompletableFuture.runAsync(() -> IntStream.range(0, 500).forEach(i ->
+                    subscriptionDao.upsertByUserIdAndName(getSubscription(i % 50, "name" + i % 100, Provider.APPLE))), executor));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        var subscriptions = subscriptionDao.findAll();
+        assertThat(subscriptions).hasSize(100);
+        assertThat(new HashSet<>(subscriptions.stream().map(Subscription::getId).toList())).hasSize(100);
+        assertThat(IntStream.range(0, 50).map(userId -> subscriptionDao.findByUserId(userId).size()).sum()).isEqualTo(100);
+        assertThat(subscriptions.stream().mapToInt(Subscription::getVersion).sum()).isEqualTo(8 * 500 - 100);
+    }
+
+    private Subscription getSubscription(Integer userId, String name, Provider provider) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(EXPIRATION_DATE)
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.metrics.DefaultMetricsRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class InstrumentedSubscriptionDaoTest {
+
+    @Mock
+    private SubscriptionDao delegate;
+    private DefaultMetricsRegistry registry;
+    private InstrumentedSubscriptionDao instrumentedSubscriptionDao;
+
+    @BeforeEach
+    void init() {
+        registry = new DefaultMetricsRegistry();
+        instrumentedSubscriptionDao = new InstrumentedSubscriptionDao(delegate, registry);
+    }
+
+    @Test
+    void shouldRecordLatencyAndRows() {
+        doReturn(List.of(getSubscription(1), getSubscription(2))).when(delegate).findByUserId(1);
+
+        var actualResult = instrumentedSubscriptionDao.findByUserId(1);
+
+        assertThat(actualResult).hasSize(2);
+        assertThat(registry.snapshotTimers().get("dao.subscription.find-by-user-id").getCount()).isEqualTo(1);
+        assertThat(registry.snapshotCounters()).containsEntry("dao.subscription.find-by-user-id.rows", 2L);
+    }
+
+    @Test
+    void shouldCountErrors() {
+        doThrow(new IllegalStateException()).when(delegate).findById(1);
+
+        assertThrows(IllegalStateException.class, () -> instrumentedSubscriptionDao.findById(1));
+
+        assertThat(registry.snapshotCounters()).containsEntry("dao.subscription.find-by-id.errors", 1L);
+        assertThat(registry.snapshotTimers().get("dao.subscription.find-by-id").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordStreamRowsOnClose() {
+        doReturn(Stream.of(getSubscription(1), getSubscription(2), getSubscription(3))).when(delegate).streamAll();
+
+        try (var stream = instrumentedSubscriptionDao.streamAll()) {
+            assertThat(stream.toList()).hasSize(3);
+        }
+
+        assertThat(registry.snapshotCounters()).containsEntry("dao.subscription.stream-all.rows", 3L);
+    }
+
+    @Test
+    void shouldDelegateEmptyLookups() {
+        doReturn(Optional.empty()).when(delegate).findById(1);
+
+        assertThat(instrumentedSubscriptionDao.findById(1)).isEmpty();
+        assertThat(registry.snapshotCounters()).containsEntry("dao.subscription.find-by-id.rows", 0L);
+    }
+
+    private Subscription getSubscription(Integer id) {
+        return Subscription.builder()
+                .id(id)
+                .userId(1)
+                .name("name" + id)
+                .provider(Provider.APPLE)
+                .expirationDate(Instant.now())
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.util.Transactions;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShadowSubscriptionDaoIT extends IntegrationTestBase {
+
+    private final SubscriptionDao database = SubscriptionDao.getInstance();
+
+    @Test
+    void shouldServeReadsFromWarmedUpShadow() {
+        var existing = database.insert(getSubscription(1, "name1"));
+        var shadowSubscriptionDao = ShadowSubscriptionDao.warmedUp(database);
+
+        database.delete(existing.getId());
+
+        assertThat(shadowSubscriptionDao.findById(existing.getId())).contains(existing);
+    }
+
+    @Test
+    void shouldMirrorWritesIntoShadow() {
+        var shadow = new InMemorySubscriptionDao();
+        var shadowSubscriptionDao = new ShadowSubscriptionDao(database, shadow);
+
+        var inserted = shadowSubscriptionDao.insert(getSubscription(1, "name1"));
+        var upserted = shadowSubscriptionDao.upsertByUserIdAndName(getSubscription(1, "name2")).orElseThrow();
+        shadowSubscriptionDao.cancelAll(List.of(inserted.getId()));
+        shadowSubscriptionDao.expireAll(List.of(upserted.getId()), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+        assertThat(shadow.findByUserId(1)).containsExactlyElementsOf(database.findByUserId(1));
+        assertThat(shadow.findById(inserted.getId())).get().extracting(Subscription::getStatus).isEqualTo(Status.CANCELED);
+        assertThat(shadow.findById(upserted.getId())).get().extracting(Subscription::getStatus).isEqualTo(Status.EXPIRED);
+
+        shadowSubscriptionDao.delete(inserted.getId());
+
+        assertThat(shadow.findExistingIds(List.of(inserted.getId()))).isEmpty();
+    }
+
+    @Test
+    void shouldNotMirrorWritesOfRolledBackTransaction() {
+        var shadow = new InMemorySubscriptionDao();
+        var shadowSubscriptionDao = new ShadowSubscriptionDao(database, shadow);
+
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(transaction -> {
+            var inserted = shadowSubscriptionDao.insert(getSubscription(1, "name1"));
+            assertThat(shadowSubscriptionDao.findById(inserted.getId())).isPresent();
+            throw new IllegalStateException("rollback");
+        }));
+
+        assertThat(shadow.findAll()).isEmpty();
+        assertThat(database.findAll()).isEmpty();
+    }
+
+    @Test
+    void shouldRefreshOverdueSubscriptionsAfterExpiring() {
+        var shadowSubscriptionDao = new ShadowSubscriptionDao(database, new InMemorySubscriptionDao());
+        var overdue = shadowSubscriptionDao.insert(getSubscription(1, "name1")
+                .setExpirationDate(Instant.now().minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS)));
+
+        assertThat(shadowSubscriptionDao.expireOverdue(Instant.now(), 10)).hasSize(1);
+
+        assertThat(shadowSubscriptionDao.findById(overdue.getId())).get()
+                .extracting(Subscription::getStatus, Subscription::getVersion)
+                .containsExactly(Status.EXPIRED, 1);
+    }
+
+    private Subscription getSubscription(Integer userId, String name) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(Provider.APPLE)
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
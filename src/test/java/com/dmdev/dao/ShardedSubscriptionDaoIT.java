@@ -0,0 +1,245 @@
+package com.dmdev.dao;
+
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.util.ConnectionSource;
+import com.dmdev.util.PoolConfig;
+import com.dmdev.util.Transactions;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedSubscriptionDaoIT {
+
+    private static final int ID_STRIDE = 8;
+    private static final String CREATE_SQL = """
+            CREATE TABLE IF NOT EXISTS subscription
+            (
+                id INT AUTO_INCREMENT PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date DATETIME NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                version INT NOT NULL DEFAULT 0 ,
+                UNIQUE (user_id, name)
+            );
+            """;
+    private static final String DROP_SQL = "DROP TABLE IF EXISTS subscription";
+
+    private final List<Shard> shards = new ArrayList<>();
+    private ShardedSubscriptionDao shardedDao;
+
+    @BeforeEach
+    void createShards() throws SQLException {
+        shards.add(createShard("shard0", 0));
+        shards.add(createShard("shard1", 1));
+        shardedDao = new ShardedSubscriptionDao(shards, 64, ID_STRIDE, 2);
+    }
+
+    @AfterEach
+    void dropShards() throws SQLException {
+        for (var shard : shardedDao.getShards()) {
+            execute(shard, DROP_SQL);
+        }
+        shardedDao.close();
+    }
+
+    @Test
+    void shouldRouteUserToSingleShard() {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 20)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        var upserted = shardedDao.upsertByUserIdAndName(getSubscription(7, "name2")).orElseThrow();
+
+        var owner = shardedDao.shardFor(7);
+        assertThat(owner.getDao().findByUserId(7)).containsExactlyInAnyOrder(inserted.get(6), upserted);
+        assertThat(shardedDao.findByUserId(7)).containsExactlyInAnyOrder(inserted.get(6), upserted);
+        assertThat(shards).allSatisfy(shard -> assertThat(shard.getDao().findAll()).isNotEmpty());
+    }
+
+    @Test
+    void shouldAssignGloballyUniqueIds() {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 40)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+
+        var ids = inserted.stream()
+                .map(Subscription::getId)
+                .toList();
+        assertThat(ids).doesNotHaveDuplicates();
+        for (var subscription : inserted) {
+            var shard = shardedDao.shardFor(subscription.getUserId());
+            assertThat((subscription.getId() - 1) % ID_STRIDE).isEqualTo(shard.getIndex());
+        }
+    }
+
+    @Test
+    void shouldFanOutIdBasedQueries() {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 10)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        var ids = inserted.stream()
+                .map(Subscription::getId)
+                .toList();
+
+        assertThat(shardedDao.findAll()).containsExactlyInAnyOrderElementsOf(inserted);
+        assertThat(shardedDao.findById(ids.get(3))).contains(inserted.get(3));
+        assertThat(shardedDao.cancelAll(ids)).extracting(change -> change.getAfter().getId())
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(shardedDao.findExistingIds(List.of(ids.get(0), ids.get(9), -1)))
+                .containsExactlyInAnyOrder(ids.get(0), ids.get(9));
+
+        List<Subscription> paged = new ArrayList<>();
+        String pageToken = null;
+        do {
+            var page = shardedDao.findPage(pageToken, 3, SubscriptionFilter.builder().build());
+            paged.addAll(page.getContent());
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        assertThat(paged).extracting(Subscription::getId).isSorted().containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void shouldSumAggregatesAcrossShards() {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 10)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        shardedDao.cancelAll(inserted.subList(0, 3).stream().map(Subscription::getId).toList());
+        var all = SubscriptionFilter.builder().build();
+
+        assertThat(shardedDao.count(all)).isEqualTo(10);
+        assertThat(shardedDao.count(SubscriptionFilter.builder().userId(1).build())).isEqualTo(1);
+        assertThat(shardedDao.countByStatusAndProvider(all)).containsExactlyInAnyOrder(
+                new SubscriptionCount(Status.ACTIVE, Provider.APPLE, 7),
+                new SubscriptionCount(Status.CANCELED, Provider.APPLE, 3));
+        assertThat(shardedDao.countByExpirationDate(all)).containsExactly(Map.entry(
+                LocalDate.ofInstant(inserted.get(0).getExpirationDate(), SubscriptionDao.EXPIRATION_DATE_ZONE), 10L));
+    }
+
+    @Test
+    void shouldRunTransactionCallbackWithoutSpanningTransaction() {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 4)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        var ids = inserted.stream()
+                .map(Subscription::getId)
+                .toList();
+
+        var actualResult = shardedDao.inTransaction(transaction -> {
+            assertFalse(Transactions.isActive());
+            return shardedDao.cancelAll(ids);
+        });
+
+        assertThat(actualResult).extracting(change -> change.getAfter().getId()).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void shouldRejectUpdateThatMovesSubscriptionToAnotherShard() {
+        var subscription = shardedDao.insert(getSubscription(1, "name"));
+        var otherUserId = IntStream.rangeClosed(2, 100)
+                .filter(userId -> shardedDao.shardFor(userId) != shardedDao.shardFor(1))
+                .findFirst()
+                .orElseThrow();
+
+        assertThrows(IllegalStateException.class, () -> shardedDao.update(subscription.setUserId(otherUserId)));
+    }
+
+    @Test
+    void shouldMoveSubscriptionsToAddedShard() throws SQLException {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 60)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        var addedShard = createShard("shard2", 2);
+
+        var actualResult = new ShardRebalancer(shardedDao, 7).addShard(addedShard);
+
+        var moved = addedShard.getDao().findAll();
+        assertThat(actualResult.getMovedCount()).isEqualTo(moved.size()).isPositive();
+        assertThat(shardedDao.getShards()).contains(addedShard);
+        assertThat(shardedDao.findAll()).containsExactlyInAnyOrderElementsOf(inserted);
+        assertThat(moved).allSatisfy(subscription -> assertThat(shardedDao.shardFor(subscription.getUserId())).isSameAs(addedShard));
+        for (var subscription : inserted) {
+            assertThat(shardedDao.findByUserId(subscription.getUserId())).containsExactly(subscription);
+        }
+        var newUserId = IntStream.rangeClosed(61, 1000)
+                .filter(userId -> shardedDao.shardFor(userId) == addedShard)
+                .findFirst()
+                .orElseThrow();
+        var added = shardedDao.insert(getSubscription(newUserId, "name"));
+        assertThat((added.getId() - 1) % ID_STRIDE).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDiscardPartialCopyWhenAddingShardFails() throws SQLException {
+        var inserted = shardedDao.insertAll(IntStream.rangeClosed(1, 60)
+                .mapToObj(userId -> getSubscription(userId, "name"))
+                .toList());
+        var addedShard = createShard("shard2", 2);
+        var targetRing = shardedDao.getRing().withNode(addedShard.getName(), addedShard);
+        var lastSource = List.copyOf(shardedDao.getRing().getNodes()).get(shards.size() - 1);
+        var lastMoved = lastSource.getDao().findAll().stream()
+                .filter(subscription -> targetRing.route(subscription.getUserId()) == addedShard)
+                .max(Comparator.comparing(Subscription::getId))
+                .orElseThrow();
+        var blocker = addedShard.getDao().insert(getSubscription(lastMoved.getUserId(), "name"));
+        var rebalancer = new ShardRebalancer(shardedDao, 7);
+
+        assertThrows(SQLException.class, () -> rebalancer.addShard(addedShard));
+        assertThat(addedShard.getDao().findAll()).containsExactly(blocker);
+        assertThat(shardedDao.getShards()).doesNotContain(addedShard);
+
+        addedShard.getDao().delete(blocker.getId());
+        rebalancer.addShard(addedShard);
+
+        assertThat(shardedDao.getShards()).contains(addedShard);
+        assertThat(shardedDao.findAll()).containsExactlyInAnyOrderElementsOf(inserted);
+    }
+
+    private Shard createShard(String name, int index) throws SQLException {
+        var source = new ConnectionSource(PoolConfig.builder()
+                .name(name)
+                .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .user("sa")
+                .password("")
+                .minSize(1)
+                .maxSize(4)
+                .build(), true);
+        var shard = new Shard(name, index, source);
+        execute(shard, CREATE_SQL);
+        return shard;
+    }
+
+    private void execute(Shard shard, String sql) throws SQLException {
+        try (var connection = shard.getSource().acquire();
+             var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Subscription getSubscription(Integer userId, String name) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(Provider.APPLE)
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
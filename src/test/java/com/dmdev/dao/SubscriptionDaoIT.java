@@ -1,16 +1,23 @@
 package com.dmdev.dao;
 
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.SubscriptionFilter;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.util.ConnectionManager;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -43,6 +50,19 @@ class SubscriptionDaoIT extends IntegrationTestBase {
         assertThat(actualResult.get()).isEqualTo(subscription);
     }
 
+    @Test
+    void shouldFailOnUnknownProviderValue() throws SQLException {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
+        try (var connection = ConnectionManager.get();
+             var statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE subscription SET provider = 'UNKNOWN' WHERE id = " + subscription.getId());
+        }
+
+        var exception = assertThrows(SQLException.class, () -> subscriptionDao.findById(subscription.getId()));
+
+        assertThat(exception.getMessage()).isEqualTo("Unknown provider value: UNKNOWN");
+    }
+
     @Test
     void deleteExistingEntity() {
         var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
@@ -104,6 +124,354 @@ class SubscriptionDaoIT extends IntegrationTestBase {
         assertThat(actualResult).isEmpty();
     }
 
+    @Test
+    void upsertByUserIdAndNameShouldInsertNewSubscription() {
+        var subscription = getSubscription(1, "name1");
+
+        var actualResult = subscriptionDao.upsertByUserIdAndName(subscription);
+
+        assertThat(actualResult).isPresent();
+        assertNotNull(actualResult.get().getId());
+        assertThat(subscriptionDao.findByUserId(1)).containsExactly(actualResult.get());
+    }
+
+    @Test
+    void upsertByUserIdAndNameShouldReactivateExistingSubscription() {
+        var existing = subscriptionDao.insert(getSubscription(1, "name1").setStatus(Status.CANCELED));
+        var subscription = getSubscription(1, "name1")
+                .setExpirationDate(existing.getExpirationDate().plus(1, ChronoUnit.DAYS));
+
+        var actualResult = subscriptionDao.upsertByUserIdAndName(subscription);
+
+        assertThat(actualResult).isPresent();
+        assertThat(actualResult.get().getId()).isEqualTo(existing.getId());
+        assertThat(actualResult.get().getStatus()).isEqualTo(Status.ACTIVE);
+        assertThat(actualResult.get().getExpirationDate()).isEqualTo(subscription.getExpirationDate());
+    }
+
+    @Test
+    void upsertByUserIdAndNameShouldNotTouchSubscriptionOfAnotherProvider() {
+        var existing = subscriptionDao.insert(getSubscription(1, "name1").setStatus(Status.CANCELED));
+
+        var actualResult = subscriptionDao.upsertByUserIdAndName(getSubscription(1, "name1").setProvider(Provider.GOOGLE));
+
+        assertThat(actualResult).isEmpty();
+        assertThat(subscriptionDao.findById(existing.getId())).contains(existing);
+    }
+
+    @Test
+    void upsertChangeByUserIdAndNameShouldReturnPreviousRow() {
+        var existing = subscriptionDao.insert(getSubscription(1, "name1").setStatus(Status.CANCELED));
+        var created = subscriptionDao.upsertChangeByUserIdAndName(getSubscription(1, "name2")).orElseThrow();
+
+        var actualResult = subscriptionDao.upsertChangeByUserIdAndName(getSubscription(1, "name1")
+                .setExpirationDate(existing.getExpirationDate().plus(1, ChronoUnit.DAYS)));
+
+        assertThat(created.getBefore()).isNull();
+        assertThat(actualResult).isPresent();
+        assertThat(actualResult.get().getBefore()).isEqualTo(existing);
+        assertThat(actualResult.get().getAfter().getStatus()).isEqualTo(Status.ACTIVE);
+        assertThat(actualResult.get().getAfter().getVersion()).isEqualTo(existing.getVersion() + 1);
+        assertThat(subscriptionDao.upsertChangeByUserIdAndName(getSubscription(1, "name1").setProvider(Provider.GOOGLE)))
+                .isEmpty();
+    }
+
+    @Test
+    void upsertAllByUserIdAndNameShouldReturnResultPerEntity() {
+        var existing = subscriptionDao.insert(getSubscription(1, "name1").setStatus(Status.CANCELED));
+
+        var actualResult = subscriptionDao.upsertAllByUserIdAndName(List.of(
+                getSubscription(1, "name1"),
+                getSubscription(2, "name1").setProvider(Provider.GOOGLE),
+                getSubscription(1, "name1").setProvider(Provider.GOOGLE)));
+
+        assertThat(actualResult).hasSize(3);
+        assertThat(actualResult.get(0)).hasValueSatisfying(subscription -> {
+            assertThat(subscription.getId()).isEqualTo(existing.getId());
+            assertThat(subscription.getStatus()).isEqualTo(Status.ACTIVE);
+        });
+        assertThat(actualResult.get(1)).isPresent();
+        assertThat(actualResult.get(2)).isEmpty();
+        assertThat(subscriptionDao.findAll()).hasSize(2);
+    }
+
+    @Test
+    void upsertAllByUserIdAndNameShouldKeepInputOrderAcrossStatements() {
+        var existing = subscriptionDao.insert(getSubscription(1, "name1"));
+
+        var actualResult = subscriptionDao.upsertAllByUserIdAndName(List.of(
+                getSubscription(2, "name2"),
+                getSubscription(1, "name1").setStatus(Status.CANCELED),
+                getSubscription(1, "name1").setStatus(Status.EXPIRED),
+                getSubscription(3, "name3").setProvider(Provider.GOOGLE),
+                getSubscription(1, "name1").setProvider(Provider.GOOGLE)));
+
+        assertThat(actualResult).hasSize(5);
+        assertThat(actualResult.get(0)).hasValueSatisfying(subscription -> assertThat(subscription.getUserId()).isEqualTo(2));
+        assertThat(actualResult.get(1)).hasValueSatisfying(subscription -> {
+            assertThat(subscription.getId()).isEqualTo(existing.getId());
+            assertThat(subscription.getStatus()).isEqualTo(Status.CANCELED);
+            assertThat(subscription.getVersion()).isEqualTo(1);
+        });
+        assertThat(actualResult.get(2)).hasValueSatisfying(subscription -> {
+            assertThat(subscription.getStatus()).isEqualTo(Status.EXPIRED);
+            assertThat(subscription.getVersion()).isEqualTo(2);
+        });
+        assertThat(actualResult.get(3)).hasValueSatisfying(subscription ->
+                assertThat(subscription.getProvider()).isEqualTo(Provider.GOOGLE));
+        assertThat(actualResult.get(4)).isEmpty();
+        assertThat(subscriptionDao.findById(existing.getId())).hasValueSatisfying(subscription ->
+                assertThat(subscription.getStatus()).isEqualTo(Status.EXPIRED));
+    }
+
+    @Test
+    void streamAll() {
+        var subscription1 = subscriptionDao.insert(getSubscription(1, "name1"));
+        var subscription2 = subscriptionDao.insert(getSubscription(2, "name2"));
+        var subscription3 = subscriptionDao.insert(getSubscription(3, "name3"));
+
+        try (var actualResult = subscriptionDao.streamAll()) {
+            assertThat(actualResult).containsExactlyInAnyOrder(subscription1, subscription2, subscription3);
+        }
+        assertThat(ConnectionManager.getPoolMetrics()).hasValueSatisfying(metrics -> assertThat(metrics.getActive()).isZero());
+        assertThat(ConnectionManager.getReplicaPoolMetrics()).allSatisfy((name, metrics) -> assertThat(metrics.getActive()).isZero());
+    }
+
+    @Test
+    void streamByUserId() {
+        var subscription1 = subscriptionDao.insert(getSubscription(1, "name1"));
+        var subscription2 = subscriptionDao.insert(getSubscription(1, "name2"));
+        subscriptionDao.insert(getSubscription(2, "name3"));
+
+        try (var actualResult = subscriptionDao.streamByUserId(1)) {
+            assertThat(actualResult).containsExactlyInAnyOrder(subscription1, subscription2);
+        }
+    }
+
+    @Test
+    void streamPartitioned() {
+        var subscriptions = subscriptionDao.insertAll(IntStream.rangeClosed(1, 25)
+                .mapToObj(userId -> getSubscription(userId, "name" + userId))
+                .toList());
+        subscriptionDao.cancelAll(List.of(subscriptions.get(0).getId(), subscriptions.get(24).getId()));
+        var filter = SubscriptionFilter.builder().status(Status.ACTIVE).build();
+
+        try (var actualResult = subscriptionDao.streamPartitioned(filter, 4)) {
+            assertThat(actualResult.map(Subscription::getId).toList())
+                    .containsExactlyElementsOf(subscriptions.subList(1, 24).stream().map(Subscription::getId).toList());
+        }
+        assertThat(ConnectionManager.getPoolMetrics()).hasValueSatisfying(metrics -> assertThat(metrics.getActive()).isZero());
+        assertThat(ConnectionManager.getReplicaPoolMetrics()).allSatisfy((name, metrics) -> assertThat(metrics.getActive()).isZero());
+    }
+
+    @Test
+    void streamPartitionedShouldReturnEmptyStreamIfNothingMatches() {
+        try (var actualResult = subscriptionDao.streamPartitioned(SubscriptionFilter.builder().build(), 4)) {
+            assertThat(actualResult).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldReleaseConnectionWhenStreamClosedEarly() {
+        subscriptionDao.insert(getSubscription(1, "name1"));
+        subscriptionDao.insert(getSubscription(2, "name2"));
+
+        try (var actualResult = subscriptionDao.streamAll()) {
+            assertThat(actualResult.findFirst()).isPresent();
+        }
+
+        assertThat(ConnectionManager.getPoolMetrics()).hasValueSatisfying(metrics -> assertThat(metrics.getActive()).isZero());
+        assertThat(ConnectionManager.getReplicaPoolMetrics()).allSatisfy((name, metrics) -> assertThat(metrics.getActive()).isZero());
+    }
+
+    @Test
+    void streamPartitionedShouldReleaseConnectionsWhenClosedEarly() {
+        subscriptionDao.insertAll(IntStream.rangeClosed(1, 25)
+                .mapToObj(userId -> getSubscription(userId, "name" + userId))
+                .toList());
+
+        try (var actualResult = subscriptionDao.streamPartitioned(SubscriptionFilter.builder().build(), 8)) {
+            assertThat(actualResult.findFirst()).isPresent();
+        }
+
+        assertThat(ConnectionManager.getPoolMetrics()).hasValueSatisfying(metrics -> assertThat(metrics.getActive()).isZero());
+    }
+
+    @Test
+    void findPage() {
+        var subscriptions = subscriptionDao.insertAll(List.of(getSubscription(1, "name1"), getSubscription(1, "name2"),
+                getSubscription(2, "name3"), getSubscription(3, "name4"), getSubscription(4, "name5")));
+
+        var firstPage = subscriptionDao.findPage(null, 2, SubscriptionFilter.EMPTY);
+        var secondPage = subscriptionDao.findPage(firstPage.getNextPageToken(), 2, SubscriptionFilter.EMPTY);
+        var lastPage = subscriptionDao.findPage(secondPage.getNextPageToken(), 2, SubscriptionFilter.EMPTY);
+
+        assertThat(firstPage.getContent()).containsExactlyElementsOf(subscriptions.subList(0, 2));
+        assertThat(secondPage.getContent()).containsExactlyElementsOf(subscriptions.subList(2, 4));
+        assertThat(lastPage.getContent()).containsExactlyElementsOf(subscriptions.subList(4, 5));
+        assertTrue(firstPage.hasNext());
+        assertFalse(lastPage.hasNext());
+    }
+
+    @Test
+    void findPageWithFilter() {
+        var subscription1 = subscriptionDao.insert(getSubscription(1, "name1"));
+        subscriptionDao.insert(getSubscription(1, "name2").setStatus(Status.CANCELED));
+        subscriptionDao.insert(getSubscription(1, "name3").setProvider(Provider.GOOGLE));
+        subscriptionDao.insert(getSubscription(2, "name4"));
+        var filter = SubscriptionFilter.builder()
+                .userId(1)
+                .status(Status.ACTIVE)
+                .provider(Provider.APPLE)
+                .expiresFrom(subscription1.getExpirationDate())
+                .expiresTo(subscription1.getExpirationDate().plusSeconds(1))
+                .build();
+
+        var actualResult = subscriptionDao.findPage(null, 10, filter);
+
+        assertThat(actualResult.getContent()).containsExactly(subscription1);
+        assertFalse(actualResult.hasNext());
+    }
+
+    @Test
+    void shouldThrowExceptionIfPageTokenInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> subscriptionDao.findPage("not a token", 10, SubscriptionFilter.EMPTY));
+    }
+
+    @Test
+    void expireOverdue() {
+        var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        var overdue1 = subscriptionDao.insert(getSubscription(1, "name1").setExpirationDate(now.minusSeconds(60)));
+        var overdue2 = subscriptionDao.insert(getSubscription(2, "name2").setExpirationDate(now.minusSeconds(30)));
+        var active = subscriptionDao.insert(getSubscription(3, "name3"));
+
+        var firstBatch = subscriptionDao.expireOverdue(now, 1);
+        var secondBatch = subscriptionDao.expireOverdue(now, 1);
+        var thirdBatch = subscriptionDao.expireOverdue(now, 1);
+
+        assertThat(List.of(firstBatch.size(), secondBatch.size(), thirdBatch.size())).containsExactly(1, 1, 0);
+        assertThat(firstBatch.get(0).getBefore()).isEqualTo(overdue1);
+        assertThat(firstBatch.get(0).getAfter()).isEqualTo(overdue1.toBuilder().status(Status.EXPIRED).version(1).build());
+        assertThat(subscriptionDao.findById(overdue1.getId()).get().getStatus()).isEqualTo(Status.EXPIRED);
+        assertThat(subscriptionDao.findById(overdue2.getId()).get().getStatus()).isEqualTo(Status.EXPIRED);
+        assertThat(subscriptionDao.findById(active.getId()).get().getStatus()).isEqualTo(Status.ACTIVE);
+    }
+
+    @Test
+    void compareAndSetStatus() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
+
+        var actualResult = subscriptionDao.compareAndSetStatus(
+                subscription.getId(), List.of(Status.ACTIVE), Status.CANCELED, null, 0);
+
+        assertTrue(actualResult);
+        assertThat(subscriptionDao.findById(subscription.getId()))
+                .contains(subscription.setStatus(Status.CANCELED).setVersion(1));
+    }
+
+    @Test
+    void compareAndSetStatusShouldNotApplyIfStatusChanged() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1").setStatus(Status.EXPIRED));
+
+        var actualResult = subscriptionDao.compareAndSetStatus(
+                subscription.getId(), List.of(Status.ACTIVE), Status.CANCELED, null, null);
+
+        assertFalse(actualResult);
+        assertThat(subscriptionDao.findById(subscription.getId())).contains(subscription);
+    }
+
+    @Test
+    void compareAndSetStatusShouldNotApplyIfVersionChanged() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
+        subscriptionDao.update(subscription.setName("updatedName"));
+
+        var actualResult = subscriptionDao.compareAndSetStatus(
+                subscription.getId(), List.of(Status.ACTIVE), Status.CANCELED, null, 0);
+
+        assertFalse(actualResult);
+        assertThat(subscriptionDao.findById(subscription.getId()).get().getStatus()).isEqualTo(Status.ACTIVE);
+    }
+
+    @Test
+    void cancelAll() {
+        var active1 = subscriptionDao.insert(getSubscription(1, "name1"));
+        var active2 = subscriptionDao.insert(getSubscription(2, "name2"));
+        var canceled = subscriptionDao.insert(getSubscription(3, "name3").setStatus(Status.CANCELED));
+        var active3 = subscriptionDao.insert(getSubscription(4, "name4"));
+
+        var actualResult = subscriptionDao.cancelAll(List.of(active1.getId(), active2.getId(), canceled.getId(), 123456789));
+
+        assertThat(actualResult).extracting(change -> change.getBefore().getId())
+                .containsExactlyInAnyOrder(active1.getId(), active2.getId());
+        assertThat(actualResult).extracting(change -> change.getBefore().getStatus()).containsOnly(Status.ACTIVE);
+        assertThat(subscriptionDao.findById(active2.getId()).get().getStatus()).isEqualTo(Status.CANCELED);
+        assertThat(subscriptionDao.findById(active3.getId()).get().getStatus()).isEqualTo(Status.ACTIVE);
+    }
+
+    @Test
+    void expireAll() {
+        var active = subscriptionDao.insert(getSubscription(1, "name1"));
+        var expired = subscriptionDao.insert(getSubscription(2, "name2").setStatus(Status.EXPIRED));
+        var now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        var actualResult = subscriptionDao.expireAll(List.of(active.getId(), expired.getId()), now);
+
+        assertThat(actualResult).extracting(SubscriptionChange::getBefore).containsExactly(active.toBuilder().build());
+        assertThat(subscriptionDao.findById(active.getId()))
+                .contains(active.setStatus(Status.EXPIRED).setExpirationDate(now).setVersion(1));
+    }
+
+    @Test
+    void findExistingIds() {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
+
+        var actualResult = subscriptionDao.findExistingIds(List.of(subscription.getId(), 123456789));
+
+        assertThat(actualResult).containsExactly(subscription.getId());
+    }
+
+    @Test
+    void findByUserIds() {
+        var subscription1 = subscriptionDao.insert(getSubscription(1, "name1"));
+        var subscription2 = subscriptionDao.insert(getSubscription(2, "name2"));
+        subscriptionDao.insert(getSubscription(3, "name3"));
+
+        var actualResult = subscriptionDao.findByUserIds(List.of(1, 2, 4));
+
+        assertThat(actualResult).containsExactlyInAnyOrder(subscription1, subscription2);
+    }
+
+    @Test
+    void insertAll() {
+        var subscriptions = List.of(getSubscription(1, "name1"), getSubscription(2, "name2"), getSubscription(3, "name3"));
+
+        var actualResult = subscriptionDao.insertAll(subscriptions);
+
+        assertThat(actualResult).allSatisfy(subscription -> assertNotNull(subscription.getId()));
+        assertThat(subscriptionDao.findAll()).containsExactlyInAnyOrderElementsOf(subscriptions);
+    }
+
+    @Test
+    void updateAll() {
+        var subscriptions = subscriptionDao.insertAll(
+                List.of(getSubscription(1, "name1"), getSubscription(2, "name2"), getSubscription(3, "name3")));
+        subscriptions.forEach(subscription -> subscription.setStatus(Status.CANCELED));
+
+        subscriptionDao.updateAll(subscriptions);
+
+        assertThat(subscriptionDao.findAll()).containsExactlyInAnyOrderElementsOf(subscriptions);
+    }
+
+    @Test
+    void shouldRollbackFailedChunkOnInsertAll() {
+        var subscriptions = List.of(getSubscription(1, "name1"), getSubscription(2, "name2"),
+                getSubscription(3, "name3"), getSubscription(3, "name3"));
+
+        assertThrows(Exception.class, () -> subscriptionDao.insertAll(subscriptions));
+
+        assertThat(subscriptionDao.findAll()).hasSize(2);
+    }
+
     private Subscription getSubscription(Integer userId, String name) {
         return Subscription.builder()
                 .userId(userId)
@@ -0,0 +1,156 @@
+package com.dmdev.dao;
+
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindSubscriptionDaoTest {
+
+    @Mock
+    private SubscriptionDao delegate;
+    private WriteBehindSubscriptionDao writeBehindSubscriptionDao;
+
+    @AfterEach
+    void close() {
+        writeBehindSubscriptionDao.close();
+    }
+
+    @Test
+    void shouldCoalesceWritesForSameKeyIntoOneBatch() {
+        echoUpserts();
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 3, 3, Duration.ofSeconds(5), 10);
+
+        var first = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+        var second = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE).setStatus(Status.CANCELED));
+        var other = writeBehindSubscriptionDao.upsertAsync(getSubscription(2, "name2", Provider.APPLE));
+        var third = writeBehindSubscriptionDao.upsertAsync(getSubscription(3, "name3", Provider.APPLE));
+
+        assertThat(first.join()).hasValueSatisfying(subscription -> assertThat(subscription.getStatus()).isEqualTo(Status.CANCELED));
+        assertThat(second.join()).isEqualTo(first.join());
+        assertThat(other.join()).isPresent();
+        assertThat(third.join()).isPresent();
+        verify(delegate).upsertAllByUserIdAndName(List.of(
+                getSubscription(1, "name1", Provider.APPLE).setStatus(Status.CANCELED),
+                getSubscription(2, "name2", Provider.APPLE),
+                getSubscription(3, "name3", Provider.APPLE)));
+    }
+
+    @Test
+    void shouldFlushAfterMaxLatency() {
+        echoUpserts();
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 100, 100, Duration.ofMillis(20), 100);
+
+        var actualResult = writeBehindSubscriptionDao.upsertByUserIdAndName(getSubscription(1, "name1", Provider.APPLE));
+
+        assertThat(actualResult).isPresent();
+    }
+
+    @Test
+    void shouldNotCoalesceWritesOfDifferentProviders() {
+        echoUpserts();
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 1, 1, Duration.ofMillis(1), 10);
+
+        var apple = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+        var google = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.GOOGLE));
+
+        assertThat(apple.join()).hasValueSatisfying(subscription -> assertThat(subscription.getProvider()).isEqualTo(Provider.APPLE));
+        assertThat(google.join()).hasValueSatisfying(subscription -> assertThat(subscription.getProvider()).isEqualTo(Provider.GOOGLE));
+    }
+
+    @Test
+    void shouldFailAllWaitersOfFailedBatch() {
+        doThrow(new IllegalStateException("boom")).when(delegate).upsertAllByUserIdAndName(anyList());
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 1, 1, Duration.ofMillis(1), 10);
+
+        var future = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+        assertThrows(IllegalStateException.class,
+                () -> writeBehindSubscriptionDao.upsertByUserIdAndName(getSubscription(2, "name2", Provider.APPLE)));
+    }
+
+    @Test
+    void shouldFailOnlyOffendingWriteOfFailedBatch() {
+        var bad = getSubscription(2, "name2", Provider.APPLE);
+        doAnswer(invocation -> {
+            List<Subscription> entities = invocation.getArgument(0);
+            if (entities.contains(bad)) {
+                throw new IllegalStateException("constraint violated");
+            }
+            return entities.stream()
+                    .map(entity -> Optional.of(entity.toBuilder().id(entity.getUserId()).build()))
+                    .toList();
+        }).when(delegate).upsertAllByUserIdAndName(anyList());
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 3, 3, Duration.ofSeconds(5), 10);
+
+        var first = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+        var failed = writeBehindSubscriptionDao.upsertAsync(bad);
+        var third = writeBehindSubscriptionDao.upsertAsync(getSubscription(3, "name3", Provider.APPLE));
+
+        assertThat(first.join()).isPresent();
+        assertThat(third.join()).isPresent();
+        var exception = assertThrows(CompletionException.class, failed::join);
+        assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldFailPendingWritesIfFlusherDiesWithError() {
+        doThrow(new AssertionError("fatal")).when(delegate).upsertAllByUserIdAndName(anyList());
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 1, 1, Duration.ofMillis(1), 10);
+
+        var future = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertThat(exception).hasCauseInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void closeShouldFlushPendingWrites() {
+        echoUpserts();
+        writeBehindSubscriptionDao = new WriteBehindSubscriptionDao(delegate, 100, 100, Duration.ofMinutes(1), 100);
+
+        var future = writeBehindSubscriptionDao.upsertAsync(getSubscription(1, "name1", Provider.APPLE));
+        writeBehindSubscriptionDao.close();
+
+        assertThat(future).isCompleted();
+        assertThat(writeBehindSubscriptionDao.getPendingCount()).isZero();
+    }
+
+    private void echoUpserts() {
+        doAnswer(invocation -> {
+            List<Subscription> entities = invocation.getArgument(0);
+            return entities.stream()
+                    .map(entity -> Optional.of(entity.toBuilder().id(entity.getUserId()).build()))
+                    .toList();
+        }).when(delegate).upsertAllByUserIdAndName(anyList());
+    }
+
+    private Subscription getSubscription(Integer userId, String name, Provider provider) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(Instant.parse("2030-01-01T00:00:00Z"))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.dmdev.exporter;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dao.SubscriptionExportDao;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriptionExporterIT extends IntegrationTestBase {
+
+    private static final Instant EXPIRATION_DATE = Instant.parse("2100-01-01T00:00:00Z");
+
+    private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+    private final SubscriptionExporter subscriptionExporter =
+            new SubscriptionExporter(SubscriptionExportDao.getInstance(), 3, 1024);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void closeExporter() {
+        subscriptionExporter.close();
+    }
+
+    @Test
+    void shouldExportFilteredRowsAsCsv() throws IOException {
+        var subscription = subscriptionDao.insert(getSubscription(1, "Ivan, \"Pro\"", Provider.APPLE));
+        subscriptionDao.insert(getSubscription(2, "name2", Provider.GOOGLE));
+        var file = directory.resolve("subscriptions.csv");
+
+        var actualResult = subscriptionExporter.export(file,
+                SubscriptionFilter.builder().provider(Provider.APPLE).build(), ExportFormat.CSV, false);
+
+        assertThat(actualResult.getRows()).isEqualTo(1);
+        assertThat(Files.readAllLines(file)).containsExactly(
+                "id,user_id,name,provider,expiration_date,status,version",
+                subscription.getId() + ",1,\"Ivan, \"\"Pro\"\"\",APPLE,2100-01-01T00:00:00Z,ACTIVE,0");
+    }
+
+    @Test
+    void shouldExportNdjsonToGzipStream() throws IOException {
+        var subscription = subscriptionDao.insert(getSubscription(1, "name\t1", Provider.APPLE));
+        var outputStream = new ByteArrayOutputStream();
+
+        var actualResult = subscriptionExporter.export(outputStream, SubscriptionFilter.EMPTY, ExportFormat.NDJSON, true);
+
+        assertThat(actualResult).isEqualTo(1);
+        assertThat(readGzip(new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))))
+                .containsExactly("{\"id\":" + subscription.getId() + ",\"userId\":1,\"name\":\"name\\t1\","
+                                 + "\"provider\":\"APPLE\",\"expirationDate\":\"2100-01-01T00:00:00Z\","
+                                 + "\"status\":\"ACTIVE\",\"version\":0}");
+    }
+
+    @Test
+    void shouldExportRangePartitionsInParallel() throws IOException {
+        List<Subscription> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            subscriptions.add(getSubscription(i, "name" + i, Provider.APPLE));
+        }
+        subscriptionDao.insertAll(subscriptions);
+
+        var actualResult = subscriptionExporter.exportPartitioned(directory, "subscriptions",
+                SubscriptionFilter.EMPTY, ExportFormat.NDJSON, true);
+
+        assertThat(actualResult.getRows()).isEqualTo(10);
+        assertThat(actualResult.getFiles()).hasSize(3);
+        assertThat(actualResult.getFiles().get(0).getFileName().toString()).isEqualTo("subscriptions-0000.ndjson.gz");
+        List<String> lines = new ArrayList<>();
+        for (var file : actualResult.getFiles()) {
+            lines.addAll(readGzip(new GZIPInputStream(Files.newInputStream(file))));
+        }
+        assertThat(lines).hasSize(10).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldReturnEmptyReportWhenNothingMatches() {
+        var actualResult = subscriptionExporter.exportPartitioned(directory, "subscriptions",
+                SubscriptionFilter.builder().status(Status.EXPIRED).build(), ExportFormat.CSV, false);
+
+        assertThat(actualResult.getRows()).isZero();
+        assertThat(actualResult.getFiles()).isEmpty();
+    }
+
+    private List<String> readGzip(GZIPInputStream inputStream) throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    private Subscription getSubscription(Integer userId, String name, Provider provider) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(EXPIRATION_DATE)
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
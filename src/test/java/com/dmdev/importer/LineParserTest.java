@@ -0,0 +1,68 @@
+package com.dmdev.importer;
+
+import com.dmdev.dto.CreateSubscriptionDto;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineParserTest {
+
+    private static final Instant EXPIRATION_DATE = Instant.parse("2030-01-01T10:15:30Z");
+
+    private final CsvLineParser csvLineParser = CsvLineParser.getInstance();
+    private final NdjsonLineParser ndjsonLineParser = NdjsonLineParser.getInstance();
+
+    @Test
+    void shouldParseCsvLine() {
+        var actualResult = csvLineParser.parse("1, \"Ivan \"\"Pro\"\"\" ,APPLE,2030-01-01T10:15:30Z");
+
+        assertThat(actualResult).isEqualTo(getDto(1, "Ivan \"Pro\"", "APPLE", EXPIRATION_DATE));
+    }
+
+    @Test
+    void shouldMapInvalidCsvValuesToNull() {
+        var actualResult = csvLineParser.parse("abc,,APPLE,tomorrow");
+
+        assertThat(actualResult).isEqualTo(getDto(null, null, "APPLE", null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1,name,APPLE", "1,name,APPLE,2030-01-01T10:15:30Z,extra", "1,\"name,APPLE,2030-01-01T10:15:30Z"})
+    void shouldRejectMalformedCsvLine(String line) {
+        assertThrows(IllegalArgumentException.class, () -> csvLineParser.parse(line));
+    }
+
+    @Test
+    void shouldDetectCsvHeader() {
+        assertThat(csvLineParser.isHeader("user_id,name,provider,expiration_date")).isTrue();
+        assertThat(csvLineParser.isHeader("1,name,APPLE,2030-01-01T10:15:30Z")).isFalse();
+    }
+
+    @Test
+    void shouldParseNdjsonLine() {
+        var actualResult = ndjsonLineParser.parse(
+                "{\"userId\": 1, \"comment\": null, \"name\": \"Ivan \\\"Pro\\\"\", \"provider\": \"APPLE\", "
+                + "\"expiration_date\": \"2030-01-01T10:15:30Z\"}");
+
+        assertThat(actualResult).isEqualTo(getDto(1, "Ivan \"Pro\"", "APPLE", EXPIRATION_DATE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"userId\": 1", "{\"userId\": {\"id\": 1}}", "[1]", "{\"name\": \"x\"} trailing"})
+    void shouldRejectMalformedNdjsonLine(String line) {
+        assertThrows(IllegalArgumentException.class, () -> ndjsonLineParser.parse(line));
+    }
+
+    private CreateSubscriptionDto getDto(Integer userId, String name, String provider, Instant expirationDate) {
+        return CreateSubscriptionDto.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(expirationDate)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.dmdev.importer;
+
+import com.dmdev.dao.SubscriptionBulkLoader;
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.service.SubscriptionCounters;
+import com.dmdev.validator.CreateSubscriptionValidator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriptionImporterIT extends IntegrationTestBase {
+
+    private static final String EXPIRATION_DATE = "2100-01-01T00:00:00Z";
+
+    private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final SubscriptionImporter subscriptionImporter = new SubscriptionImporter(
+            SubscriptionBulkLoader.getInstance(),
+            CreateSubscriptionValidator.getInstance(),
+            CreateSubscriptionMapper.getInstance(),
+            executor,
+            2,
+            2);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldImportCsvFileAndWriteRejects() throws IOException {
+        subscriptionDao.insert(getSubscription(3, "taken", Provider.GOOGLE));
+        var file = Files.writeString(directory.resolve("subscriptions.csv"), String.join("\n",
+                "user_id,name,provider,expiration_date",
+                "1,first," + "APPLE," + EXPIRATION_DATE,
+                "2,second,google," + EXPIRATION_DATE,
+                "",
+                ",nameless,APPLE," + EXPIRATION_DATE,
+                "3,taken,APPLE," + EXPIRATION_DATE,
+                "4,broken",
+                "1,first,APPLE,2200-01-01T00:00:00Z"));
+        var rejectsFile = directory.resolve("rejects.tsv");
+        List<ImportProgress> progress = new ArrayList<>();
+        var counters = SubscriptionCounters.loadFrom(subscriptionDao, Clock.systemUTC());
+        subscriptionImporter.setCounters(counters);
+
+        var actualResult = subscriptionImporter.importFile(file, ImportFormat.CSV, rejectsFile, progress::add);
+
+        assertThat(actualResult.getLinesRead()).isEqualTo(8);
+        assertThat(actualResult.getImported()).isEqualTo(3);
+        assertThat(actualResult.getRejected()).isEqualTo(3);
+        assertThat(progress).isNotEmpty();
+        assertThat(progress.get(progress.size() - 1).getImported()).isEqualTo(3);
+        assertThat(subscriptionDao.findByUserId(1)).singleElement()
+                .extracting(Subscription::getExpirationDate)
+                .isEqualTo(Instant.parse("2200-01-01T00:00:00Z"));
+        assertThat(subscriptionDao.findByUserId(2)).singleElement()
+                .extracting(Subscription::getProvider)
+                .isEqualTo(Provider.GOOGLE);
+        assertThat(subscriptionDao.findByUserId(3)).singleElement()
+                .extracting(Subscription::getProvider)
+                .isEqualTo(Provider.GOOGLE);
+        assertThat(Files.readAllLines(rejectsFile)).containsExactlyInAnyOrder(
+                "line\terrors\trecord",
+                "5\t100:userId is invalid\t,nameless,APPLE," + EXPIRATION_DATE,
+                "7\t110:line is malformed: expected 4 fields\t4,broken",
+                "6\t104:name is already used by another provider\t3,taken,APPLE," + EXPIRATION_DATE);
+        assertThat(counters.countByProvider(Status.ACTIVE)).isEqualTo(
+                SubscriptionCounters.loadFrom(subscriptionDao, Clock.systemUTC()).countByProvider(Status.ACTIVE));
+        assertThat(counters.count(Status.ACTIVE, Provider.GOOGLE)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldApplyDuplicateKeysInFileOrder() throws IOException {
+        var file = Files.writeString(directory.resolve("duplicates.csv"), String.join("\n",
+                "1,dup,APPLE," + EXPIRATION_DATE,
+                "1,dup,GOOGLE," + EXPIRATION_DATE,
+                "1,dup,APPLE,2200-01-01T00:00:00Z"));
+        var rejectsFile = directory.resolve("rejects.tsv");
+        var singleChunkImporter = new SubscriptionImporter(
+                SubscriptionBulkLoader.getInstance(),
+                CreateSubscriptionValidator.getInstance(),
+                CreateSubscriptionMapper.getInstance(),
+                executor,
+                1,
+                10);
+
+        var actualResult = singleChunkImporter.importFile(file, ImportFormat.CSV, rejectsFile, ImportProgressListener.NONE);
+
+        assertThat(actualResult.getImported()).isEqualTo(2);
+        assertThat(actualResult.getRejected()).isEqualTo(1);
+        assertThat(subscriptionDao.findByUserId(1)).singleElement()
+                .satisfies(subscription -> {
+                    assertThat(subscription.getProvider()).isEqualTo(Provider.APPLE);
+                    assertThat(subscription.getExpirationDate()).isEqualTo(Instant.parse("2200-01-01T00:00:00Z"));
+                });
+        assertThat(Files.readAllLines(rejectsFile)).containsExactly(
+                "line\terrors\trecord",
+                "2\t104:name is already used by another provider\t1,dup,GOOGLE," + EXPIRATION_DATE);
+    }
+
+    @Test
+    void shouldImportNdjsonFile() throws IOException {
+        var file = Files.writeString(directory.resolve("subscriptions.ndjson"), String.join("\n",
+                "{\"userId\": 1, \"name\": \"first\", \"provider\": \"APPLE\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}",
+                "{\"userId\": 2, \"name\": \"second\", \"provider\": \"GOOGLE\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}",
+                "{\"userId\": 3, \"name\": \"third\", \"provider\": \"UNKNOWN\", \"expirationDate\": \"" + EXPIRATION_DATE + "\"}"));
+
+        var actualResult = subscriptionImporter.importFile(file, directory.resolve("rejects.tsv"));
+
+        assertThat(actualResult.getImported()).isEqualTo(2);
+        assertThat(actualResult.getRejected()).isEqualTo(1);
+        assertThat(subscriptionDao.findAll()).hasSize(2);
+    }
+
+    private Subscription getSubscription(Integer userId, String name, Provider provider) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(provider)
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -18,6 +18,7 @@ public abstract class IntegrationTestBase {
                 provider VARCHAR(16) NOT NULL ,
                 expiration_date DATETIME NOT NULL ,
                 status VARCHAR(16) NOT NULL ,
+                version INT NOT NULL DEFAULT 0 ,
                 UNIQUE (user_id, name)
             );
             """;
@@ -0,0 +1,48 @@
+package com.dmdev.metrics;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefaultMetricsRegistryTest {
+
+    @Test
+    void shouldReuseMetricsByName() {
+        var registry = new DefaultMetricsRegistry();
+
+        registry.counter("requests").increment();
+        registry.counter("requests").add(2);
+        registry.timer("latency").record(10);
+
+        assertThat(registry.counter("requests")).isSameAs(registry.counter("requests"));
+        assertThat(registry.snapshotCounters()).containsEntry("requests", 3L);
+        assertThat(registry.snapshotTimers().get("latency").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExposeMetricsViaJmx() throws Exception {
+        var registry = new DefaultMetricsRegistry("com.dmdev.test");
+        registry.timer("dao.find-by-id").record(1_000);
+        registry.counter("dao.find-by-id.rows").add(5);
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var timerName = new ObjectName("com.dmdev.test:type=Timer,name=" + ObjectName.quote("dao.find-by-id"));
+        var counterName = new ObjectName("com.dmdev.test:type=Counter,name=" + ObjectName.quote("dao.find-by-id.rows"));
+
+        assertThat(server.getAttribute(timerName, "Count")).isEqualTo(1L);
+        assertThat(server.getAttribute(timerName, "MaxNanos")).isEqualTo(1_000L);
+        assertThat(server.getAttribute(counterName, "Count")).isEqualTo(5L);
+    }
+
+    @Test
+    void noopRegistryShouldIgnoreRecordings() {
+        var registry = MetricsRegistry.noop();
+
+        registry.timer("latency").record(10);
+        registry.counter("requests").increment();
+
+        assertThat(registry.timer("latency")).isSameAs(registry.timer("other"));
+    }
+}
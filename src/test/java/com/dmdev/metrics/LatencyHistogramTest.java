@@ -0,0 +1,45 @@
+package com.dmdev.metrics;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 31, 32, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE})
+    void bucketShouldContainValue(long value) {
+        var index = LatencyHistogram.bucketIndex(value);
+
+        assertThat(LatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+        if (index > 0) {
+            assertThat(LatencyHistogram.bucketUpperBound(index - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100_000).forEach(histogram::record);
+
+        var snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(100_000);
+        assertThat(snapshot.getMaxNanos()).isEqualTo(100_000);
+        assertThat(snapshot.getMeanNanos()).isEqualTo(50_000);
+        assertThat(snapshot.getP50Nanos()).isCloseTo(50_000L, within(50_000L / 32));
+        assertThat(snapshot.getP99Nanos()).isCloseTo(99_000L, within(99_000L / 32));
+        assertThat(snapshot.getP999Nanos()).isCloseTo(99_900L, within(99_900L / 32));
+    }
+
+    @Test
+    void emptyHistogramShouldReportZeros() {
+        var snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot).isEqualTo(new HistogramSnapshot(0, 0, 0, 0, 0, 0));
+    }
+}
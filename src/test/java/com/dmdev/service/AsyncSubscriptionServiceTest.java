@@ -0,0 +1,130 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Subscription;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncSubscriptionServiceTest {
+
+    @Mock
+    private SubscriptionService subscriptionService;
+    @Mock
+    private SubscriptionDao subscriptionDao;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldCompleteWithDaoResult() {
+        var subscription = Subscription.builder().id(1).build();
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(1);
+        var asyncService = new AsyncSubscriptionService(subscriptionService, subscriptionDao, executor, 2, 0, null);
+
+        var actualResult = asyncService.findById(1).join();
+
+        assertThat(actualResult).contains(subscription);
+        assertThat(asyncService.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldPropagateServiceFailure() {
+        doThrow(new IllegalArgumentException()).when(subscriptionService).cancel(1);
+        var asyncService = new AsyncSubscriptionService(subscriptionService, subscriptionDao, executor, 2, 0, null);
+
+        var exception = assertThrows(CompletionException.class, () -> asyncService.cancel(1).join());
+
+        assertThat(exception).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectWhenConcurrencyAndQueueAreExhausted() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var asyncService = new AsyncSubscriptionService(subscriptionService, subscriptionDao, executor, 1, 1, null);
+        var running = asyncService.submit(() -> await(started, release), null);
+        started.await();
+        var queued = asyncService.submit(() -> "queued", null);
+
+        var rejected = asyncService.submit(() -> "rejected", null);
+
+        var exception = assertThrows(CompletionException.class, rejected::join);
+        assertThat(exception).hasCauseInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(running.join()).isEqualTo("done");
+        assertThat(queued.join()).isEqualTo("queued");
+    }
+
+    @Test
+    void shouldInterruptTaskWhenDeadlineExpires() {
+        var interrupted = new CountDownLatch(1);
+        var asyncService = new AsyncSubscriptionService(subscriptionService, subscriptionDao, executor, 1, 0, null);
+
+        var future = asyncService.submit(() -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }, Duration.ofMillis(50));
+
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertThat(exception).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(await(interrupted)).isTrue();
+    }
+
+    @Test
+    void shouldSkipTaskCancelledWhileQueued() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var asyncService = new AsyncSubscriptionService(subscriptionService, subscriptionDao, executor, 1, 1, null);
+        var running = asyncService.submit(() -> await(started, release), null);
+        started.await();
+        var queued = asyncService.expire(1);
+
+        queued.cancel(true);
+        release.countDown();
+        running.join();
+
+        assertThat(queued).isCancelled();
+        verifyNoInteractions(subscriptionService);
+    }
+
+    private static String await(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        await(release);
+        return "done";
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.Page;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.dto.TransitionResult;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ExpirationSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private SubscriptionService subscriptionService;
+    @Mock
+    private SubscriptionDao subscriptionDao;
+
+    private final MutableClock clock = new MutableClock(NOW);
+
+    @Test
+    void rebuildShouldCatchUpOverdueAndLoadOnlyTheWindow() {
+        var scheduler = newScheduler();
+        doReturn(3).when(subscriptionService).expireOverdue(NOW, 10);
+        doReturn(new Page<>(List.of(getSubscription(1, NOW.plusSeconds(30))), null))
+                .when(subscriptionDao).findPage(null, 100, SubscriptionFilter.builder()
+                        .expiresFrom(NOW)
+                        .expiresTo(NOW.plus(Duration.ofMinutes(10)))
+                        .build());
+
+        var actualResult = scheduler.rebuild();
+
+        assertThat(actualResult).isEqualTo(3);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+        assertThat(scheduler.getLoadedUntil()).isEqualTo(NOW.plus(Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void tickShouldExpireOnlyWhenEntriesComeDue() {
+        var scheduler = newScheduler();
+        doReturn(new Page<>(List.of(getSubscription(1, NOW.plusSeconds(30))), null))
+                .when(subscriptionDao).findPage(eq(null), eq(100), any());
+        scheduler.rebuild();
+
+        clock.instant = NOW.plusSeconds(20);
+        scheduler.tick();
+        verify(subscriptionService, never()).expireAll(any());
+
+        clock.instant = NOW.plusSeconds(31);
+        doReturn(List.of(TransitionResult.transitioned(1))).when(subscriptionService).expireAll(List.of(1));
+        var actualResult = scheduler.tick();
+
+        assertThat(actualResult).isEqualTo(1);
+        assertThat(scheduler.getScheduledCount()).isZero();
+        verify(subscriptionService, never()).expireOverdue(NOW.plusSeconds(31), 10);
+    }
+
+    @Test
+    void upsertShouldRescheduleExtendedSubscription() {
+        var scheduler = newScheduler();
+        doReturn(new Page<>(List.of(getSubscription(1, NOW.plusSeconds(30))), null))
+                .when(subscriptionDao).findPage(eq(null), eq(100), any());
+        scheduler.rebuild();
+
+        scheduler.onUpserted(getSubscription(1, NOW.plus(Duration.ofHours(1))));
+        clock.instant = NOW.plusSeconds(31);
+        var actualResult = scheduler.tick();
+
+        assertThat(actualResult).isZero();
+        assertThat(scheduler.getScheduledCount()).isZero();
+        verify(subscriptionService, never()).expireAll(any());
+    }
+
+    @Test
+    void upsertShouldNotWaitForTickReadingDatabase() throws Exception {
+        var scheduler = newScheduler();
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return new Page<>(List.of(), null);
+        }).when(subscriptionDao).findPage(eq(null), eq(100), any());
+        var rebuild = CompletableFuture.supplyAsync(scheduler::rebuild);
+        loading.await();
+
+        CompletableFuture.runAsync(() -> scheduler.onUpserted(getSubscription(1, NOW.plusSeconds(30))))
+                .get(5, TimeUnit.SECONDS);
+        release.countDown();
+        rebuild.join();
+
+        assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+    }
+
+    private ExpirationScheduler newScheduler() {
+        return new ExpirationScheduler(subscriptionService, subscriptionDao, clock, Duration.ofSeconds(1), Duration.ofMinutes(10), 10, 100);
+    }
+
+    private Subscription getSubscription(Integer id, Instant expirationDate) {
+        return Subscription.builder()
+                .id(id)
+                .userId(1)
+                .name("name" + id)
+                .provider(Provider.APPLE)
+                .expirationDate(expirationDate)
+                .status(Status.ACTIVE)
+                .version(0)
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
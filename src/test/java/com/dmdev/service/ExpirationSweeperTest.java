@@ -0,0 +1,48 @@
+package com.dmdev.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ExpirationSweeperTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @Test
+    void sweepShouldExpireInBatchesUntilBatchIsNotFull() {
+        var sweeper = new ExpirationSweeper(subscriptionService, Clock.fixed(NOW, ZoneOffset.UTC), 2);
+        doReturn(2, 2, 1).when(subscriptionService).expireOverdue(NOW, 2);
+
+        var actualResult = sweeper.sweep();
+
+        assertThat(actualResult.getExpiredCount()).isEqualTo(5);
+        assertThat(actualResult.getBatchDurations()).hasSize(3);
+        assertThat(actualResult.getStartedAt()).isEqualTo(NOW);
+        assertThat(sweeper.getLastReport()).isEqualTo(actualResult);
+        verify(subscriptionService, times(3)).expireOverdue(NOW, 2);
+    }
+
+    @Test
+    void sweepShouldRunSingleBatchIfNothingIsOverdue() {
+        var sweeper = new ExpirationSweeper(subscriptionService, Clock.fixed(NOW, ZoneOffset.UTC), 2);
+        doReturn(0).when(subscriptionService).expireOverdue(NOW, 2);
+
+        var actualResult = sweeper.sweep();
+
+        assertThat(actualResult.getExpiredCount()).isZero();
+        assertThat(actualResult.getBatchDurations()).hasSize(1);
+    }
+}
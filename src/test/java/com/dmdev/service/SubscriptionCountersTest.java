@@ -0,0 +1,88 @@
+package com.dmdev.service;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.dto.SubscriptionCount;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class SubscriptionCountersTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-10T12:00:00Z");
+
+    private final SubscriptionCounters counters = new SubscriptionCounters(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void shouldMoveCountsBetweenStatusesAndExpirationDays() {
+        var active = getSubscription(Provider.APPLE, Status.ACTIVE, NOW.plus(Duration.ofDays(2)));
+        var other = getSubscription(Provider.GOOGLE, Status.ACTIVE, NOW.plus(Duration.ofDays(10)));
+        counters.record(null, active);
+        counters.record(null, other);
+
+        counters.record(active, active.toBuilder().status(Status.CANCELED).build());
+
+        assertThat(counters.count(Status.ACTIVE)).isEqualTo(1);
+        assertThat(counters.count(Status.CANCELED, Provider.APPLE)).isEqualTo(1);
+        assertThat(counters.countByProvider(Status.ACTIVE))
+                .containsEntry(Provider.GOOGLE, 1L)
+                .containsEntry(Provider.APPLE, 0L);
+        assertThat(counters.countActiveExpiringWithinDays(7)).isZero();
+        assertThat(counters.countActiveExpiringWithinDays(11)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMoveExpirationBucketWhenActiveSubscriptionIsExtended() {
+        var active = getSubscription(Provider.APPLE, Status.ACTIVE, NOW.plus(Duration.ofDays(1)));
+        counters.record(null, active);
+
+        counters.record(active, active.toBuilder().expirationDate(NOW.plus(Duration.ofDays(30))).build());
+
+        assertThat(counters.count(Status.ACTIVE, Provider.APPLE)).isEqualTo(1);
+        assertThat(counters.countActiveExpiringWithinDays(7)).isZero();
+        assertThat(counters.countActiveExpiringWithinDays(31)).isEqualTo(1);
+    }
+
+    @Test
+    void reloadShouldKeepChangesRecordedWhileReadingTheSnapshot() {
+        var subscriptionDao = mock(SubscriptionDao.class);
+        var active = getSubscription(Provider.APPLE, Status.ACTIVE, NOW.plus(Duration.ofDays(2)));
+        counters.record(null, getSubscription(Provider.GOOGLE, Status.CANCELED, NOW));
+        doAnswer(invocation -> {
+            counters.record(null, active);
+            return List.of(new SubscriptionCount(Status.ACTIVE, Provider.APPLE, 3));
+        }).when(subscriptionDao).countByStatusAndProvider(any());
+        doReturn(Map.of(LocalDate.ofInstant(active.getExpirationDate(), SubscriptionDao.EXPIRATION_DATE_ZONE), 3L))
+                .when(subscriptionDao).countByExpirationDate(any());
+
+        counters.reload(subscriptionDao);
+
+        assertThat(counters.count(Status.ACTIVE, Provider.APPLE)).isEqualTo(4);
+        assertThat(counters.count(Status.CANCELED)).isZero();
+        assertThat(counters.countActiveExpiringWithinDays(7)).isEqualTo(4);
+    }
+
+    private Subscription getSubscription(Provider provider, Status status, Instant expirationDate) {
+        return Subscription.builder()
+                .id(1)
+                .userId(1)
+                .name("name")
+                .provider(provider)
+                .status(status)
+                .expirationDate(expirationDate)
+                .build();
+    }
+}
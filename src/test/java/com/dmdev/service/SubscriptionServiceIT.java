@@ -2,15 +2,21 @@ package com.dmdev.service;
 
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.SubscriptionFilter;
+import com.dmdev.dto.TransitionResult;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.integration.IntegrationTestBase;
 import com.dmdev.mapper.CreateSubscriptionMapper;
 import com.dmdev.validator.CreateSubscriptionValidator;
+import com.dmdev.validator.Error;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -77,6 +83,45 @@ class SubscriptionServiceIT extends IntegrationTestBase {
                 .isEqualTo(Instant.now(clock).truncatedTo(ChronoUnit.SECONDS));
     }
 
+    @Test
+    void upsertAll() {
+        var existing = subscriptionDao.upsert(getSubscription(1, "testName").setStatus(Status.CANCELED));
+        var invalidDto = CreateSubscriptionDto.builder()
+                .userId(3)
+                .name("")
+                .provider(Provider.GOOGLE.name())
+                .expirationDate(Instant.now(clock).plus(1, ChronoUnit.HOURS))
+                .build();
+        var newDto = CreateSubscriptionDto.builder()
+                .userId(2)
+                .name("testName")
+                .provider(Provider.GOOGLE.name())
+                .expirationDate(Instant.now(clock).plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .build();
+
+        var actualResult = subscriptionService.upsertAll(List.of(getSubscriptionDto(), invalidDto, newDto));
+
+        assertThat(actualResult).extracting(UpsertResult::getOutcome)
+                .containsExactly(UpsertResult.Outcome.UPDATED, UpsertResult.Outcome.FAILED, UpsertResult.Outcome.CREATED);
+        assertThat(actualResult.get(0).getSubscription().getId()).isEqualTo(existing.getId());
+        assertThat(actualResult.get(1).getErrors()).extracting(Error::getCode).containsExactly(101);
+        assertNotNull(actualResult.get(2).getSubscription().getId());
+        assertThat(subscriptionDao.findById(existing.getId()).get().getStatus()).isEqualTo(Status.ACTIVE);
+        assertThat(subscriptionDao.findAll()).hasSize(2);
+    }
+
+    @Test
+    void expireAll() {
+        var active = subscriptionDao.upsert(getSubscription(1, "name1"));
+        var expired = subscriptionDao.upsert(getSubscription(2, "name2").setStatus(Status.EXPIRED));
+
+        var actualResult = subscriptionService.expireAll(List.of(active.getId(), expired.getId(), -1));
+
+        assertThat(actualResult).extracting(TransitionResult::getOutcome).containsExactly(
+                TransitionResult.Outcome.TRANSITIONED, TransitionResult.Outcome.REJECTED, TransitionResult.Outcome.NOT_FOUND);
+        assertThat(subscriptionDao.findById(active.getId()).get().getStatus()).isEqualTo(Status.EXPIRED);
+    }
+
     private Subscription getSubscription(Integer userId, String name) {
         return Subscription.builder()
                 .userId(userId)
@@ -87,6 +132,63 @@ class SubscriptionServiceIT extends IntegrationTestBase {
                 .build();
     }
 
+    @Test
+    void shouldKeepCountersInSyncWithDatabaseAggregates() {
+        var canceled = subscriptionDao.insert(getSubscription(5, "canceled").setStatus(Status.CANCELED));
+        subscriptionDao.insert(getSubscription(8, "overdue")
+                .setExpirationDate(Instant.now(clock).minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS)));
+        var counters = SubscriptionCounters.loadFrom(subscriptionDao, clock);
+        subscriptionService.setCounters(counters);
+
+        var upserted = subscriptionService.upsert(getSubscriptionDto());
+        subscriptionService.upsertAll(List.of(
+                CreateSubscriptionDto.builder()
+                        .userId(5)
+                        .name("canceled")
+                        .provider(Provider.APPLE.name())
+                        .expirationDate(Instant.now(clock).plus(3, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS))
+                        .build(),
+                CreateSubscriptionDto.builder()
+                        .userId(6)
+                        .name("new")
+                        .provider(Provider.GOOGLE.name())
+                        .expirationDate(Instant.now(clock).plus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS))
+                        .build()));
+        subscriptionService.cancel(upserted.getId());
+        subscriptionService.expireAll(List.of(canceled.getId(), upserted.getId()));
+        subscriptionService.expireOverdue(Instant.now(clock), 10);
+
+        var expected = SubscriptionCounters.loadFrom(subscriptionDao, clock);
+        for (var status : Status.values()) {
+            assertThat(counters.countByProvider(status)).isEqualTo(expected.countByProvider(status));
+        }
+        assertThat(counters.count(Status.ACTIVE)).isEqualTo(1);
+        assertThat(counters.count(Status.EXPIRED, Provider.APPLE)).isEqualTo(3);
+        assertThat(counters.countActiveExpiringWithinDays(7)).isEqualTo(expected.countActiveExpiringWithinDays(7)).isEqualTo(1);
+        assertThat(subscriptionDao.count(SubscriptionFilter.builder()
+                .status(Status.ACTIVE)
+                .expiresTo(Instant.now(clock).plus(7, ChronoUnit.DAYS))
+                .build())).isEqualTo(1);
+    }
+
+    @Test
+    void countersShouldReloadExpirationsMadeOutsideService() throws InterruptedException {
+        subscriptionDao.insert(getSubscription(7, "overdue")
+                .setExpirationDate(Instant.now(clock).minus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS)));
+        try (var counters = SubscriptionCounters.loadFrom(subscriptionDao, clock)) {
+            subscriptionDao.expireOverdue(Instant.now(clock), 10);
+            counters.startReloading(subscriptionDao, Duration.ofMillis(10));
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (counters.count(Status.ACTIVE) != 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(counters.count(Status.ACTIVE)).isZero();
+            assertThat(counters.count(Status.EXPIRED, Provider.APPLE)).isEqualTo(1);
+        }
+    }
+
     private CreateSubscriptionDto getSubscriptionDto() {
         return CreateSubscriptionDto.builder()
                 .userId(1)
@@ -2,12 +2,16 @@ package com.dmdev.service;
 
 import com.dmdev.dao.SubscriptionDao;
 import com.dmdev.dto.CreateSubscriptionDto;
+import com.dmdev.dto.SubscriptionChange;
+import com.dmdev.dto.TransitionResult;
+import com.dmdev.dto.UpsertResult;
 import com.dmdev.entity.Provider;
 import com.dmdev.entity.Status;
 import com.dmdev.entity.Subscription;
 import com.dmdev.exception.SubscriptionException;
 import com.dmdev.exception.ValidationException;
 import com.dmdev.mapper.CreateSubscriptionMapper;
+import com.dmdev.util.TransactionCallback;
 import com.dmdev.validator.CreateSubscriptionValidator;
 import com.dmdev.validator.Error;
 import com.dmdev.validator.ValidationResult;
@@ -16,6 +20,8 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -27,8 +33,13 @@ import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
@@ -46,68 +57,191 @@ class SubscriptionServiceTest {
     @InjectMocks
     private SubscriptionService subscriptionService;
 
+    @BeforeEach
+    void runTransactionCallbacksInline() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(subscriptionDao).inTransaction(any());
+    }
+
     @Test
     void upsertWhenSubstitutionIsExist() {
         var subscription = getSubscription();
         var createSubscriptionDto = getSubscriptionDto();
-        doReturn(List.of(subscription)).when(subscriptionDao).findByUserId(createSubscriptionDto.getUserId());
-        doReturn(subscription).when(subscriptionDao).upsert(subscription);
-        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+        var existingSubscription = getSubscription();
+        existingSubscription.setId(1);
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
+        doReturn(subscription).when(createSubscriptionMapper).map(createSubscriptionDto, Provider.APPLE);
+        doReturn(Optional.of(existingSubscription)).when(subscriptionDao).upsertByUserIdAndName(subscription);
 
         var actualResult = subscriptionService.upsert(createSubscriptionDto);
 
-        assertThat(actualResult).isEqualTo(subscription);
-        verifyNoInteractions(createSubscriptionMapper);
-        verify(subscriptionDao).upsert(subscription);
+        assertThat(actualResult).isEqualTo(existingSubscription);
+        verify(subscriptionDao).upsertByUserIdAndName(subscription);
+        verify(subscriptionDao, never()).findByUserId(anyInt());
     }
 
     @Test
     void upsertWhenSubstitutionIsNotExist() {
         var subscription = getSubscription();
         var createSubscriptionDto = getSubscriptionDto();
-        doReturn(emptyList()).when(subscriptionDao).findByUserId(createSubscriptionDto.getUserId());
-        doReturn(subscription).when(createSubscriptionMapper).map(createSubscriptionDto);
-        doReturn(subscription).when(subscriptionDao).upsert(subscription);
-        doReturn(new ValidationResult()).when(createSubscriptionValidator).validate(createSubscriptionDto);
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
+        doReturn(subscription).when(createSubscriptionMapper).map(createSubscriptionDto, Provider.APPLE);
+        doReturn(Optional.of(subscription)).when(subscriptionDao).upsertByUserIdAndName(subscription);
 
         var actualResult = subscriptionService.upsert(createSubscriptionDto);
 
         assertThat(actualResult).isEqualTo(subscription);
-        verify(subscriptionDao).upsert(subscription);
+        verify(subscriptionDao).upsertByUserIdAndName(subscription);
+    }
+
+    @Test
+    void shouldThrowExceptionIfNameBelongsToAnotherProvider() {
+        var subscription = getSubscription();
+        var createSubscriptionDto = getSubscriptionDto();
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
+        doReturn(subscription).when(createSubscriptionMapper).map(createSubscriptionDto, Provider.APPLE);
+        doReturn(Optional.empty()).when(subscriptionDao).upsertByUserIdAndName(subscription);
+
+        var exception = assertThrows(SubscriptionException.class, () -> subscriptionService.upsert(createSubscriptionDto));
+        assertEquals("Subscription testName of user 1 belongs to another provider", exception.getMessage());
     }
 
     @Test
     void shouldThrowExceptionIfDtoInvalid() {
         var createSubscriptionDto = getSubscriptionDto();
-        var validationResult = new ValidationResult();
-        validationResult.add(Error.of(100, "userId is invalid"));
-        doReturn(validationResult).when(createSubscriptionValidator).validate(createSubscriptionDto);
+        var validationResult = ValidationResult.of(Error.of(100, "userId is invalid"));
+        doReturn(validationResult).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
 
         assertThrows(ValidationException.class, () -> subscriptionService.upsert(createSubscriptionDto));
         verifyNoInteractions(subscriptionDao, createSubscriptionMapper);
     }
 
+    @Test
+    void upsertAllShouldSplitInsertsAndUpdates() {
+        var existing = getSubscription();
+        existing.setId(7);
+        var updateDto = getSubscriptionDto();
+        var insertDto = CreateSubscriptionDto.builder()
+                .userId(2)
+                .name("otherName")
+                .provider(Provider.GOOGLE.name())
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS))
+                .build();
+        var created = getSubscription().setUserId(2).setName("otherName").setProvider(Provider.GOOGLE);
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(any(), any());
+        doReturn(List.of(existing)).when(subscriptionDao).findByUserIds(Set.of(1, 2));
+        doReturn(created).when(createSubscriptionMapper).map(insertDto, Provider.GOOGLE);
+
+        var actualResult = subscriptionService.upsertAll(List.of(updateDto, insertDto));
+
+        assertThat(actualResult).extracting(UpsertResult::getOutcome)
+                .containsExactly(UpsertResult.Outcome.UPDATED, UpsertResult.Outcome.CREATED);
+        verify(subscriptionDao).insertAll(List.of(created));
+        verify(subscriptionDao).updateAll(List.of(existing));
+    }
+
+    @Test
+    void upsertAllShouldRejectInvalidDtoWithoutWriting() {
+        var createSubscriptionDto = getSubscriptionDto();
+        var validationResult = ValidationResult.of(Error.of(101, "name is invalid"));
+        doReturn(validationResult).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
+
+        var actualResult = subscriptionService.upsertAll(List.of(createSubscriptionDto));
+
+        assertThat(actualResult).hasSize(1);
+        assertThat(actualResult.get(0).getOutcome()).isEqualTo(UpsertResult.Outcome.FAILED);
+        assertThat(actualResult.get(0).getErrors()).containsExactly(Error.of(101, "name is invalid"));
+        verify(subscriptionDao).insertAll(emptyList());
+        verify(subscriptionDao).updateAll(emptyList());
+        verifyNoInteractions(createSubscriptionMapper);
+    }
+
+    @Test
+    void upsertAllShouldRejectNameUsedByAnotherProvider() {
+        var existing = getSubscription().setId(7).setProvider(Provider.GOOGLE);
+        var createSubscriptionDto = getSubscriptionDto();
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(createSubscriptionDto, Provider.APPLE);
+        doReturn(List.of(existing)).when(subscriptionDao).findByUserIds(Set.of(1));
+
+        var actualResult = subscriptionService.upsertAll(List.of(createSubscriptionDto));
+
+        assertThat(actualResult.get(0).getOutcome()).isEqualTo(UpsertResult.Outcome.FAILED);
+        assertThat(actualResult.get(0).getErrors()).extracting(Error::getCode).containsExactly(104);
+        verify(subscriptionDao).updateAll(emptyList());
+    }
+
+    @Test
+    void upsertAllShouldReportEveryItemAsFailedIfWriteFails() {
+        var insertDto = getSubscriptionDto();
+        var invalidDto = CreateSubscriptionDto.builder()
+                .userId(1)
+                .provider(Provider.APPLE.name())
+                .build();
+        var validationResult = ValidationResult.of(Error.of(101, "name is invalid"));
+        var created = getSubscription();
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(insertDto, Provider.APPLE);
+        doReturn(validationResult).when(createSubscriptionValidator).validate(invalidDto, Provider.APPLE);
+        doReturn(emptyList()).when(subscriptionDao).findByUserIds(Set.of(1));
+        doReturn(created).when(createSubscriptionMapper).map(insertDto, Provider.APPLE);
+        doThrow(new IllegalStateException("connection reset")).when(subscriptionDao).insertAll(List.of(created));
+
+        var actualResult = subscriptionService.upsertAll(List.of(insertDto, invalidDto));
+
+        assertThat(actualResult).extracting(UpsertResult::getOutcome)
+                .containsOnly(UpsertResult.Outcome.FAILED);
+        assertThat(actualResult.get(0).getErrors())
+                .containsExactly(Error.of(105, "subscription could not be saved: connection reset"));
+        assertThat(actualResult.get(1).getErrors()).containsExactly(Error.of(101, "name is invalid"));
+    }
+
+    @Test
+    void upsertAllShouldFailOnlyTheChunkWhoseWriteFails() {
+        var firstDto = getSubscriptionDto();
+        var secondDto = CreateSubscriptionDto.builder()
+                .userId(1)
+                .name("secondName")
+                .provider(Provider.APPLE.name())
+                .expirationDate(firstDto.getExpirationDate())
+                .build();
+        var thirdDto = CreateSubscriptionDto.builder()
+                .userId(2)
+                .name("thirdName")
+                .provider(Provider.APPLE.name())
+                .expirationDate(firstDto.getExpirationDate())
+                .build();
+        var first = getSubscription();
+        var second = getSubscription().setName("secondName");
+        var third = getSubscription().setUserId(2).setName("thirdName");
+        doReturn(ValidationResult.success()).when(createSubscriptionValidator).validate(any(), any());
+        doReturn(emptyList()).when(subscriptionDao).findByUserIds(any());
+        doReturn(first).when(createSubscriptionMapper).map(firstDto, Provider.APPLE);
+        doReturn(second).when(createSubscriptionMapper).map(secondDto, Provider.APPLE);
+        doReturn(third).when(createSubscriptionMapper).map(thirdDto, Provider.APPLE);
+        doThrow(new IllegalStateException("connection reset")).when(subscriptionDao).insertAll(List.of(first, second));
+
+        var actualResult = subscriptionService.upsertAll(List.of(firstDto, secondDto, thirdDto));
+
+        assertThat(actualResult).extracting(UpsertResult::getOutcome)
+                .containsExactly(UpsertResult.Outcome.FAILED, UpsertResult.Outcome.FAILED, UpsertResult.Outcome.CREATED);
+        verify(subscriptionDao).insertAll(List.of(third));
+    }
+
     @Test
     void cancelSuccess() {
-        ArgumentCaptor<Subscription> argumentCaptor = ArgumentCaptor.forClass(Subscription.class);
-        var subscription = getSubscription();
-        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(anyInt());
-        var expectedResult = getSubscription();
-        expectedResult.setStatus(Status.CANCELED);
-        doReturn(expectedResult).when(subscriptionDao).update(subscription);
+        doReturn(true).when(subscriptionDao).compareAndSetStatus(1, Set.of(Status.ACTIVE), Status.CANCELED, null, null);
 
-        subscriptionService.cancel(anyInt());
+        subscriptionService.cancel(1);
 
-        verify(subscriptionDao).update(argumentCaptor.capture());
-        var actualResult = argumentCaptor.getValue();
-        assertThat(actualResult).isEqualTo(expectedResult);
+        verify(subscriptionDao).compareAndSetStatus(1, Set.of(Status.ACTIVE), Status.CANCELED, null, null);
+        verify(subscriptionDao, never()).findById(anyInt());
+        verify(subscriptionDao, never()).update(any());
     }
 
     @Test
     void shouldThrowExceptionIfIllegalArgument() {
         doReturn(Optional.empty()).when(subscriptionDao).findById(anyInt());
 
-        assertThrows(IllegalArgumentException.class, () -> subscriptionService.cancel(anyInt()));
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.cancel(1));
     }
 
     @Test
@@ -120,20 +254,28 @@ class SubscriptionServiceTest {
         assertEquals("Only active subscription 2 can be canceled", exception.getMessage());
     }
 
+    @Test
+    void shouldThrowExceptionIfVersionChanged() {
+        var subscription = getSubscription().setVersion(4);
+        doReturn(false).when(subscriptionDao).compareAndSetStatus(2, Set.of(Status.ACTIVE), Status.CANCELED, null, 3);
+        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(2);
+
+        var exception = assertThrows(SubscriptionException.class, () -> subscriptionService.cancel(2, 3));
+        assertEquals("Subscription 2 was modified concurrently: expected version 3 but was 4", exception.getMessage());
+    }
+
     @Test
     void expireSuccess() {
-        ArgumentCaptor<Subscription> argumentCaptor = ArgumentCaptor.forClass(Subscription.class);
-        var subscription = getSubscription();
-        doReturn(Optional.of(subscription)).when(subscriptionDao).findById(anyInt());
-        var expectedResult = getSubscription();
-        expectedResult.setStatus(Status.EXPIRED);
-        expectedResult.setExpirationDate(Instant.now(clock));
+        var now = Instant.parse("2026-01-01T00:00:00Z");
+        doReturn(now).when(clock).instant();
+        doReturn(true).when(subscriptionDao)
+                .compareAndSetStatus(1, Set.of(Status.ACTIVE, Status.CANCELED), Status.EXPIRED, now, null);
 
-        subscriptionService.expire(anyInt());
+        subscriptionService.expire(1);
 
-        verify(subscriptionDao).update(argumentCaptor.capture());
-        var actualResult = argumentCaptor.getValue();
-        assertThat(actualResult).isEqualTo(expectedResult);
+        verify(subscriptionDao).compareAndSetStatus(1, Set.of(Status.ACTIVE, Status.CANCELED), Status.EXPIRED, now, null);
+        verify(subscriptionDao, never()).findById(anyInt());
+        verify(subscriptionDao, never()).update(any());
     }
 
     @Test
@@ -147,6 +289,38 @@ class SubscriptionServiceTest {
     }
 
 
+    @Test
+    void cancelAllShouldReportOutcomePerId() {
+        doReturn(List.of(getChange(1, Status.CANCELED))).when(subscriptionDao).cancelAll(Set.of(1, 2, 3));
+        doReturn(List.of(2)).when(subscriptionDao).findExistingIds(List.of(2, 3));
+
+        var actualResult = subscriptionService.cancelAll(List.of(1, 2, 3, 1));
+
+        assertThat(actualResult).containsExactly(
+                TransitionResult.transitioned(1),
+                TransitionResult.rejected(2, "Only active subscription 2 can be canceled"),
+                TransitionResult.notFound(3));
+    }
+
+    @Test
+    void expireAllShouldUseClockAndReportRejections() {
+        var now = Instant.parse("2026-01-01T00:00:00Z");
+        doReturn(now).when(clock).instant();
+        doReturn(List.of(getChange(2, Status.EXPIRED))).when(subscriptionDao).expireAll(Set.of(1, 2), now);
+        doReturn(List.of(1)).when(subscriptionDao).findExistingIds(List.of(1));
+
+        var actualResult = subscriptionService.expireAll(List.of(1, 2));
+
+        assertThat(actualResult).containsExactly(
+                TransitionResult.rejected(1, "Subscription 1 has already expired"),
+                TransitionResult.transitioned(2));
+    }
+
+    private SubscriptionChange getChange(Integer id, Status status) {
+        var before = getSubscription().setId(id);
+        return new SubscriptionChange(before, before.toBuilder().status(status).build());
+    }
+
     private Subscription getSubscription() {
         return Subscription.builder()
                 .userId(1)
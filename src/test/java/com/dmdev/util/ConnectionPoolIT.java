@@ -0,0 +1,210 @@
+package com.dmdev.util;
+
+import com.dmdev.integration.IntegrationTestBase;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolIT extends IntegrationTestBase {
+
+    private static final String SELECT_SQL = "SELECT 1";
+
+    private ConnectionPool connectionPool;
+
+    @AfterEach
+    void closePool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    void shouldWarmUpMinSizeConnections() {
+        connectionPool = new ConnectionPool(getConfig(2, 4, Duration.ZERO));
+
+        var actualResult = connectionPool.getMetrics();
+
+        assertThat(actualResult.getIdle()).isEqualTo(2);
+        assertThat(actualResult.getTotal()).isEqualTo(2);
+        assertThat(actualResult.getActive()).isZero();
+    }
+
+    @Test
+    void shouldReusePhysicalConnectionAfterClose() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO));
+        Connection firstPhysical;
+        try (var connection = connectionPool.acquire()) {
+            firstPhysical = connection.unwrap(Connection.class);
+            assertThat(connectionPool.getMetrics().getActive()).isEqualTo(1);
+        }
+
+        try (var connection = connectionPool.acquire()) {
+            assertThat(connection.unwrap(Connection.class)).isSameAs(firstPhysical);
+        }
+        assertThat(connectionPool.getMetrics().getAcquireCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldThrowExceptionIfPoolExhausted() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO));
+
+        try (var ignored = connectionPool.acquire()) {
+            assertThrows(SQLTransientConnectionException.class, () -> connectionPool.acquire());
+        }
+        assertThat(connectionPool.getMetrics().getTimeoutCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectCallsOnClosedConnection() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO));
+        var connection = connectionPool.acquire();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void shouldReplaceBrokenConnection() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO));
+        Connection brokenPhysical;
+        try (var connection = connectionPool.acquire()) {
+            brokenPhysical = connection.unwrap(Connection.class);
+            brokenPhysical.close();
+        }
+
+        try (var connection = connectionPool.acquire()) {
+            assertThat(connection.unwrap(Connection.class)).isNotSameAs(brokenPhysical);
+            assertTrue(connection.isValid(1));
+        }
+    }
+
+    @Test
+    void shouldResetAutoCommitOnRelease() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO));
+        try (var connection = connectionPool.acquire()) {
+            connection.setAutoCommit(false);
+        }
+
+        try (var connection = connectionPool.acquire()) {
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    void shouldDetectLeakedConnection() throws Exception {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ofMillis(100)));
+
+        try (var ignored = connectionPool.acquire()) {
+            Thread.sleep(500);
+        }
+
+        assertThat(connectionPool.getMetrics().getLeakCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReuseCachedPreparedStatement() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO, 4));
+        PreparedStatement firstStatement;
+        try (var connection = connectionPool.acquire()) {
+            try (var preparedStatement = connection.prepareStatement(SELECT_SQL)) {
+                firstStatement = preparedStatement.unwrap(PreparedStatement.class);
+            }
+            try (var preparedStatement = connection.prepareStatement(SELECT_SQL)) {
+                assertThat(preparedStatement.unwrap(PreparedStatement.class)).isSameAs(firstStatement);
+            }
+        }
+
+        var actualResult = connectionPool.getMetrics();
+        assertThat(actualResult.getStatementCacheHits()).isEqualTo(1);
+        assertThat(actualResult.getStatementCacheMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepCachedStatementAcrossLeases() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO, 4));
+        try (var connection = connectionPool.acquire();
+             var ignored = connection.prepareStatement(SELECT_SQL)) {
+        }
+
+        try (var connection = connectionPool.acquire();
+             var preparedStatement = connection.prepareStatement(SELECT_SQL)) {
+            var resultSet = preparedStatement.executeQuery();
+            assertTrue(resultSet.next());
+        }
+        assertThat(connectionPool.getMetrics().getStatementCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResetCachedStatementStateOnClose() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO, 4));
+        try (var connection = connectionPool.acquire()) {
+            ResultSet firstResultSet;
+            int defaultFetchSize;
+            try (var preparedStatement = connection.prepareStatement(SELECT_SQL)) {
+                defaultFetchSize = preparedStatement.getFetchSize();
+                preparedStatement.setFetchSize(defaultFetchSize + 100);
+                preparedStatement.setMaxRows(1);
+                firstResultSet = preparedStatement.executeQuery();
+            }
+
+            try (var preparedStatement = connection.prepareStatement(SELECT_SQL)) {
+                assertTrue(firstResultSet.isClosed());
+                assertThat(preparedStatement.getFetchSize()).isEqualTo(defaultFetchSize);
+                assertThat(preparedStatement.getMaxRows()).isZero();
+            }
+        }
+        assertThat(connectionPool.getMetrics().getStatementCacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedStatement() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO, 1));
+        try (var connection = connectionPool.acquire()) {
+            connection.prepareStatement(SELECT_SQL).close();
+            connection.prepareStatement(SELECT_SQL + " + 1").close();
+            connection.prepareStatement(SELECT_SQL).close();
+        }
+
+        var actualResult = connectionPool.getMetrics();
+        assertThat(actualResult.getStatementCacheMisses()).isEqualTo(3);
+        assertThat(actualResult.getStatementCacheEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotShareStatementThatIsInUse() throws SQLException {
+        connectionPool = new ConnectionPool(getConfig(1, 1, Duration.ZERO, 4));
+        try (var connection = connectionPool.acquire();
+             var first = connection.prepareStatement(SELECT_SQL);
+             var second = connection.prepareStatement(SELECT_SQL)) {
+            assertThat(second.unwrap(PreparedStatement.class)).isNotSameAs(first.unwrap(PreparedStatement.class));
+        }
+    }
+
+    private PoolConfig getConfig(int minSize, int maxSize, Duration leakDetectionThreshold) {
+        return getConfig(minSize, maxSize, leakDetectionThreshold, 0);
+    }
+
+    private PoolConfig getConfig(int minSize, int maxSize, Duration leakDetectionThreshold, int statementCacheSize) {
+        return PoolConfig.builder()
+                .name("test")
+                .url("jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1")
+                .user("sa")
+                .password("")
+                .minSize(minSize)
+                .maxSize(maxSize)
+                .acquireTimeout(Duration.ofMillis(200))
+                .leakDetectionThreshold(leakDetectionThreshold)
+                .statementCacheSize(statementCacheSize)
+                .build();
+    }
+}
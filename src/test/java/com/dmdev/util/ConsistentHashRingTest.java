@@ -0,0 +1,58 @@
+package com.dmdev.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void shouldSpreadKeysAcrossNodes() {
+        var ring = new ConsistentHashRing<String>(128)
+                .withNode("a", "a")
+                .withNode("b", "b")
+                .withNode("c", "c");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int key = 0; key < KEYS; key++) {
+            counts.merge(ring.route(key), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 5, KEYS / 2));
+    }
+
+    @Test
+    void shouldOnlyMoveKeysToAddedNode() {
+        var ring = new ConsistentHashRing<String>(128)
+                .withNode("a", "a")
+                .withNode("b", "b");
+        var extended = ring.withNode("c", "c");
+
+        var moved = 0;
+        for (int key = 0; key < KEYS; key++) {
+            var before = ring.route(key);
+            var after = extended.route(key);
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo("c");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 5, KEYS / 2);
+        assertThat(ring.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectDuplicateAndMissingNodes() {
+        var ring = new ConsistentHashRing<String>(16).withNode("a", "a");
+
+        assertThrows(IllegalArgumentException.class, () -> ring.withNode("a", "other"));
+        assertThrows(IllegalStateException.class, () -> ring.withoutNode("a").route(1));
+    }
+}
@@ -1,11 +1,14 @@
 package com.dmdev.util;
 
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class PropertiesUtilTest {
@@ -17,6 +20,28 @@ class PropertiesUtilTest {
         assertEquals(expectedValue, actualResult);
     }
 
+    @Test
+    void checkGetInt() {
+        assertEquals(4, PropertiesUtil.getInt("db.pool.max-size", 10));
+        assertEquals(10, PropertiesUtil.getInt("db.pool.unknown", 10));
+    }
+
+    @Test
+    void checkGetBoolean() {
+        assertTrue(PropertiesUtil.getBoolean("db.pool.enabled", false));
+        assertFalse(PropertiesUtil.getBoolean("db.pool.unknown", false));
+    }
+
+    @Test
+    void systemPropertyShouldOverrideFileValue() {
+        System.setProperty("db.batch-size", "7");
+        try {
+            assertEquals(7, PropertiesUtil.getInt("db.batch-size", 500));
+        } finally {
+            System.clearProperty("db.batch-size");
+        }
+    }
+
     static Stream<Arguments> getPropertyArguments() {
         return Stream.of(
                 Arguments.of("db.url", "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1"),
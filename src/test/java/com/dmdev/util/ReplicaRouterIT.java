@@ -0,0 +1,126 @@
+package com.dmdev.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRouterIT {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA1_URL = "jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA2_URL = "jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1";
+    private static final String MISSING_URL = "jdbc:h2:mem:missing;IFEXISTS=TRUE";
+
+    private ReplicaRouter router;
+
+    @AfterEach
+    void closeRouter() {
+        ReadYourWrites.clear();
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    void shouldDistributeReadsRoundRobin() throws SQLException {
+        router = getRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ZERO, REPLICA1_URL, REPLICA2_URL);
+
+        List<String> actualResult = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            try (var connection = router.acquireForRead()) {
+                actualResult.add(databaseOf(connection));
+            }
+        }
+
+        assertThat(actualResult).containsExactly("REPLICA1", "REPLICA2", "REPLICA1", "REPLICA2");
+    }
+
+    @Test
+    void shouldPreferLeastLoadedReplica() throws SQLException {
+        router = getRouter(ReplicaBalancing.LEAST_LOADED, Duration.ZERO, REPLICA1_URL, REPLICA2_URL);
+
+        try (var busy = router.acquireForRead()) {
+            try (var released = router.acquireForRead()) {
+                assertThat(databaseOf(released)).isEqualTo("REPLICA2");
+            }
+
+            try (var actualResult = router.acquireForRead()) {
+                assertThat(databaseOf(busy)).isEqualTo("REPLICA1");
+                assertThat(databaseOf(actualResult)).isEqualTo("REPLICA2");
+            }
+        }
+    }
+
+    @Test
+    void shouldReadFromPrimaryWithinReadYourWritesWindow() throws SQLException {
+        router = getRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ofMinutes(1), REPLICA1_URL);
+
+        try (var ignored = router.acquireForRead();
+             var ignoredWrite = router.acquireForWrite();
+             var actualResult = router.acquireForRead()) {
+            assertThat(databaseOf(ignored)).isEqualTo("REPLICA1");
+            assertThat(databaseOf(actualResult)).isEqualTo("PRIMARY");
+        }
+    }
+
+    @Test
+    void shouldReadFromPrimaryAfterJoiningWriteCompletedOnAnotherThread() throws SQLException {
+        router = getRouter(ReplicaBalancing.ROUND_ROBIN, Duration.ofMinutes(1), REPLICA1_URL);
+        var write = new ReadYourWritesFuture<Void>();
+        new Thread(() -> {
+            try (var ignored = router.acquireForWrite()) {
+                write.complete(null);
+            } catch (SQLException e) {
+                write.completeExceptionally(e);
+            }
+        }).start();
+
+        write.thenApply(ignored -> ignored).join();
+
+        try (var actualResult = router.acquireForRead()) {
+            assertThat(databaseOf(actualResult)).isEqualTo("PRIMARY");
+        }
+    }
+
+    @Test
+    void shouldFallBackToPrimaryIfReplicaUnavailable() throws SQLException {
+        router = new ReplicaRouter(
+                getSource("primary", PRIMARY_URL, true),
+                List.of(getSource("missing", MISSING_URL, false)),
+                ReplicaBalancing.ROUND_ROBIN,
+                Duration.ZERO);
+
+        try (var actualResult = router.acquireForRead()) {
+            assertThat(databaseOf(actualResult)).isEqualTo("PRIMARY");
+        }
+    }
+
+    private ReplicaRouter getRouter(ReplicaBalancing balancing, Duration readYourWritesWindow, String... replicaUrls) {
+        List<ConnectionSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.add(getSource("replica" + (i + 1), replicaUrls[i], true));
+        }
+        return new ReplicaRouter(getSource("primary", PRIMARY_URL, true), replicas, balancing, readYourWritesWindow);
+    }
+
+    private ConnectionSource getSource(String name, String url, boolean pooled) {
+        return new ConnectionSource(PoolConfig.builder()
+                .name(name)
+                .url(url)
+                .user("sa")
+                .password("")
+                .minSize(0)
+                .maxSize(2)
+                .build(), pooled);
+    }
+
+    private String databaseOf(Connection connection) throws SQLException {
+        return connection.getCatalog();
+    }
+}
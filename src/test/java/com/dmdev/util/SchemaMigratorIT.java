@@ -0,0 +1,117 @@
+package com.dmdev.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorIT {
+
+    private static final String LEGACY_SQL = """
+            CREATE TABLE subscription
+            (
+                id INT AUTO_INCREMENT PRIMARY KEY ,
+                user_id INT NOT NULL ,
+                name VARCHAR(64) NOT NULL ,
+                provider VARCHAR(16) NOT NULL ,
+                expiration_date TIMESTAMP NOT NULL ,
+                status VARCHAR(16) NOT NULL ,
+                UNIQUE (user_id, name)
+            );
+            """;
+
+    private Connection connection;
+
+    @BeforeEach
+    void init() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:migration_test", "sa", "");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void shouldCreateSchemaOnEmptyDatabase() throws SQLException {
+        var actualResult = SchemaMigrator.migrate(connection);
+
+        assertThat(actualResult).isPositive();
+        assertTrue(hasColumn("VERSION"));
+        assertTrue(hasIndex("SUBSCRIPTION_STATUS_EXPIRATION_DATE_IDX"));
+        assertTrue(hasIndex("SUBSCRIPTION_EXPIRATION_DATE_IDX"));
+        assertThat(SchemaMigrator.migrate(connection)).isZero();
+    }
+
+    @Test
+    void shouldUpgradeExistingTableWithoutVersionColumn() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(LEGACY_SQL);
+            statement.execute("INSERT INTO subscription (user_id, name, provider, expiration_date, status) "
+                              + "VALUES (1, 'legacy', 'APPLE', CURRENT_TIMESTAMP, 'ACTIVE')");
+        }
+
+        SchemaMigrator.migrate(connection);
+
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT version FROM subscription WHERE name = 'legacy'")) {
+            assertTrue(resultSet.next());
+            assertThat(resultSet.getInt(1)).isZero();
+        }
+    }
+
+    @Test
+    void shouldApplyEachVersionOnceWhenMigratorsRunConcurrently() throws Exception {
+        var url = "jdbc:h2:mem:concurrent_migration_test;DB_CLOSE_DELAY=-1";
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    try (var migrating = DriverManager.getConnection(url, "sa", "")) {
+                        return SchemaMigrator.migrate(migrating);
+                    }
+                }));
+            }
+            var applied = 0;
+            for (var result : results) {
+                applied += result.get();
+            }
+
+            try (var verifying = DriverManager.getConnection(url, "sa", "");
+                 var statement = verifying.createStatement();
+                 var resultSet = statement.executeQuery("SELECT COUNT(*) FROM schema_version")) {
+                assertTrue(resultSet.next());
+                assertThat(applied).isEqualTo(resultSet.getInt(1)).isPositive();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean hasIndex(String index) throws SQLException {
+        try (var resultSet = connection.getMetaData().getIndexInfo(null, null, "SUBSCRIPTION", false, false)) {
+            while (resultSet.next()) {
+                if (index.equals(resultSet.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasColumn(String column) throws SQLException {
+        try (var resultSet = connection.getMetaData().getColumns(null, null, "SUBSCRIPTION", column)) {
+            return resultSet.next();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.dmdev.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldFireEntriesAfterTheirDeadlineAcrossLevels() {
+        var timingWheel = new TimingWheel(10, 4, 3, 0);
+        timingWheel.schedule(1, 15);
+        timingWheel.schedule(2, 95);
+        timingWheel.schedule(3, 500);
+
+        assertThat(timingWheel.advance(15)).isEmpty();
+        assertThat(timingWheel.advance(20)).containsExactly(1);
+        assertThat(timingWheel.advance(99)).isEmpty();
+        assertThat(timingWheel.advance(100)).containsExactly(2);
+        assertThat(timingWheel.advance(509)).isEmpty();
+        assertThat(timingWheel.advance(510)).containsExactly(3);
+        assertThat(timingWheel.size()).isZero();
+    }
+
+    @Test
+    void shouldRescheduleAndCancelEntries() {
+        var timingWheel = new TimingWheel(10, 4, 3, 0);
+        timingWheel.schedule(1, 20);
+        timingWheel.schedule(2, 20);
+        timingWheel.schedule(1, 300);
+
+        assertTrue(timingWheel.cancel(2));
+        assertThat(timingWheel.advance(100)).isEmpty();
+        assertThat(timingWheel.advance(310)).containsExactly(1);
+    }
+
+    @Test
+    void shouldRejectDeadlinesBeyondHorizon() {
+        var timingWheel = new TimingWheel(10, 4, 3, 0);
+
+        assertThat(timingWheel.getHorizonMillis()).isEqualTo(640);
+        assertFalse(timingWheel.schedule(1, 640));
+        assertTrue(timingWheel.schedule(2, 620));
+        assertThat(timingWheel.advance(1000)).containsExactly(2);
+    }
+}
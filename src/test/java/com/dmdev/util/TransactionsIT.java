@@ -0,0 +1,119 @@
+package com.dmdev.util;
+
+import com.dmdev.dao.SubscriptionDao;
+import com.dmdev.entity.Provider;
+import com.dmdev.entity.Status;
+import com.dmdev.entity.Subscription;
+import com.dmdev.integration.IntegrationTestBase;
+import java.sql.Connection;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionsIT extends IntegrationTestBase {
+
+    private final SubscriptionDao subscriptionDao = SubscriptionDao.getInstance();
+
+    @Test
+    void shouldUseSingleConnectionCheckoutForAllDaoCalls() {
+        var acquireCountBefore = ConnectionManager.getPoolMetrics().orElseThrow().getAcquireCount();
+
+        var actualResult = subscriptionDao.inTransaction(transaction -> {
+            var subscription = subscriptionDao.insert(getSubscription(1, "name1"));
+            subscriptionDao.insertAll(List.of(getSubscription(1, "name2"), getSubscription(1, "name3")));
+            subscriptionDao.update(subscription.setStatus(Status.CANCELED));
+            return subscriptionDao.findByUserId(1);
+        });
+
+        assertThat(actualResult).hasSize(3);
+        assertThat(ConnectionManager.getPoolMetrics().orElseThrow().getAcquireCount() - acquireCountBefore)
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldRollbackAllDaoCallsOnException() {
+        var exception = assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(transaction -> {
+            subscriptionDao.insert(getSubscription(1, "name1"));
+            subscriptionDao.insertAll(List.of(getSubscription(2, "name2"), getSubscription(3, "name3")));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(exception.getMessage()).isEqualTo("boom");
+        assertThat(subscriptionDao.findAll()).isEmpty();
+    }
+
+    @Test
+    void shouldJoinOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(outer -> {
+            Transactions.inTransaction(inner -> {
+                assertThat(inner).isSameAs(outer);
+                return subscriptionDao.insert(getSubscription(1, "name1"));
+            });
+            throw new IllegalStateException();
+        }));
+
+        assertThat(subscriptionDao.findAll()).isEmpty();
+        assertFalse(Transactions.isActive());
+    }
+
+    @Test
+    void shouldRollbackWhenMarkedRollbackOnly() {
+        Transactions.inTransaction(transaction -> {
+            subscriptionDao.insert(getSubscription(1, "name1"));
+            transaction.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(subscriptionDao.findAll()).isEmpty();
+    }
+
+    @Test
+    void shouldRunCompletionCallbacksAfterTransactionEnds() {
+        List<String> events = new ArrayList<>();
+
+        Transactions.inTransaction(transaction -> {
+            transaction.afterCompletion(committed -> events.add("completed:" + committed + ":" + Transactions.isActive()));
+            Transactions.afterCommit(() -> events.add("committed"));
+            events.add("body");
+            return null;
+        });
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(transaction -> {
+            transaction.afterCompletion(committed -> events.add("completed:" + committed));
+            Transactions.afterCommit(() -> events.add("not committed"));
+            throw new IllegalStateException();
+        }));
+
+        assertThat(events).containsExactly("body", "completed:true:false", "committed", "completed:false");
+    }
+
+    @Test
+    void shouldApplyAndRestoreIsolationLevel() throws Exception {
+        var actualResult = Transactions.inTransaction(IsolationLevel.SERIALIZABLE, transaction -> {
+            assertTrue(Transactions.isActive());
+            return transaction.getConnection().getTransactionIsolation();
+        });
+
+        assertThat(actualResult).isEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+        try (var connection = ConnectionManager.get()) {
+            assertThat(connection.getTransactionIsolation()).isNotEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    private Subscription getSubscription(Integer userId, String name) {
+        return Subscription.builder()
+                .userId(userId)
+                .name(name)
+                .provider(Provider.APPLE)
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS))
+                .status(Status.ACTIVE)
+                .build();
+    }
+}
@@ -2,7 +2,9 @@ package com.dmdev.validator;
 
 import com.dmdev.dto.CreateSubscriptionDto;
 import com.dmdev.entity.Provider;
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import org.junit.jupiter.api.Test;
 
@@ -99,4 +101,55 @@ class CreateSubscriptionValidatorTest {
 
         assertThat(errorCodes).contains(100, 101, 102, 103);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnSharedResultWhenValid() {
+        CreateSubscriptionDto dto = CreateSubscriptionDto.builder()
+                .userId(1)
+                .name("testName")
+                .provider("apple")
+                .expirationDate(Instant.now().plus(1, ChronoUnit.HOURS))
+                .build();
+        var actualResult = validator.validate(dto);
+
+        assertSame(ValidationResult.success(), actualResult);
+    }
+
+    @Test
+    void shouldNotMutateSharedResultWhenAddingError() {
+        var actualResult = ValidationResult.success().withError(Error.of(100, "userId is invalid"));
+
+        assertThat(actualResult.getErrors()).extracting(Error::getCode).containsExactly(100);
+        assertFalse(ValidationResult.success().hasErrors());
+    }
+
+    @Test
+    void shouldStopAtFirstErrorWhenFailFast() {
+        var failFastValidator = new CreateSubscriptionValidator(Clock.systemUTC(), true);
+        CreateSubscriptionDto dto = CreateSubscriptionDto.builder()
+                .userId(null)
+                .name("")
+                .provider("provider")
+                .expirationDate(Instant.now().minus(1, ChronoUnit.HOURS))
+                .build();
+        var actualResult = failFastValidator.validate(dto);
+
+        assertThat(actualResult.getErrors()).extracting(Error::getCode).containsExactly(100);
+    }
+
+    @Test
+    void shouldCheckExpirationDateAgainstClock() {
+        var now = Instant.parse("2030-01-01T00:00:00Z");
+        var clockValidator = new CreateSubscriptionValidator(Clock.fixed(now, ZoneOffset.UTC), false);
+        var dtoBuilder = CreateSubscriptionDto.builder()
+                .userId(1)
+                .name("testName")
+                .provider(Provider.APPLE.name());
+
+        var expiredResult = clockValidator.validate(dtoBuilder.expirationDate(now.minusNanos(1)).build());
+        var validResult = clockValidator.validate(dtoBuilder.expirationDate(now).build());
+
+        assertThat(expiredResult.getErrors()).extracting(Error::getCode).containsExactly(103);
+        assertFalse(validResult.hasErrors());
+    }
+}